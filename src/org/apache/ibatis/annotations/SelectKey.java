@@ -21,6 +21,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.apache.ibatis.executor.keygen.KeyAllocation;
 import org.apache.ibatis.mapping.StatementType;
 
 /**
@@ -41,4 +42,12 @@ public @interface SelectKey {
   Class<?> resultType();
 
   StatementType statementType() default StatementType.PREPARED;
+
+  /**
+   * Keys reserved by one execution of the statement, which must then return the next value of a sequence.
+   * Zero (the default) runs the statement for every row.
+   */
+  int allocationSize() default 0;
+
+  KeyAllocation allocation() default KeyAllocation.POOLED;
 }
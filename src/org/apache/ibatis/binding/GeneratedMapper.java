@@ -0,0 +1,43 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * Superclass of the mapper implementations generated by a {@link GeneratedMapperFactory}. Each method of the mapper
+ * interface calls {@link #execute(int, Object[])} with its index, without going through a dynamic proxy.
+ */
+public abstract class GeneratedMapper {
+
+  private final GeneratedMapperFactory<?> factory;
+  private final SqlSession sqlSession;
+
+  protected GeneratedMapper(GeneratedMapperFactory<?> factory, SqlSession sqlSession) {
+    this.factory = factory;
+    this.sqlSession = sqlSession;
+  }
+
+  protected final Object execute(int method, Object[] args) {
+    return factory.getMapperMethod(method, sqlSession).execute(sqlSession, args);
+  }
+
+  @Override
+  public String toString() {
+    return "Generated mapper of " + factory.getMapperInterface().getName();
+  }
+
+}
@@ -0,0 +1,155 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.binding;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtConstructor;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.LoaderClassPath;
+
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * Generates, with Javassist, a class implementing a mapper interface whose methods call their {@link MapperMethod}
+ * through an array index, and creates its instances.
+ * <p>
+ * The class is generated when the factory is created, in a class loader of its own whose parent loaded the
+ * interface. The mapper methods are resolved when first called, as with {@link MapperProxy}, and shared with the
+ * proxies of the same mapper.
+ */
+public class GeneratedMapperFactory<T> {
+
+  private static final AtomicInteger classCount = new AtomicInteger();
+
+  private final Class<T> mapperInterface;
+  private final Method[] methods;
+  private final MapperMethod[] mapperMethods;
+  private final Map<Method, MapperMethod> methodCache;
+  private final Constructor<? extends T> constructor;
+
+  public GeneratedMapperFactory(Class<T> mapperInterface, Map<Method, MapperMethod> methodCache) {
+    this.mapperInterface = mapperInterface;
+    this.methodCache = methodCache;
+    final List<Method> abstractMethods = new ArrayList<Method>();
+    for (Method method : mapperInterface.getMethods()) {
+      if (Modifier.isAbstract(method.getModifiers())) {
+        abstractMethods.add(method);
+      }
+    }
+    this.methods = abstractMethods.toArray(new Method[abstractMethods.size()]);
+    this.mapperMethods = new MapperMethod[methods.length];
+    try {
+      this.constructor = generate().getConstructor(GeneratedMapperFactory.class, SqlSession.class);
+    } catch (NoClassDefFoundError e) {
+      throw new BindingException("Cannot generate mapper " + mapperInterface.getName() + " because Javassist is not available. Add Javassist to your classpath.", e);
+    } catch (Exception e) {
+      throw new BindingException("Error generating mapper " + mapperInterface.getName() + ". Cause: " + e, e);
+    }
+  }
+
+  public Class<T> getMapperInterface() {
+    return mapperInterface;
+  }
+
+  public T newInstance(SqlSession sqlSession) {
+    try {
+      return constructor.newInstance(this, sqlSession);
+    } catch (Exception e) {
+      throw new BindingException("Error creating generated mapper " + mapperInterface.getName() + ". Cause: " + e, e);
+    }
+  }
+
+  MapperMethod getMapperMethod(int index, SqlSession sqlSession) {
+    MapperMethod mapperMethod = mapperMethods[index];
+    if (mapperMethod == null) {
+      final Method method = methods[index];
+      mapperMethod = methodCache.get(method);
+      if (mapperMethod == null) {
+        mapperMethod = new MapperMethod(mapperInterface, method, sqlSession.getConfiguration());
+        methodCache.put(method, mapperMethod);
+      }
+      mapperMethods[index] = mapperMethod;
+    }
+    return mapperMethod;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Class<? extends T> generate() throws Exception {
+    final ClassPool pool = new ClassPool(true);
+    pool.appendClassPath(new LoaderClassPath(mapperInterface.getClassLoader()));
+    pool.appendClassPath(new ClassClassPath(GeneratedMapper.class));
+    final CtClass ctClass = pool.makeClass(mapperInterface.getName() + "$$GeneratedMapper" + classCount.incrementAndGet());
+    ctClass.setSuperclass(pool.get(GeneratedMapper.class.getName()));
+    ctClass.addInterface(pool.get(mapperInterface.getName()));
+    final CtConstructor ctConstructor = CtNewConstructor.make(
+        new CtClass[] { pool.get(GeneratedMapperFactory.class.getName()), pool.get(SqlSession.class.getName()) },
+        new CtClass[0], "{ super($1, $2); }", ctClass);
+    ctClass.addConstructor(ctConstructor);
+    for (int i = 0; i < methods.length; i++) {
+      final Method method = methods[i];
+      final Class<?>[] parameterTypes = method.getParameterTypes();
+      final CtClass[] ctParameterTypes = new CtClass[parameterTypes.length];
+      for (int j = 0; j < parameterTypes.length; j++) {
+        ctParameterTypes[j] = pool.get(typeName(parameterTypes[j]));
+      }
+      final CtMethod ctMethod = new CtMethod(pool.get(typeName(method.getReturnType())), method.getName(), ctParameterTypes, ctClass);
+      ctMethod.setBody(void.class.equals(method.getReturnType())
+          ? "{ execute(" + i + ", $args); }"
+          : "{ return ($r) execute(" + i + ", $args); }");
+      ctClass.addMethod(ctMethod);
+    }
+    try {
+      final GeneratedClassLoader classLoader = new GeneratedClassLoader(mapperInterface.getClassLoader());
+      return (Class<? extends T>) classLoader.define(ctClass.getName(), ctClass.toBytecode());
+    } finally {
+      ctClass.detach();
+    }
+  }
+
+  /**
+   * Only public interfaces can be implemented by a class of another class loader.
+   */
+  public static boolean canGenerate(Class<?> mapperInterface) {
+    return Modifier.isPublic(mapperInterface.getModifiers());
+  }
+
+  private static class GeneratedClassLoader extends ClassLoader {
+
+    GeneratedClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> define(String name, byte[] bytecode) {
+      return defineClass(name, bytecode, 0, bytecode.length);
+    }
+  }
+
+  private static String typeName(Class<?> type) {
+    return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+  }
+
+}
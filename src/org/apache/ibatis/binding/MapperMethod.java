@@ -18,15 +18,22 @@ package org.apache.ibatis.binding;
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.reactive.CursorPublisher;
+import org.apache.ibatis.cursor.reactive.Publisher;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.TypeParameterResolver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.session.StatementHandle;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
@@ -54,17 +61,20 @@ public class MapperMethod {
     switch (command.getType()) {
       case INSERT: {
     	Object param = method.convertArgsToSqlCommandParam(args);
-        result = rowCountResult(sqlSession.insert(command.getName(), param));
+        result = rowCountResult(supportsHandles(sqlSession)
+            ? sqlSession.update(command.getHandle(), param) : sqlSession.insert(command.getName(), param));
         break;
       }
       case UPDATE: {
         Object param = method.convertArgsToSqlCommandParam(args);
-        result = rowCountResult(sqlSession.update(command.getName(), param));
+        result = rowCountResult(supportsHandles(sqlSession)
+            ? sqlSession.update(command.getHandle(), param) : sqlSession.update(command.getName(), param));
         break;
       }
       case DELETE: {
         Object param = method.convertArgsToSqlCommandParam(args);
-        result = rowCountResult(sqlSession.delete(command.getName(), param));
+        result = rowCountResult(supportsHandles(sqlSession)
+            ? sqlSession.update(command.getHandle(), param) : sqlSession.delete(command.getName(), param));
         break;
       }
       case SELECT:
@@ -77,9 +87,14 @@ public class MapperMethod {
           result = executeForMap(sqlSession, args);
         } else if (method.returnsCursor()) {
           result = executeForCursor(sqlSession, args);
+        } else if (method.returnsPage()) {
+          result = executeForPage(sqlSession, args);
+        } else if (method.returnsPublisher()) {
+          result = executeForPublisher(sqlSession, args);
         } else {
           Object param = method.convertArgsToSqlCommandParam(args);
-          result = sqlSession.selectOne(command.getName(), param);
+          result = supportsHandles(sqlSession)
+              ? sqlSession.selectOne(command.getHandle(), param) : sqlSession.selectOne(command.getName(), param);
         }
         break;
       case FLUSH:
@@ -95,6 +110,14 @@ public class MapperMethod {
     return result;
   }
 
+  /**
+   * Sessions of other implementations (e.g. those of integration libraries) may predate the methods taking a
+   * {@link StatementHandle}, they get the statement id.
+   */
+  private static boolean supportsHandles(SqlSession sqlSession) {
+    return sqlSession instanceof DefaultSqlSession || sqlSession instanceof SqlSessionManager;
+  }
+
   private Object rowCountResult(int rowCount) {
     final Object result;
     if (method.returnsVoid()) {
@@ -112,29 +135,29 @@ public class MapperMethod {
   }
 
   private void executeWithResultHandler(SqlSession sqlSession, Object[] args) {
-    MappedStatement ms = sqlSession.getConfiguration().getMappedStatement(command.getName());
+    MappedStatement ms = command.getHandle().getMappedStatement();
     if (void.class.equals(ms.getResultMaps().get(0).getType())) {
       throw new BindingException("method " + command.getName() 
           + " needs either a @ResultMap annotation, a @ResultType annotation," 
           + " or a resultType attribute in XML so a ResultHandler can be used as a parameter.");
     }
     Object param = method.convertArgsToSqlCommandParam(args);
-    if (method.hasRowBounds()) {
-      RowBounds rowBounds = method.extractRowBounds(args);
-      sqlSession.select(command.getName(), param, rowBounds, method.extractResultHandler(args));
+    RowBounds rowBounds = method.hasRowBounds() ? method.extractRowBounds(args) : RowBounds.DEFAULT;
+    if (supportsHandles(sqlSession)) {
+      sqlSession.select(command.getHandle(), param, rowBounds, method.extractResultHandler(args));
     } else {
-      sqlSession.select(command.getName(), param, method.extractResultHandler(args));
+      sqlSession.select(command.getName(), param, rowBounds, method.extractResultHandler(args));
     }
   }
 
   private <E> Object executeForMany(SqlSession sqlSession, Object[] args) {
     List<E> result;
     Object param = method.convertArgsToSqlCommandParam(args);
-    if (method.hasRowBounds()) {
-      RowBounds rowBounds = method.extractRowBounds(args);
-      result = sqlSession.<E>selectList(command.getName(), param, rowBounds);
+    RowBounds rowBounds = method.hasRowBounds() ? method.extractRowBounds(args) : RowBounds.DEFAULT;
+    if (supportsHandles(sqlSession)) {
+      result = sqlSession.<E>selectList(command.getHandle(), param, rowBounds);
     } else {
-      result = sqlSession.<E>selectList(command.getName(), param);
+      result = sqlSession.<E>selectList(command.getName(), param, rowBounds);
     }
     // issue #510 Collections & arrays support
     if (!method.getReturnType().isAssignableFrom(result.getClass())) {
@@ -159,6 +182,25 @@ public class MapperMethod {
     return result;
   }
 
+  private <E> Page<E> executeForPage(SqlSession sqlSession, Object[] args) {
+    RowBounds rowBounds = method.extractRowBounds(args);
+    if (!(rowBounds instanceof Seek)) {
+      throw new BindingException("Mapper method '" + command.getName() + "' returns a Page and needs a Seek parameter.");
+    }
+    Object param = method.convertArgsToSqlCommandParam(args);
+    return sqlSession.<E>selectPage(command.getName(), param, (Seek) rowBounds);
+  }
+
+  /**
+   * The publisher takes over the session the mapper was obtained from and closes it once the subscription ends
+   * (rows consumed, cancelled or failed), so a mapper returning a Publisher needs a session of its own.
+   */
+  private <T> Publisher<T> executeForPublisher(SqlSession sqlSession, Object[] args) {
+    Object param = method.convertArgsToSqlCommandParam(args);
+    RowBounds rowBounds = method.hasRowBounds() ? method.extractRowBounds(args) : RowBounds.DEFAULT;
+    return sqlSession.<T>selectPublisher(command.getName(), param, rowBounds, CursorPublisher.DEFAULT_PREFETCH);
+  }
+
   private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
     Object collection = config.getObjectFactory().create(method.getReturnType());
     MetaObject metaObject = config.newMetaObject(collection);
@@ -203,6 +245,7 @@ public class MapperMethod {
 
     private final String name;
     private final SqlCommandType type;
+    private final StatementHandle handle;
 
     public SqlCommand(Configuration configuration, Class<?> mapperInterface, Method method) {
       String statementName = mapperInterface.getName() + "." + method.getName();
@@ -219,12 +262,14 @@ public class MapperMethod {
         if(method.getAnnotation(Flush.class) != null){
           name = null;
           type = SqlCommandType.FLUSH;
+          handle = null;
         } else {
           throw new BindingException("Invalid bound statement (not found): " + statementName);
         }
       } else {
         name = ms.getId();
         type = ms.getSqlCommandType();
+        handle = new StatementHandle(ms);
         if (type == SqlCommandType.UNKNOWN) {
           throw new BindingException("Unknown execution method for: " + name);
         }
@@ -238,6 +283,13 @@ public class MapperMethod {
     public SqlCommandType getType() {
       return type;
     }
+
+    /**
+     * @return the statement resolved when the mapper method was bound, null for flushes
+     */
+    public StatementHandle getHandle() {
+      return handle;
+    }
   }
 
   public static class MethodSignature {
@@ -246,6 +298,8 @@ public class MapperMethod {
     private final boolean returnsMap;
     private final boolean returnsVoid;
     private final boolean returnsCursor;
+    private final boolean returnsPublisher;
+    private final boolean returnsPage;
     private final Class<?> returnType;
     private final String mapKey;
     private final Integer resultHandlerIndex;
@@ -264,6 +318,8 @@ public class MapperMethod {
       this.returnsVoid = void.class.equals(this.returnType);
       this.returnsMany = (configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray());
       this.returnsCursor = Cursor.class.equals(this.returnType);
+      this.returnsPublisher = Publisher.class.equals(this.returnType);
+      this.returnsPage = Page.class.equals(this.returnType);
       this.mapKey = getMapKey(method);
       this.returnsMap = (this.mapKey != null);
       this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
@@ -315,6 +371,14 @@ public class MapperMethod {
       return returnsCursor;
     }
 
+    public boolean returnsPublisher() {
+      return returnsPublisher;
+    }
+
+    public boolean returnsPage() {
+      return returnsPage;
+    }
+
     private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
       Integer index = null;
       final Class<?>[] argTypes = method.getParameterTypes();
@@ -29,6 +29,7 @@ public class MapperProxyFactory<T> {
 
   private final Class<T> mapperInterface;
   private final Map<Method, MapperMethod> methodCache = new ConcurrentHashMap<Method, MapperMethod>();
+  private volatile GeneratedMapperFactory<T> generatedMapperFactory;
 
   public MapperProxyFactory(Class<T> mapperInterface) {
     this.mapperInterface = mapperInterface;
@@ -47,7 +48,24 @@ public class MapperProxyFactory<T> {
     return (T) Proxy.newProxyInstance(mapperInterface.getClassLoader(), new Class[] { mapperInterface }, mapperProxy);
   }
 
+  /**
+   * @return the factory of the generated implementation of the mapper, generated on first call
+   */
+  public GeneratedMapperFactory<T> getGeneratedMapperFactory() {
+    if (generatedMapperFactory == null) {
+      synchronized (this) {
+        if (generatedMapperFactory == null) {
+          generatedMapperFactory = new GeneratedMapperFactory<T>(mapperInterface, methodCache);
+        }
+      }
+    }
+    return generatedMapperFactory;
+  }
+
   public T newInstance(SqlSession sqlSession) {
+    if (sqlSession.getConfiguration().isGeneratedMappers() && GeneratedMapperFactory.canGenerate(mapperInterface)) {
+      return getGeneratedMapperFactory().newInstance(sqlSession);
+    }
     final MapperProxy<T> mapperProxy = new MapperProxy<T>(sqlSession, mapperInterface, methodCache);
     return newInstance(mapperProxy);
   }
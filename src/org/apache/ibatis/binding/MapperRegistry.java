@@ -64,12 +64,16 @@ public class MapperRegistry {
       }
       boolean loadCompleted = false;
       try {
-        knownMappers.put(type, new MapperProxyFactory<T>(type));
+        final MapperProxyFactory<T> mapperProxyFactory = new MapperProxyFactory<T>(type);
+        knownMappers.put(type, mapperProxyFactory);
         // It's important that the type is added before the parser is run
         // otherwise the binding may automatically be attempted by the
         // mapper parser. If the type is already known, it won't try.
         MapperAnnotationBuilder parser = new MapperAnnotationBuilder(config, type);
         parser.parse();
+        if (config.isGeneratedMappers() && GeneratedMapperFactory.canGenerate(type)) {
+          mapperProxyFactory.getGeneratedMapperFactory();
+        }
         loadCompleted = true;
       } finally {
         if (!loadCompleted) {
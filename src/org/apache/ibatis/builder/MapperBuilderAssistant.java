@@ -266,7 +266,8 @@ public class MapperBuilderAssistant extends BaseBuilder {
       String keyColumn,
       String databaseId,
       LanguageDriver lang,
-      String resultSets) {
+      String resultSets,
+      boolean coalesce) {
 
     if (unresolvedCacheRef) {
       throw new IncompleteElementException("Cache-ref not yet resolved");
@@ -286,6 +287,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .databaseId(databaseId)
         .lang(lang)
         .resultOrdered(resultOrdered)
+        .coalesce(coalesce && isSelect)
         .resultSets(resultSets)
         .resultMaps(getStatementResultMaps(resultMap, resultType, id))
         .resultSetType(resultSetType)
@@ -303,6 +305,34 @@ public class MapperBuilderAssistant extends BaseBuilder {
     return statement;
   }
 
+  public MappedStatement addMappedStatement(
+      String id,
+      SqlSource sqlSource,
+      StatementType statementType,
+      SqlCommandType sqlCommandType,
+      Integer fetchSize,
+      Integer timeout,
+      String parameterMap,
+      Class<?> parameterType,
+      String resultMap,
+      Class<?> resultType,
+      ResultSetType resultSetType,
+      boolean flushCache,
+      boolean useCache,
+      boolean resultOrdered,
+      KeyGenerator keyGenerator,
+      String keyProperty,
+      String keyColumn,
+      String databaseId,
+      LanguageDriver lang,
+      String resultSets) {
+    return addMappedStatement(
+        id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+        parameterMap, parameterType, resultMap, resultType, resultSetType,
+        flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+        keyColumn, databaseId, lang, resultSets, false);
+  }
+
   private <T> T valueOrDefault(T value, T defaultValue) {
     return value == null ? defaultValue : value;
   }
@@ -372,7 +402,9 @@ public class MapperBuilderAssistant extends BaseBuilder {
       List<ResultFlag> flags,
       String resultSet,
       String foreignColumn,
-      boolean lazy) {
+      boolean lazy,
+      String batchSelect,
+      String batchKey) {
     Class<?> javaTypeClass = resolveResultJavaType(resultType, property, javaType);
     TypeHandler<?> typeHandlerInstance = resolveTypeHandler(javaTypeClass, typeHandler);
     List<ResultMapping> composites = parseCompositeColumnName(column);
@@ -382,6 +414,8 @@ public class MapperBuilderAssistant extends BaseBuilder {
     return new ResultMapping.Builder(configuration, property, column, javaTypeClass)
         .jdbcType(jdbcType)
         .nestedQueryId(applyCurrentNamespace(nestedSelect, true))
+        .batchQueryId(applyCurrentNamespace(batchSelect, true))
+        .batchKey(batchKey)
         .nestedResultMapId(applyCurrentNamespace(nestedResultMap, true))
         .resultSet(resultSet)
         .typeHandler(typeHandlerInstance)
@@ -457,6 +491,26 @@ public class MapperBuilderAssistant extends BaseBuilder {
     return javaType;
   }
 
+  public ResultMapping buildResultMapping(
+      Class<?> resultType,
+      String property,
+      String column,
+      Class<?> javaType,
+      JdbcType jdbcType,
+      String nestedSelect,
+      String nestedResultMap,
+      String notNullColumn,
+      String columnPrefix,
+      Class<? extends TypeHandler<?>> typeHandler,
+      List<ResultFlag> flags,
+      String resultSet,
+      String foreignColumn,
+      boolean lazy) {
+    return buildResultMapping(
+        resultType, property, column, javaType, jdbcType, nestedSelect,
+        nestedResultMap, notNullColumn, columnPrefix, typeHandler, flags, resultSet, foreignColumn, lazy, null, null);
+  }
+
   /** Backward compatibility signature */
   public ResultMapping buildResultMapping(
       Class<?> resultType,
@@ -63,10 +63,12 @@ import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.reactive.Publisher;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
+import org.apache.ibatis.executor.keygen.SequenceKeyGenerator;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.FetchType;
@@ -80,6 +82,7 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.TypeParameterResolver;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.type.JdbcType;
@@ -347,7 +350,8 @@ public class MapperAnnotationBuilder {
           null,
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          options != null && options.coalesce());
     }
   }
   
@@ -394,7 +398,8 @@ public class MapperAnnotationBuilder {
     } else if (resolvedReturnType instanceof ParameterizedType) {
       ParameterizedType parameterizedType = (ParameterizedType) resolvedReturnType;
       Class<?> rawType = (Class<?>) parameterizedType.getRawType();
-      if (Collection.class.isAssignableFrom(rawType) || Cursor.class.isAssignableFrom(rawType)) {
+      if (Collection.class.isAssignableFrom(rawType) || Cursor.class.isAssignableFrom(rawType)
+          || Publisher.class.isAssignableFrom(rawType) || Page.class.isAssignableFrom(rawType)) {
         Type[] actualTypeArguments = parameterizedType.getActualTypeArguments();
         if (actualTypeArguments != null && actualTypeArguments.length == 1) {
           Type returnTypeParameter = actualTypeArguments[0];
@@ -624,7 +629,18 @@ public class MapperAnnotationBuilder {
     id = assistant.applyCurrentNamespace(id, false);
 
     MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-    SelectKeyGenerator answer = new SelectKeyGenerator(keyStatement, executeBefore);
+    KeyGenerator answer;
+    if (selectKeyAnnotation.allocationSize() < 0) {
+      throw new BuilderException("SelectKey " + id + " has a negative allocationSize " + selectKeyAnnotation.allocationSize() + ".");
+    }
+    if (selectKeyAnnotation.allocationSize() > 0) {
+      if (!executeBefore) {
+        throw new BuilderException("SelectKey " + id + " with an allocationSize must be executed before the statement.");
+      }
+      answer = new SequenceKeyGenerator(keyStatement, selectKeyAnnotation.allocationSize(), selectKeyAnnotation.allocation());
+    } else {
+      answer = new SelectKeyGenerator(keyStatement, executeBefore);
+    }
     configuration.addKeyGenerator(id, answer);
     return answer;
   }
@@ -23,8 +23,10 @@ import javax.sql.DataSource;
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.dialect.Dialect;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.statement.FetchSizeAdvisor;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -240,6 +242,7 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setCacheEnabled(booleanValueOf(props.getProperty("cacheEnabled"), true));
     configuration.setProxyFactory((ProxyFactory) createInstance(props.getProperty("proxyFactory")));
     configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
+    configuration.setLazyLoadBatchSize(integerValueOf(props.getProperty("lazyLoadBatchSize"), 0));
     configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), true));
     configuration.setMultipleResultSetsEnabled(booleanValueOf(props.getProperty("multipleResultSetsEnabled"), true));
     configuration.setUseColumnLabel(booleanValueOf(props.getProperty("useColumnLabel"), true));
@@ -247,6 +250,17 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setDefaultExecutorType(ExecutorType.valueOf(props.getProperty("defaultExecutorType", "SIMPLE")));
     configuration.setDefaultStatementTimeout(integerValueOf(props.getProperty("defaultStatementTimeout"), null));
     configuration.setDefaultFetchSize(integerValueOf(props.getProperty("defaultFetchSize"), null));
+    configuration.setCursorPrefetchSize(integerValueOf(props.getProperty("cursorPrefetchSize"), 0));
+    configuration.setAdaptiveFetchSize(booleanValueOf(props.getProperty("adaptiveFetchSize"), false));
+    configuration.setFetchSizeMemoryBudget(integerValueOf(props.getProperty("fetchSizeMemoryBudget"), FetchSizeAdvisor.DEFAULT_MEMORY_BUDGET));
+    configuration.setCacheResultSetMetadata(booleanValueOf(props.getProperty("cacheResultSetMetadata"), false));
+    configuration.setUseColumnIndex(booleanValueOf(props.getProperty("useColumnIndex"), false));
+    configuration.setParallelRowMapping(booleanValueOf(props.getProperty("parallelRowMapping"), false));
+    configuration.setCompiledPlugins(booleanValueOf(props.getProperty("compiledPlugins"), false));
+    configuration.setGeneratedMappers(booleanValueOf(props.getProperty("generatedMappers"), false));
+    configuration.setDialect((Dialect) createInstance(props.getProperty("dialect")));
+    configuration.setPushDownRowBounds(booleanValueOf(props.getProperty("pushDownRowBounds"), false));
+    configuration.setConcurrentCountQuery(booleanValueOf(props.getProperty("concurrentCountQuery"), false));
     configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
     configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
     configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope", "SESSION")));
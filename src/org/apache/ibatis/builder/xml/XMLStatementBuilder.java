@@ -19,11 +19,14 @@ import java.util.List;
 import java.util.Locale;
 
 import org.apache.ibatis.builder.BaseBuilder;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyAllocation;
 import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
+import org.apache.ibatis.executor.keygen.SequenceKeyGenerator;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.mapping.SqlCommandType;
@@ -82,6 +85,7 @@ public class XMLStatementBuilder extends BaseBuilder {
     boolean flushCache = context.getBooleanAttribute("flushCache", !isSelect);
     boolean useCache = context.getBooleanAttribute("useCache", isSelect);
     boolean resultOrdered = context.getBooleanAttribute("resultOrdered", false);
+    boolean coalesce = context.getBooleanAttribute("coalesce", false);
 
     // Include Fragments before parsing
     XMLIncludeTransformer includeParser = new XMLIncludeTransformer(configuration, builderAssistant);
@@ -109,7 +113,7 @@ public class XMLStatementBuilder extends BaseBuilder {
     builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
         fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
         resultSetTypeEnum, flushCache, useCache, resultOrdered, 
-        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
+        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets, coalesce);
   }
 
   private void processSelectKeyNodes(String id, Class<?> parameterTypeClass, LanguageDriver langDriver) {
@@ -138,6 +142,8 @@ public class XMLStatementBuilder extends BaseBuilder {
     String keyProperty = nodeToHandle.getStringAttribute("keyProperty");
     String keyColumn = nodeToHandle.getStringAttribute("keyColumn");
     boolean executeBefore = "BEFORE".equals(nodeToHandle.getStringAttribute("order", "AFTER"));
+    Integer allocationSize = nodeToHandle.getIntAttribute("allocationSize");
+    KeyAllocation allocation = KeyAllocation.valueOf(nodeToHandle.getStringAttribute("allocation", KeyAllocation.POOLED.toString()));
 
     //defaults
     boolean useCache = false;
@@ -161,7 +167,18 @@ public class XMLStatementBuilder extends BaseBuilder {
     id = builderAssistant.applyCurrentNamespace(id, false);
 
     MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-    configuration.addKeyGenerator(id, new SelectKeyGenerator(keyStatement, executeBefore));
+    if (allocationSize != null && allocationSize < 0) {
+      throw new BuilderException("SelectKey " + id + " has a negative allocationSize " + allocationSize + ".");
+    }
+    // like @SelectKey, an allocationSize of zero runs the statement for every row
+    if (allocationSize != null && allocationSize > 0) {
+      if (!executeBefore) {
+        throw new BuilderException("SelectKey " + id + " with an allocationSize must be executed before the statement.");
+      }
+      configuration.addKeyGenerator(id, new SequenceKeyGenerator(keyStatement, allocationSize, allocation));
+    } else {
+      configuration.addKeyGenerator(id, new SelectKeyGenerator(keyStatement, executeBefore));
+    }
   }
 
   private void removeSelectKeyNodes(List<XNode> selectKeyNodes) {
@@ -0,0 +1,58 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe memo of derived values with a bounded number of entries.
+ * <p>
+ * A full map is emptied before the next entry is added. Keys derived from SQL texts (which dynamic SQL may produce
+ * in great numbers) stay bounded that way, at the cost of recomputing the values that were dropped.
+ */
+public class BoundedMap<K, V> {
+
+  private final int maxSize;
+  private final Map<K, V> entries = new ConcurrentHashMap<K, V>();
+
+  public BoundedMap(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive but was " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+
+  public V get(K key) {
+    return entries.get(key);
+  }
+
+  public void put(K key, V value) {
+    if (entries.size() >= maxSize) {
+      entries.clear();
+    }
+    entries.put(key, value);
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+}
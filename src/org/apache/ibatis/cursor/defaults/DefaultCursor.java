@@ -22,6 +22,7 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.LobScope;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -43,6 +44,8 @@ public class DefaultCursor<T> implements Cursor<T> {
     private final ResultSetWrapper rsw;
     private final RowBounds rowBounds;
     private final ObjectWrapperResultHandler<T> objectWrapperResultHandler = new ObjectWrapperResultHandler<T>();
+    // the streamed LOBs of the last row, released when the cursor moves on
+    private final LobScope rowLobs = new LobScope();
 
     private final CursorIterator cursorIterator = new CursorIterator();
     private boolean iteratorRetrieved = false;
@@ -107,6 +110,7 @@ public class DefaultCursor<T> implements Cursor<T> {
             return;
         }
 
+        rowLobs.release();
         ResultSet rs = rsw.getResultSet();
         try {
             if (rs != null) {
@@ -136,11 +140,22 @@ public class DefaultCursor<T> implements Cursor<T> {
             return null;
         }
 
+        rowLobs.release();
+        if (isLimitReached()) {
+            // the last row kept the cursor open for its streamed LOBs
+            close();
+            status = CursorStatus.CONSUMED;
+            return null;
+        }
+
+        final LobScope previousLobs = rowLobs.enter();
         try {
             status = CursorStatus.OPEN;
             resultSetHandler.handleRowValues(rsw, resultMap, objectWrapperResultHandler, RowBounds.DEFAULT, null);
         } catch (SQLException e) {
             throw new RuntimeException(e);
+        } finally {
+            rowLobs.exit(previousLobs);
         }
 
         T next = objectWrapperResultHandler.result;
@@ -148,7 +163,7 @@ public class DefaultCursor<T> implements Cursor<T> {
             indexWithRowBound++;
         }
         // No more object or limit reached
-        if (next == null || (getReadItemsCount() == rowBounds.getOffset() + rowBounds.getLimit())) {
+        if (next == null || (isLimitReached() && rowLobs.isEmpty())) {
             close();
             status = CursorStatus.CONSUMED;
         }
@@ -165,6 +180,10 @@ public class DefaultCursor<T> implements Cursor<T> {
         return indexWithRowBound + 1;
     }
 
+    private boolean isLimitReached() {
+        return getReadItemsCount() == rowBounds.getOffset() + rowBounds.getLimit();
+    }
+
     private static class ObjectWrapperResultHandler<T> implements ResultHandler<T> {
 
         private T result;
@@ -0,0 +1,289 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.ErrorContext;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Cursor that reads and maps rows of another cursor on a background thread, keeping up to
+ * <code>prefetchSize</code> of them in a bounded queue, so that fetching overlaps with the work done on each row.
+ * <p>
+ * The producer starts when the first row is asked for, on a pool of daemon threads shared by all cursors and bounded
+ * to {@link #MAX_PRODUCERS} threads; when every thread is busy the cursor reads its rows on demand instead.
+ * Closing the cursor stops the producer and waits for it to close the underlying cursor (and its statement) before
+ * returning. Errors of the producer are thrown by the iterator once the rows read before the failure have been
+ * consumed. The iterator itself is not thread safe.
+ * <p>
+ * The producer maps rows with the executor and connection of the session that opened the cursor, which are not
+ * thread safe: the session must not be used until the cursor is closed.
+ */
+public class PrefetchingCursor<T> implements Cursor<T> {
+
+    public static final int MAX_PRODUCERS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final Object END = new Object();
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private static final ThreadPoolExecutor producers = new ThreadPoolExecutor(0, MAX_PRODUCERS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "mybatis-cursor-prefetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final Cursor<T> delegate;
+    private final BlockingQueue<Object> queue;
+    private final int initialIndex;
+
+    private final CursorIterator cursorIterator = new CursorIterator();
+    private boolean iteratorRetrieved = false;
+
+    private boolean started = false;
+    private CountDownLatch producerDone;
+    private Iterator<T> directIterator;
+    private volatile boolean closed = false;
+    private volatile boolean consumed = false;
+    private int consumedCount = 0;
+
+    public PrefetchingCursor(Cursor<T> delegate, int prefetchSize) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<Object>(prefetchSize);
+        this.initialIndex = delegate.getCurrentIndex();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return started && !closed;
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return consumed;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return initialIndex + consumedCount;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (iteratorRetrieved) {
+            throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+        }
+        iteratorRetrieved = true;
+        return cursorIterator;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (producerDone == null) {
+            closeDelegate();
+            return;
+        }
+        // unblock the producer, it closes the delegate on its way out
+        queue.clear();
+        boolean interrupted = false;
+        while (producerDone.getCount() > 0) {
+            try {
+                producerDone.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        queue.clear();
+        // wake up a consumer waiting on another thread
+        queue.offer(END);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void startProducer() {
+        if (started || closed) {
+            return;
+        }
+        started = true;
+        final CountDownLatch done = new CountDownLatch(1);
+        try {
+            producers.execute(new Producer(done));
+            producerDone = done;
+        } catch (RejectedExecutionException e) {
+            // all producer threads are busy, read on demand
+            directIterator = delegate.iterator();
+        }
+    }
+
+    private Object take() {
+        if (closed) {
+            return END;
+        }
+        startProducer();
+        if (directIterator != null) {
+            return directIterator.hasNext() ? directIterator.next() : END;
+        }
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("Interrupted while waiting for the next row", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected T fetchNextObject() {
+        if (consumed) {
+            return null;
+        }
+        Object next = take();
+        if (next == END) {
+            if (!closed) {
+                consumed = true;
+                close();
+            }
+            return null;
+        }
+        if (next instanceof Failure) {
+            consumed = true;
+            close();
+            Throwable cause = ((Failure) next).cause;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        return (T) next;
+    }
+
+    private void closeDelegate() {
+        try {
+            delegate.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static class Failure {
+
+        private final Throwable cause;
+
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+
+    private class Producer implements Runnable {
+
+        private final CountDownLatch done;
+
+        Producer(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (T row : delegate) {
+                    if (!put(row)) {
+                        return;
+                    }
+                }
+                put(END);
+            } catch (Throwable t) {
+                put(new Failure(t));
+            } finally {
+                closeDelegate();
+                ErrorContext.instance().reset();
+                done.countDown();
+            }
+        }
+
+        private boolean put(Object item) {
+            try {
+                while (!closed) {
+                    if (queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stop producing
+            }
+            return false;
+        }
+    }
+
+    private class CursorIterator implements Iterator<T> {
+
+        /**
+         * Holder for the next object to be returned
+         */
+        T object;
+
+        @Override
+        public boolean hasNext() {
+            if (object == null) {
+                object = fetchNextObject();
+            }
+            return object != null;
+        }
+
+        @Override
+        public T next() {
+            T next = object;
+
+            if (next == null) {
+                next = fetchNextObject();
+            }
+
+            if (next != null) {
+                object = null;
+                consumedCount++;
+                return next;
+            }
+            throw new NoSuchElementException();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove element from Cursor");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.parallel;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.cursor.Cursor;
+
+/**
+ * Applies a {@link RowFunction} to the rows of a cursor on a thread pool, in chunks, keeping the cursor order.
+ * <p>
+ * The calling thread is the only one reading the cursor: it cuts the rows into chunks of <code>chunkSize</code>
+ * already mapped objects and hands each chunk to the pool, with at most <code>maxChunksInFlight</code> chunks
+ * submitted ahead of the one being consumed. CPU heavy post processing thus runs in parallel while memory stays
+ * bounded. When a function fails, the pending chunks are cancelled, the cursor is closed and the failure is rethrown.
+ */
+public class ParallelCursor<T> {
+
+  private final Cursor<T> cursor;
+  private final ExecutorService executorService;
+  private final int chunkSize;
+  private final int maxChunksInFlight;
+
+  public ParallelCursor(Cursor<T> cursor, ExecutorService executorService, int chunkSize, int maxChunksInFlight) {
+    if (chunkSize <= 0 || maxChunksInFlight <= 0) {
+      throw new IllegalArgumentException("Chunk size and chunks in flight must be positive");
+    }
+    this.cursor = cursor;
+    this.executorService = executorService;
+    this.chunkSize = chunkSize;
+    this.maxChunksInFlight = maxChunksInFlight;
+  }
+
+  /**
+   * Lazily maps the rows; results are returned in the order of the rows they come from.
+   */
+  public <R> Iterator<R> map(RowFunction<? super T, ? extends R> function) {
+    return new ChunkIterator<R>(function);
+  }
+
+  /**
+   * Maps all the rows and returns the results in the order of the rows they come from.
+   */
+  public <R> List<R> mapAll(RowFunction<? super T, ? extends R> function) {
+    final List<R> results = new ArrayList<R>();
+    final Iterator<R> iterator = map(function);
+    while (iterator.hasNext()) {
+      results.add(iterator.next());
+    }
+    return results;
+  }
+
+  private class ChunkIterator<R> implements Iterator<R> {
+
+    private final RowFunction<? super T, ? extends R> function;
+    private final Iterator<T> rows = cursor.iterator();
+    private final Deque<Future<List<R>>> chunksInFlight = new ArrayDeque<Future<List<R>>>();
+    private Iterator<R> currentChunk = Collections.<R> emptyList().iterator();
+
+    ChunkIterator(RowFunction<? super T, ? extends R> function) {
+      this.function = function;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (!currentChunk.hasNext()) {
+        submitChunks();
+        if (chunksInFlight.isEmpty()) {
+          return false;
+        }
+        currentChunk = await(chunksInFlight.poll()).iterator();
+      }
+      return true;
+    }
+
+    @Override
+    public R next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return currentChunk.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove element from Cursor");
+    }
+
+    private void submitChunks() {
+      while (chunksInFlight.size() < maxChunksInFlight && rows.hasNext()) {
+        final List<T> chunk = new ArrayList<T>(chunkSize);
+        while (chunk.size() < chunkSize && rows.hasNext()) {
+          chunk.add(rows.next());
+        }
+        chunksInFlight.add(executorService.submit(new Callable<List<R>>() {
+          @Override
+          public List<R> call() {
+            final List<R> results = new ArrayList<R>(chunk.size());
+            for (T row : chunk) {
+              results.add(function.apply(row));
+            }
+            return results;
+          }
+        }));
+      }
+    }
+
+    private List<R> await(Future<List<R>> chunk) {
+      try {
+        return chunk.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        abort();
+        throw new RuntimeException("Interrupted while waiting for a chunk of rows", e);
+      } catch (ExecutionException e) {
+        abort();
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+      }
+    }
+
+    private void abort() {
+      for (Future<List<R>> chunk : chunksInFlight) {
+        chunk.cancel(true);
+      }
+      chunksInFlight.clear();
+      try {
+        cursor.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+}
@@ -0,0 +1,224 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.reactive;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * Publishes the rows of a cursor query.
+ * <p>
+ * The statement is executed when the subscriber first requests items and rows are read from the result set only to
+ * serve the outstanding demand, at most <code>prefetch</code> rows ahead. Reading happens on the thread calling
+ * {@link Subscription#request(long)}, one thread at a time. The publisher owns the session: when the rows are
+ * exhausted, the subscriber cancels or an error occurs, the cursor (with its statement) and the session are closed.
+ * The end of the rows is detected as soon as the last one is emitted, so a subscriber requesting exactly the number
+ * of remaining rows is completed (and the session closed) without asking for more.
+ * Only one subscriber is allowed.
+ */
+public class CursorPublisher<T> implements Publisher<T> {
+
+  public static final int DEFAULT_PREFETCH = 32;
+
+  private final SqlSession sqlSession;
+  private final String statement;
+  private final Object parameter;
+  private final RowBounds rowBounds;
+  private final int prefetch;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  public CursorPublisher(SqlSession sqlSession, String statement, Object parameter, RowBounds rowBounds, int prefetch) {
+    if (prefetch <= 0) {
+      throw new IllegalArgumentException("Prefetch must be positive but was " + prefetch);
+    }
+    this.sqlSession = sqlSession;
+    this.statement = statement;
+    this.parameter = parameter;
+    this.rowBounds = rowBounds;
+    this.prefetch = prefetch;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("Subscriber cannot be null");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+          // nothing to deliver
+        }
+
+        @Override
+        public void cancel() {
+          // nothing to release
+        }
+      });
+      subscriber.onError(new IllegalStateException("A CursorPublisher allows only one subscriber"));
+      return;
+    }
+    subscriber.onSubscribe(new CursorSubscription(subscriber));
+  }
+
+  private class CursorSubscription implements Subscription {
+
+    private final Subscriber<? super T> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    // only accessed by the draining thread
+    private final Queue<T> buffer = new ArrayDeque<T>();
+    private Cursor<T> cursor;
+    private Iterator<T> iterator;
+    private boolean exhausted;
+    private boolean released;
+
+    CursorSubscription(Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("Requested items must be positive but was " + n);
+      } else {
+        long current;
+        long next;
+        do {
+          current = requested.get();
+          next = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!requested.compareAndSet(current, next));
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        // the thread currently draining will see the new state
+        return;
+      }
+      int missed = 1;
+      do {
+        if (released) {
+          return;
+        }
+        try {
+          emit();
+        } catch (Throwable t) {
+          fail(t);
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      final long demand = requested.get();
+      long emitted = 0;
+      while (!released) {
+        if (cancelled) {
+          release();
+          return;
+        }
+        if (invalidRequest != null) {
+          fail(invalidRequest);
+          return;
+        }
+        if (emitted == demand) {
+          break;
+        }
+        final T item = poll();
+        if (item == null) {
+          break;
+        }
+        subscriber.onNext(item);
+        emitted++;
+      }
+      if (!released && !cancelled && buffer.isEmpty() && !exhausted && iterator != null) {
+        // the demand took the last buffered row: look for one more so the end is signalled without a new request
+        fill();
+      }
+      if (!released && buffer.isEmpty() && exhausted) {
+        release();
+        subscriber.onComplete();
+        return;
+      }
+      if (emitted > 0 && demand != Long.MAX_VALUE) {
+        requested.addAndGet(-emitted);
+      }
+    }
+
+    private T poll() {
+      if (buffer.isEmpty() && !exhausted) {
+        fill();
+      }
+      return buffer.poll();
+    }
+
+    private void fill() {
+      if (iterator == null) {
+        cursor = sqlSession.selectCursor(statement, parameter, rowBounds);
+        iterator = cursor.iterator();
+      }
+      while (buffer.size() < prefetch) {
+        if (!iterator.hasNext()) {
+          exhausted = true;
+          break;
+        }
+        buffer.add(iterator.next());
+      }
+    }
+
+    private void fail(Throwable t) {
+      if (!released) {
+        release();
+        subscriber.onError(t);
+      }
+    }
+
+    private void release() {
+      released = true;
+      buffer.clear();
+      try {
+        if (cursor != null) {
+          cursor.close();
+        }
+      } catch (IOException e) {
+        // ignore, the session closes it anyway
+      } finally {
+        sqlSession.close();
+      }
+    }
+  }
+
+}
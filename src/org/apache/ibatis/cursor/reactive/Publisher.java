@@ -0,0 +1,32 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.reactive;
+
+/**
+ * A provider of a potentially unbounded number of items, published according to the demand of its subscribers.
+ * <p>
+ * Same contract as the Reactive Streams (and <code>java.util.concurrent.Flow</code>) publisher, so adapting it to a
+ * reactive library is a one line bridge.
+ */
+public interface Publisher<T> {
+
+  /**
+   * Adds the subscriber. It receives {@link Subscriber#onSubscribe(Subscription)} first and no item until it
+   * requests some.
+   */
+  void subscribe(Subscriber<? super T> subscriber);
+
+}
@@ -0,0 +1,33 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.reactive;
+
+/**
+ * Link between a {@link Publisher} and one {@link Subscriber}.
+ */
+public interface Subscription {
+
+  /**
+   * Asks for up to n more items. Demand is cumulative; a non positive n fails the subscription.
+   */
+  void request(long n);
+
+  /**
+   * Stops the delivery of items and releases the resources held by the subscription.
+   */
+  void cancel();
+
+}
@@ -0,0 +1,145 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * DataSource made of a primary database and a pool of read replicas.
+ * <p>
+ * {@link #getConnection()} always returns a primary connection. Read connections are balanced round robin over
+ * the healthy replicas; a replica that fails to hand out a connection is ejected for {@link #getEjectionMillis()}
+ * and reads fall back to the primary when no replica is available.
+ * Use it together with {@link org.apache.ibatis.transaction.routing.RoutingTransactionFactory}.
+ */
+public class RoutingDataSource implements DataSource {
+
+  private static final Log log = LogFactory.getLog(RoutingDataSource.class);
+
+  private final RoutingTarget primary;
+  private final List<RoutingTarget> replicas;
+  private final AtomicInteger nextReplica = new AtomicInteger();
+
+  private long ejectionMillis = 30000;
+
+  public RoutingDataSource(DataSource primary, List<DataSource> replicas) {
+    this.primary = new RoutingTarget("primary", primary);
+    List<RoutingTarget> targets = new ArrayList<RoutingTarget>();
+    for (int i = 0; i < replicas.size(); i++) {
+      targets.add(new RoutingTarget("replica-" + i, replicas.get(i)));
+    }
+    this.replicas = Collections.unmodifiableList(targets);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return primary.getConnection(0);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return primary.getConnection(username, password, 0);
+  }
+
+  public Connection getReadConnection() throws SQLException {
+    final int size = replicas.size();
+    if (size > 0) {
+      final int start = nextReplica.getAndIncrement() & Integer.MAX_VALUE;
+      for (int i = 0; i < size; i++) {
+        RoutingTarget replica = replicas.get((start + i) % size);
+        if (replica.isHealthy()) {
+          try {
+            return replica.getConnection(ejectionMillis);
+          } catch (SQLException e) {
+            // ejected, try the next one
+          }
+        }
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("No healthy replica available, reading from the primary");
+      }
+    }
+    return getConnection();
+  }
+
+  public boolean hasReplicas() {
+    return !replicas.isEmpty();
+  }
+
+  public RoutingTarget getPrimary() {
+    return primary;
+  }
+
+  public List<RoutingTarget> getReplicas() {
+    return replicas;
+  }
+
+  public long getEjectionMillis() {
+    return ejectionMillis;
+  }
+
+  public void setEjectionMillis(long ejectionMillis) {
+    this.ejectionMillis = ejectionMillis;
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return primary.getDataSource().getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {
+    primary.getDataSource().setLogWriter(out);
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {
+    primary.getDataSource().setLoginTimeout(seconds);
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return primary.getDataSource().getLoginTimeout();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    throw new SQLException(getClass().getName() + " is not a wrapper.");
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return false;
+  }
+
+  // @Override only valid jdk7+
+  public Logger getParentLogger() {
+    return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+  }
+
+}
@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * One database behind a {@link RoutingDataSource}, with its health state and statement latency metrics.
+ * <p>
+ * Requests and latencies are those of the statements executed on connections of this target, measured around
+ * their <code>execute</code> methods. Failures count the connections the target failed to hand out.
+ */
+public class RoutingTarget {
+
+  private static final Log log = LogFactory.getLog(RoutingTarget.class);
+
+  private final String name;
+  private final DataSource dataSource;
+
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong failureCount = new AtomicLong();
+  private final AtomicLong accumulatedLatency = new AtomicLong();
+  private final AtomicLong maxLatency = new AtomicLong();
+  private volatile long ejectedUntil;
+
+  public RoutingTarget(String name, DataSource dataSource) {
+    this.name = name;
+    this.dataSource = dataSource;
+  }
+
+  public Connection getConnection(long ejectionMillis) throws SQLException {
+    return getConnection(null, null, false, ejectionMillis);
+  }
+
+  public Connection getConnection(String username, String password, long ejectionMillis) throws SQLException {
+    return getConnection(username, password, true, ejectionMillis);
+  }
+
+  private Connection getConnection(String username, String password, boolean credentials, long ejectionMillis) throws SQLException {
+    try {
+      Connection connection = credentials ? dataSource.getConnection(username, password) : dataSource.getConnection();
+      ejectedUntil = 0;
+      return TimedConnection.newInstance(connection, this);
+    } catch (SQLException e) {
+      failureCount.incrementAndGet();
+      if (ejectionMillis > 0) {
+        ejectedUntil = System.currentTimeMillis() + ejectionMillis;
+        if (log.isDebugEnabled()) {
+          log.debug("Ejecting " + name + " for " + ejectionMillis + " ms.  Cause: " + e);
+        }
+      }
+      throw e;
+    }
+  }
+
+  void recordLatency(long nanos) {
+    requestCount.incrementAndGet();
+    accumulatedLatency.addAndGet(nanos);
+    long max = maxLatency.get();
+    while (nanos > max && !maxLatency.compareAndSet(max, nanos)) {
+      max = maxLatency.get();
+    }
+  }
+
+  /**
+   * A target is healthy unless it failed to hand out a connection during the ejection period.
+   */
+  public boolean isHealthy() {
+    return ejectedUntil == 0 || System.currentTimeMillis() >= ejectedUntil;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  public long getFailureCount() {
+    return failureCount.get();
+  }
+
+  public long getAverageLatencyNanos() {
+    long requests = requestCount.get();
+    return requests == 0 ? 0 : accumulatedLatency.get() / requests;
+  }
+
+  public long getMaxLatencyNanos() {
+    return maxLatency.get();
+  }
+
+  @Override
+  public String toString() {
+    return name + " [healthy=" + isHealthy() + ", requests=" + getRequestCount() + ", failures=" + getFailureCount()
+        + ", avgLatencyNanos=" + getAverageLatencyNanos() + ", maxLatencyNanos=" + getMaxLatencyNanos() + "]";
+  }
+
+}
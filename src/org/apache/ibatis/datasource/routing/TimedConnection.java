@@ -0,0 +1,99 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.routing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * Connection proxy that records the execution time of its statements on the {@link RoutingTarget} it came from.
+ */
+final class TimedConnection implements InvocationHandler {
+
+  private final Connection connection;
+  private final RoutingTarget target;
+
+  private TimedConnection(Connection connection, RoutingTarget target) {
+    this.connection = connection;
+    this.target = target;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] params) throws Throwable {
+    try {
+      final String name = method.getName();
+      if ("prepareStatement".equals(name)) {
+        return newStatement(method.invoke(connection, params), PreparedStatement.class, target);
+      } else if ("prepareCall".equals(name)) {
+        return newStatement(method.invoke(connection, params), CallableStatement.class, target);
+      } else if ("createStatement".equals(name)) {
+        return newStatement(method.invoke(connection, params), Statement.class, target);
+      }
+      return method.invoke(connection, params);
+    } catch (Throwable t) {
+      throw ExceptionUtil.unwrapThrowable(t);
+    }
+  }
+
+  static Connection newInstance(Connection connection, RoutingTarget target) {
+    InvocationHandler handler = new TimedConnection(connection, target);
+    ClassLoader cl = Connection.class.getClassLoader();
+    return (Connection) Proxy.newProxyInstance(cl, new Class<?>[] { Connection.class }, handler);
+  }
+
+  private static Object newStatement(Object statement, Class<?> type, RoutingTarget target) {
+    InvocationHandler handler = new TimedStatement(statement, target);
+    return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+  }
+
+  private static class TimedStatement implements InvocationHandler {
+
+    private final Object statement;
+    private final RoutingTarget target;
+
+    TimedStatement(Object statement, RoutingTarget target) {
+      this.statement = statement;
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] params) throws Throwable {
+      if (!method.getName().startsWith("execute")) {
+        try {
+          return method.invoke(statement, params);
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      }
+      final long start = System.nanoTime();
+      try {
+        return method.invoke(statement, params);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      } finally {
+        target.recordLatency(System.nanoTime() - start);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,85 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+import org.apache.ibatis.cache.BoundedMap;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+
+/**
+ * Counts the rows of another select: <code>SELECT COUNT(*) FROM (sql) count_source</code>, without the trailing
+ * ORDER BY and row locking clause of the select. The parameters are those of the select.
+ * <p>
+ * A select whose foreach is split in chunks is counted per chunk, one row each; the total is their sum.
+ * <p>
+ * The derived SQL is cached per select SQL text, so static statements derive it once.
+ *
+ * @see org.apache.ibatis.session.Configuration#getCountStatement(org.apache.ibatis.mapping.MappedStatement)
+ */
+public class CountSqlSource implements SqlSource {
+
+  // dynamic SQL may produce many texts, keep the cache bounded
+  private static final int MAX_CACHED_SQL = 256;
+
+  private final SqlSource selectSqlSource;
+  private final BoundedMap<String, String> countSqlCache = new BoundedMap<String, String>(MAX_CACHED_SQL);
+
+  public CountSqlSource(SqlSource selectSqlSource) {
+    this.selectSqlSource = selectSqlSource;
+  }
+
+  @Override
+  public BoundSql getBoundSql(Object parameterObject) {
+    final BoundSql boundSql = selectSqlSource.getBoundSql(parameterObject);
+    final BoundSql countBoundSql = boundSql.withSql(getCountSql(boundSql.getSql()));
+    final List<BoundSql> chunks = boundSql.getChunks();
+    for (int i = 1; i < chunks.size(); i++) {
+      final BoundSql chunk = chunks.get(i);
+      countBoundSql.addChunk(chunk.withSql(getCountSql(chunk.getSql())));
+    }
+    return countBoundSql;
+  }
+
+  private String getCountSql(String sql) {
+    String countSql = countSqlCache.get(sql);
+    if (countSql == null) {
+      countSql = "SELECT COUNT(*) FROM (" + stripOrderBy(stripLockingClause(SqlClauses.stripTail(sql))) + ") count_source";
+      countSqlCache.put(sql, countSql);
+    }
+    return countSql;
+  }
+
+  // counting locks nothing, and most databases reject a locking clause in a derived table
+  private static String stripLockingClause(String sql) {
+    final int lockingClause = SqlClauses.lockingClauseStart(sql);
+    return lockingClause < 0 ? sql : sql.substring(0, lockingClause);
+  }
+
+  /**
+   * Removes the ORDER BY clause that ends the statement; one inside a sub query or followed by other clauses
+   * (e.g. a LIMIT that makes it meaningful) is kept, as is one with parameters.
+   */
+  static String stripOrderBy(String sql) {
+    final int start = SqlClauses.trailingOrderByStart(sql);
+    if (start < 0 || sql.indexOf('?', start) > -1) {
+      return sql;
+    }
+    return sql.substring(0, start).trim();
+  }
+
+}
@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+/**
+ * Knows how a database limits the rows returned by a query.
+ * <p>
+ * Offset and limit are written into the SQL as literals so the parameter mappings of the original statement are left
+ * untouched. Trailing semicolons and line comments of the statement are removed first, see {@link SqlClauses}.
+ *
+ * @see DialectRegistry
+ */
+public interface Dialect {
+
+  /**
+   * @param sql a select statement
+   * @param offset rows to skip, {@link org.apache.ibatis.session.RowBounds#NO_ROW_OFFSET} for none
+   * @param limit maximum rows to return, {@link org.apache.ibatis.session.RowBounds#NO_ROW_LIMIT} for no limit
+   * @return the statement returning only the requested rows, or null when the database cannot limit this statement
+   *         (the rows are then skipped and limited while reading the results)
+   */
+  String getLimitSql(String sql, int offset, int limit);
+
+}
@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Dialects by database id. Ids are matched ignoring case, so both the aliases commonly given to a
+ * {@link org.apache.ibatis.mapping.VendorDatabaseIdProvider} and the raw product names it returns are recognized.
+ * Oracle has no default dialect, as its row limiting clause depends on the release (see {@link OffsetFetchDialect}).
+ */
+public class DialectRegistry {
+
+  private final Map<String, Dialect> dialects = new HashMap<String, Dialect>();
+
+  public DialectRegistry() {
+    final Dialect limitOffset = new LimitOffsetDialect();
+    register("mysql", limitOffset);
+    register("mariadb", limitOffset);
+    register("postgresql", limitOffset);
+    register("postgres", limitOffset);
+    register("h2", limitOffset);
+    register("hsqldb", limitOffset);
+    register("hsql database engine", limitOffset);
+    register("sqlite", limitOffset);
+
+    final Dialect offsetFetch = new OffsetFetchDialect();
+    register("sqlserver", offsetFetch);
+    register("microsoft sql server", offsetFetch);
+    register("db2", offsetFetch);
+    register("derby", offsetFetch);
+    register("apache derby", offsetFetch);
+  }
+
+  public void register(String databaseId, Dialect dialect) {
+    dialects.put(databaseId.toLowerCase(Locale.ENGLISH), dialect);
+  }
+
+  /**
+   * @return the dialect of the database, or null when the database id is unknown
+   */
+  public Dialect getDialect(String databaseId) {
+    if (databaseId == null) {
+      return null;
+    }
+    return dialects.get(databaseId.toLowerCase(Locale.ENGLISH));
+  }
+
+}
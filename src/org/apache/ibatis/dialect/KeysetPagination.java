@@ -0,0 +1,172 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.result.ResultProperties;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Seek;
+
+/**
+ * Rewrites selects for keyset pagination and extracts the continuation of a page.
+ * <p>
+ * The original select is wrapped as <code>SELECT * FROM (sql) seek_page WHERE c1 &gt; ? OR (c1 = ? AND c2 &gt; ?)
+ * ORDER BY c1, c2</code> and limited by the configuration's {@link Dialect} when there is one (otherwise the rows are
+ * limited in memory). The sort key values are bound as additional parameters, the original parameter mappings are
+ * kept in front of them.
+ */
+public final class KeysetPagination {
+
+  private static final String PARAMETER_PREFIX = "_seek";
+  private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+
+  private KeysetPagination() {
+    // Prevent Instantiation of Static Class
+  }
+
+  public static BoundSql rewrite(MappedStatement ms, BoundSql boundSql, Seek seek) {
+    final Configuration configuration = ms.getConfiguration();
+    final String[] columns = getColumns(ms, seek);
+    final String comparison = seek.isDescending() ? " < " : " > ";
+    final StringBuilder sql = new StringBuilder("SELECT * FROM (").append(SqlClauses.stripTail(boundSql.getSql())).append(") seek_page");
+    final List<ParameterMapping> parameterMappings = new ArrayList<ParameterMapping>(boundSql.getParameterMappings());
+    final Object[] lastValues = seek.getLastValues();
+    if (lastValues != null) {
+      if (lastValues.length != columns.length) {
+        throw new ExecutorException("Keyset pagination of '" + ms.getId() + "' sorts on " + columns.length
+            + " columns but the last row has " + lastValues.length + " values.");
+      }
+      sql.append(" WHERE ");
+      for (int i = 0; i < columns.length; i++) {
+        sql.append(i == 0 ? "(" : " OR (");
+        for (int j = 0; j < i; j++) {
+          sql.append(columns[j]).append(" = ? AND ");
+          parameterMappings.add(bindValue(configuration, boundSql, parameterMappings.size(), lastValues[j], ms));
+        }
+        sql.append(columns[i]).append(comparison).append("?)");
+        parameterMappings.add(bindValue(configuration, boundSql, parameterMappings.size(), lastValues[i], ms));
+      }
+    }
+    sql.append(" ORDER BY ");
+    for (int i = 0; i < columns.length; i++) {
+      sql.append(i == 0 ? "" : ", ").append(columns[i]).append(seek.isDescending() ? " DESC" : "");
+    }
+    String pageSql = sql.toString();
+    if (isLimitedBySql(ms)) {
+      // the page query ends with its ORDER BY, every dialect can limit it
+      pageSql = configuration.getDialect().getLimitSql(pageSql, Seek.NO_ROW_OFFSET, seek.getSize());
+    }
+    return boundSql.withSql(pageSql, parameterMappings);
+  }
+
+  /**
+   * Rows are limited by the SQL when a dialect is known and each row maps to one result object.
+   */
+  public static boolean isLimitedBySql(MappedStatement ms) {
+    return ms.getConfiguration().getDialect() != null && !ms.hasNestedResultMaps();
+  }
+
+  /**
+   * @return the bounds of the page following the given rows, null when they are the last ones
+   */
+  public static Seek nextSeek(MappedStatement ms, Seek seek, List<?> rows) {
+    if (rows.size() < seek.getSize()) {
+      return null;
+    }
+    final Object lastRow = rows.get(rows.size() - 1);
+    final String[] properties = getProperties(ms, getColumns(ms, seek));
+    final Object[] lastValues = new Object[properties.length];
+    for (int i = 0; i < properties.length; i++) {
+      lastValues[i] = ResultProperties.valueOf(ms.getConfiguration(), lastRow, properties[i]);
+    }
+    return seek.after(lastValues);
+  }
+
+  private static ParameterMapping bindValue(Configuration configuration, BoundSql boundSql, int index, Object value, MappedStatement ms) {
+    if (value == null) {
+      throw new ExecutorException("Keyset pagination of '" + ms.getId() + "' cannot seek after a null sort key value.");
+    }
+    final String property = PARAMETER_PREFIX + index;
+    boundSql.setAdditionalParameter(property, value);
+    return new ParameterMapping.Builder(configuration, property, value.getClass()).build();
+  }
+
+  private static String[] getColumns(MappedStatement ms, Seek seek) {
+    final String[] columns = seek.getColumns();
+    if (columns != null) {
+      for (String column : columns) {
+        checkColumn(ms, column);
+      }
+      return columns;
+    }
+    final List<String> idColumns = new ArrayList<String>();
+    for (ResultMapping idMapping : getResultMap(ms).getIdResultMappings()) {
+      if (idMapping.getColumn() != null && idMapping.getNestedResultMapId() == null && idMapping.getNestedQueryId() == null) {
+        idColumns.add(idMapping.getColumn());
+      }
+    }
+    if (idColumns.isEmpty()) {
+      throw new ExecutorException("Keyset pagination of '" + ms.getId()
+          + "' needs sort columns: declare id mappings in its result map or pass the columns to Seek.first().");
+    }
+    return idColumns.toArray(new String[idColumns.size()]);
+  }
+
+  /**
+   * Sort columns are written into the SQL: only plain names of columns the result map reads are accepted.
+   */
+  private static void checkColumn(MappedStatement ms, String column) {
+    if (column == null || !COLUMN_NAME.matcher(column).matches()) {
+      throw new ExecutorException("Keyset pagination of '" + ms.getId() + "' cannot sort on '" + column
+          + "', sort columns must be plain column names.");
+    }
+    if (ResultProperties.findProperty(ms.getConfiguration(), getResultMap(ms), column) == null) {
+      throw new ExecutorException("Keyset pagination of '" + ms.getId() + "' cannot sort on '" + column
+          + "', it is not a column of " + getResultMap(ms).getType().getName() + ".");
+    }
+  }
+
+  private static String[] getProperties(MappedStatement ms, String[] columns) {
+    final Configuration configuration = ms.getConfiguration();
+    final ResultMap resultMap = getResultMap(ms);
+    final String[] properties = new String[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      properties[i] = ResultProperties.findProperty(configuration, resultMap, columns[i]);
+      if (properties[i] == null) {
+        throw new ExecutorException("Keyset pagination of '" + ms.getId() + "' cannot find the property of sort column '"
+            + columns[i] + "' in " + resultMap.getType().getName() + ".");
+      }
+    }
+    return properties;
+  }
+
+  private static ResultMap getResultMap(MappedStatement ms) {
+    if (ms.getResultMaps().isEmpty()) {
+      throw new ExecutorException("Keyset pagination of '" + ms.getId() + "' needs a result map or result type.");
+    }
+    return ms.getResultMaps().get(0);
+  }
+
+}
@@ -0,0 +1,43 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * <code>LIMIT n OFFSET m</code>: MySQL, MariaDB, PostgreSQL, H2, HSQLDB and SQLite.
+ * The clause is written before a row locking clause ending the select. Selects already ending with a row limit
+ * are not limited again.
+ */
+public class LimitOffsetDialect implements Dialect {
+
+  @Override
+  public String getLimitSql(String sql, int offset, int limit) {
+    final String select = SqlClauses.stripTail(sql);
+    final int lockingClause = SqlClauses.lockingClauseStart(select);
+    final int end = lockingClause < 0 ? select.length() : lockingClause;
+    if (SqlClauses.rowLimitStart(select.substring(0, end)) > -1) {
+      return null;
+    }
+    // a limit is mandatory before an offset on MySQL
+    final StringBuilder limitSql = new StringBuilder(select.length() + 40).append(select, 0, end).append(" LIMIT ").append(limit);
+    if (offset != RowBounds.NO_ROW_OFFSET) {
+      limitSql.append(" OFFSET ").append(offset);
+    }
+    return limitSql.append(select, end, select.length()).toString();
+  }
+
+}
@@ -0,0 +1,48 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * SQL:2008 <code>OFFSET m ROWS FETCH NEXT n ROWS ONLY</code>: Oracle 12c, SQL Server 2012, DB2 and Derby.
+ * SQL Server accepts it only after an ORDER BY clause, so only selects ending with one are limited; selects ending
+ * with a row locking clause are not limited either.
+ * <p>
+ * Oracle is not registered with this dialect by default, as releases before 12c do not know the clause. Register it
+ * in the {@link DialectRegistry} or set it as the dialect of the configuration on Oracle 12c and later.
+ */
+public class OffsetFetchDialect implements Dialect {
+
+  @Override
+  public String getLimitSql(String sql, int offset, int limit) {
+    final String select = SqlClauses.stripTail(sql);
+    if (SqlClauses.trailingOrderByStart(select) < 0) {
+      // SQL Server rejects OFFSET without an ORDER BY, and a select already limited must not be limited twice
+      return null;
+    }
+    if (SqlClauses.lockingClauseStart(select) > -1) {
+      // Oracle rejects FOR UPDATE together with a row limiting clause
+      return null;
+    }
+    final StringBuilder limitSql = new StringBuilder(select.length() + 50).append(select).append(" OFFSET ").append(offset).append(" ROWS");
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      limitSql.append(" FETCH NEXT ").append(limit).append(" ROWS ONLY");
+    }
+    return limitSql.toString();
+  }
+
+}
@@ -0,0 +1,166 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the clauses that end a select, so that it can be wrapped, extended or merged in order.
+ */
+public final class SqlClauses {
+
+  private static final Pattern LOCKING_CLAUSE = Pattern.compile(
+      "\\s(FOR\\s+(UPDATE|SHARE|NO\\s+KEY\\s+UPDATE|KEY\\s+SHARE)\\b[^()']*|LOCK\\s+IN\\s+SHARE\\s+MODE)$",
+      Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern ROW_LIMIT = Pattern.compile("\\s(LIMIT|OFFSET|FETCH)\\s[^()']*$", Pattern.CASE_INSENSITIVE);
+
+  private static final Pattern ORDER_BY = Pattern.compile("\\sORDER\\s+BY\\s", Pattern.CASE_INSENSITIVE);
+  private static final Pattern AFTER_ORDER_BY = Pattern.compile("\\s(LIMIT|OFFSET|FETCH|ROWS|FOR|LOCK)\\b", Pattern.CASE_INSENSITIVE);
+
+  private SqlClauses() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Removes what cannot be followed by another clause or a closing parenthesis: trailing semicolons and a line
+   * comment on the last line.
+   */
+  public static String stripTail(String sql) {
+    int end = sql.length();
+    boolean stripped = true;
+    while (stripped) {
+      stripped = false;
+      while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+        end--;
+      }
+      final int comment = lineCommentStart(sql, end);
+      if (comment > -1) {
+        end = comment;
+        stripped = true;
+      }
+    }
+    return end == sql.length() ? sql : sql.substring(0, end);
+  }
+
+  /**
+   * @return the index of the row locking clause ending the select (FOR UPDATE, FOR SHARE, LOCK IN SHARE MODE...),
+   *         -1 when there is none
+   */
+  public static int lockingClauseStart(String sql) {
+    final Matcher matcher = LOCKING_CLAUSE.matcher(sql);
+    return matcher.find() ? matcher.start() : -1;
+  }
+
+  /**
+   * @return the index of the row limit ending the select (LIMIT, OFFSET, FETCH...), -1 when there is none
+   */
+  public static int rowLimitStart(String sql) {
+    final Matcher matcher = ROW_LIMIT.matcher(sql);
+    return matcher.find() ? matcher.start() : -1;
+  }
+
+  /**
+   * @return the sort items of the ORDER BY clause of the outer select, with their whitespace normalized and without
+   *         the clauses following it (LIMIT, FETCH, FOR UPDATE...), or null when there is none
+   */
+  public static String getOrderByItems(String sql) {
+    final int[] orderBy = findOrderBy(sql);
+    if (orderBy == null) {
+      return null;
+    }
+    return sql.substring(orderBy[1], orderBy[2]).replaceAll("\\s+", " ").trim();
+  }
+
+  /**
+   * @return whether the outer select is sorted, including by an ORDER BY whose items
+   *         {@link #getOrderByItems(String)} cannot return (e.g. function calls)
+   */
+  public static boolean hasOrderBy(String sql) {
+    final Matcher matcher = ORDER_BY.matcher(sql);
+    int itemsStart = -1;
+    while (matcher.find()) {
+      itemsStart = matcher.end();
+    }
+    if (itemsStart < 0) {
+      return false;
+    }
+    // the last ORDER BY belongs to a sub query when a parenthesis it did not open is closed after it
+    int depth = 0;
+    char quote = 0;
+    for (int i = itemsStart; i < sql.length(); i++) {
+      final char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the index of the ORDER BY clause of the outer select when it is the last clause, -1 otherwise
+   */
+  public static int trailingOrderByStart(String sql) {
+    final int[] orderBy = findOrderBy(sql);
+    return orderBy != null && sql.substring(orderBy[2]).trim().length() == 0 ? orderBy[0] : -1;
+  }
+
+  // start of the clause, start of its items and end of its items; an ORDER BY followed by ')' belongs to a sub query
+  private static int[] findOrderBy(String sql) {
+    final Matcher matcher = ORDER_BY.matcher(sql);
+    int start = -1;
+    int itemsStart = -1;
+    while (matcher.find()) {
+      start = matcher.start();
+      itemsStart = matcher.end();
+    }
+    if (start < 0 || sql.indexOf(')', itemsStart) > -1) {
+      return null;
+    }
+    final Matcher following = AFTER_ORDER_BY.matcher(sql);
+    final int end = following.find(itemsStart) ? following.start() : sql.length();
+    return new int[] { start, itemsStart, end };
+  }
+
+  // start of a -- comment on the last line, outside of string literals and quoted identifiers
+  private static int lineCommentStart(String sql, int end) {
+    final int lineStart = Math.max(sql.lastIndexOf('\n', end - 1), sql.lastIndexOf('\r', end - 1)) + 1;
+    char quote = 0;
+    for (int i = lineStart; i < end; i++) {
+      final char c = sql.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '-' && i + 1 < end && sql.charAt(i + 1) == '-') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+}
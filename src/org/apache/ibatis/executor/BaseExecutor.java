@@ -20,12 +20,16 @@ import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOL
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.result.ColumnarResultHandler;
+import org.apache.ibatis.executor.sharding.ShardResultMerger;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -38,10 +42,13 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.routing.RoutingTransaction;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
@@ -61,6 +68,9 @@ public abstract class BaseExecutor implements Executor {
 
   protected int queryStack = 0;
   private boolean closed;
+  private boolean dirty;
+  // merges the results of statements run once per chunk of a foreach collection
+  private ShardResultMerger chunkMerger;
 
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
@@ -114,9 +124,43 @@ public abstract class BaseExecutor implements Executor {
       throw new ExecutorException("Executor was closed.");
     }
     clearLocalCache();
+    dirty = true;
+    routeTransaction(ms);
     return doUpdate(ms, parameter);
   }
 
+  @Override
+  public long bulkUpdate(MappedStatement ms, Iterator<?> parameters, int batchSize) throws SQLException {
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    clearLocalCache();
+    dirty = true;
+    // shares this executor's transaction, so it must not be closed
+    final Executor batchExecutor = configuration.newExecutor(transaction, ExecutorType.BATCH);
+    try {
+      long rows = 0;
+      int batched = 0;
+      while (parameters.hasNext()) {
+        batchExecutor.update(ms, parameters.next());
+        if (++batched == batchSize) {
+          rows += BatchResult.countRows(batchExecutor.flushStatements());
+          batched = 0;
+        }
+      }
+      rows += BatchResult.countRows(batchExecutor.flushStatements());
+      // clears the caches flushed by the statement without committing the transaction
+      batchExecutor.commit(false);
+      return rows;
+    } catch (SQLException e) {
+      batchExecutor.rollback(false);
+      throw e;
+    } catch (RuntimeException e) {
+      batchExecutor.rollback(false);
+      throw e;
+    }
+  }
+
   @Override
   public List<BatchResult> flushStatements() throws SQLException {
     return flushStatements(false);
@@ -146,6 +190,7 @@ public abstract class BaseExecutor implements Executor {
     if (queryStack == 0 && ms.isFlushCacheRequired()) {
       clearLocalCache();
     }
+    routeTransaction(ms);
     List<E> list;
     try {
       queryStack++;
@@ -175,6 +220,10 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
+    if (boundSql.isChunked()) {
+      throw new ExecutorException("Cursor queries cannot use a foreach split in chunks, but '" + ms.getId() + "' does.");
+    }
+    routeTransaction(ms);
     return doQueryCursor(ms, parameter, rowBounds, boundSql);
   }
 
@@ -200,6 +249,24 @@ public abstract class BaseExecutor implements Executor {
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
+    if (rowBounds instanceof Seek) {
+      // keyset pages share offset and limit
+      final Seek seek = (Seek) rowBounds;
+      cacheKey.update(seek.getColumns());
+      cacheKey.update(seek.getLastValues());
+      cacheKey.update(seek.isDescending());
+    }
+    for (BoundSql chunk : boundSql.getChunks()) {
+      updateCacheKey(cacheKey, ms, parameterObject, chunk);
+    }
+    if (configuration.getEnvironment() != null) {
+      // issue #176
+      cacheKey.update(configuration.getEnvironment().getId());
+    }
+    return cacheKey;
+  }
+
+  private void updateCacheKey(CacheKey cacheKey, MappedStatement ms, Object parameterObject, BoundSql boundSql) {
     cacheKey.update(boundSql.getSql());
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
@@ -221,11 +288,6 @@ public abstract class BaseExecutor implements Executor {
         cacheKey.update(value);
       }
     }
-    if (configuration.getEnvironment() != null) {
-      // issue #176
-      cacheKey.update(configuration.getEnvironment().getId());
-    }
-    return cacheKey;
   }
 
   @Override
@@ -243,6 +305,7 @@ public abstract class BaseExecutor implements Executor {
     if (required) {
       transaction.commit();
     }
+    dirty = false;
   }
 
   @Override
@@ -255,6 +318,7 @@ public abstract class BaseExecutor implements Executor {
         if (required) {
           transaction.rollback();
         }
+        dirty = false;
       }
     }
   }
@@ -317,11 +381,20 @@ public abstract class BaseExecutor implements Executor {
     }
   }
 
-  private <E> List<E> queryFromDatabase(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
+  private <E> List<E> queryFromDatabase(final MappedStatement ms, final Object parameter, final RowBounds rowBounds, final ResultHandler resultHandler, CacheKey key, final BoundSql boundSql) throws SQLException {
     List<E> list;
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
     try {
-      list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+      if (isCoalescable(ms, resultHandler)) {
+        list = configuration.getQueryCoalescer().query(key, new QueryCoalescer.Query<E>() {
+          @Override
+          public List<E> execute() throws SQLException {
+            return doQueryAll(ms, parameter, rowBounds, resultHandler, boundSql);
+          }
+        });
+      } else {
+        list = doQueryAll(ms, parameter, rowBounds, resultHandler, boundSql);
+      }
     } finally {
       localCache.removeObject(key);
     }
@@ -332,6 +405,50 @@ public abstract class BaseExecutor implements Executor {
     return list;
   }
 
+  private <E> List<E> doQueryAll(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler<?> resultHandler, BoundSql boundSql) throws SQLException {
+    if (boundSql.isChunked()) {
+      return doQueryChunks(ms, parameter, rowBounds, resultHandler, boundSql);
+    }
+    return doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+  }
+
+  /**
+   * Runs the statement once per chunk of a split foreach collection and merges the results like those of shards.
+   */
+  private <E> List<E> doQueryChunks(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler<?> resultHandler, BoundSql boundSql) throws SQLException {
+    if (rowBounds instanceof Seek) {
+      throw new ExecutorException("Keyset pagination of '" + ms.getId() + "' cannot be used with a foreach split in chunks.");
+    }
+    if (resultHandler instanceof ColumnarResultHandler) {
+      throw new ExecutorException("A ColumnarResultHandler cannot read the merged chunks of '" + ms.getId() + "', whose foreach is split in chunks.");
+    }
+    if (chunkMerger == null) {
+      chunkMerger = new ShardResultMerger(configuration);
+    }
+    final RowBounds chunkRowBounds = chunkMerger.shardRowBounds(rowBounds);
+    final List<List<E>> results = new ArrayList<List<E>>();
+    for (BoundSql chunk : boundSql.getChunks()) {
+      results.add(this.<E> doQuery(ms, parameter, chunkRowBounds, NO_RESULT_HANDLER, chunk));
+    }
+    final List<E> list = chunkMerger.merge(ms, boundSql.getSql(), results, rowBounds);
+    if (resultHandler == null) {
+      return list;
+    }
+    chunkMerger.handleResults(list, resultHandler);
+    return new ArrayList<E>();
+  }
+
+  private void routeTransaction(MappedStatement ms) {
+    if (transaction instanceof RoutingTransaction) {
+      ((RoutingTransaction) transaction).route(ms.getSqlCommandType());
+    }
+  }
+
+  // a session with uncommitted changes must read its own writes
+  private boolean isCoalescable(MappedStatement ms, ResultHandler<?> resultHandler) {
+    return ms.isCoalesce() && !dirty && resultHandler == null && ms.getStatementType() != StatementType.CALLABLE;
+  }
+
   protected Connection getConnection(Log statementLog) throws SQLException {
     Connection connection = transaction.getConnection();
     if (statementLog.isDebugEnabled()) {
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.executor;
 
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -72,4 +73,22 @@ public class BatchResult {
     this.parameterObjects.add(parameterObject);
   }
 
+  /**
+   * @return the rows updated by the batches, counting one row for each statement the driver reports as
+   *         {@link Statement#SUCCESS_NO_INFO}
+   */
+  public static long countRows(List<BatchResult> batchResults) {
+    long rows = 0;
+    for (BatchResult batchResult : batchResults) {
+      for (int updateCount : batchResult.getUpdateCounts()) {
+        if (updateCount > 0) {
+          rows += updateCount;
+        } else if (updateCount == Statement.SUCCESS_NO_INFO) {
+          rows++;
+        }
+      }
+    }
+    return rows;
+  }
+
 }
@@ -16,6 +16,7 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.ibatis.cache.CacheKey;
@@ -36,6 +37,13 @@ public interface Executor {
 
   int update(MappedStatement ms, Object parameter) throws SQLException;
 
+  /**
+   * Runs the statement once per parameter object in JDBC batches of <code>batchSize</code> rows, within the
+   * transaction of this executor but without committing it.
+   * @return the number of rows updated
+   */
+  long bulkUpdate(MappedStatement ms, Iterator<?> parameters, int batchSize) throws SQLException;
+
   <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey cacheKey, BoundSql boundSql) throws SQLException;
 
   <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException;
@@ -0,0 +1,122 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.decorators.SerializedCache.CustomObjectInputStream;
+
+/**
+ * Lets concurrent executions of the same read query share one database round trip.
+ * <p>
+ * The first session that runs a query for a given {@link CacheKey} executes it; sessions asking for the same key
+ * while it is running wait for it and get their own copy of the result (made by serialization, so each session
+ * can modify its objects freely). When the result cannot be copied or the execution fails the waiting sessions
+ * run the query themselves.
+ */
+public class QueryCoalescer {
+
+  private final ConcurrentMap<CacheKey, Flight> flights = new ConcurrentHashMap<CacheKey, Flight>();
+
+  public interface Query<E> {
+    List<E> execute() throws SQLException;
+  }
+
+  public <E> List<E> query(CacheKey key, Query<E> query) throws SQLException {
+    final Flight flight = new Flight();
+    final Flight running = flights.putIfAbsent(key, flight);
+    if (running == null) {
+      List<E> list = null;
+      try {
+        list = query.execute();
+      } finally {
+        flights.remove(key, flight);
+        flight.complete(list);
+      }
+      return list;
+    }
+    final List<E> shared = running.await();
+    return shared != null ? shared : query.execute();
+  }
+
+  private static class Flight {
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicInteger waiters = new AtomicInteger();
+    private volatile byte[] result;
+
+    void complete(List<?> list) {
+      try {
+        if (list != null && waiters.get() > 0) {
+          result = serialize(list);
+        }
+      } finally {
+        done.countDown();
+      }
+    }
+
+    <E> List<E> await() {
+      waiters.incrementAndGet();
+      try {
+        done.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+      return result == null ? null : this.<E> deserialize(result);
+    }
+
+    private static byte[] serialize(List<?> list) {
+      try {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(list instanceof Serializable ? list : new ArrayList<Object>(list));
+        oos.flush();
+        oos.close();
+        return bos.toByteArray();
+      } catch (IOException e) {
+        // results are not serializable, waiting sessions will run the query on their own
+        return null;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E> List<E> deserialize(byte[] value) {
+      try {
+        ObjectInputStream ois = new CustomObjectInputStream(new ByteArrayInputStream(value));
+        List<E> list = (List<E>) ois.readObject();
+        ois.close();
+        return list;
+      } catch (Exception e) {
+        throw new ExecutorException("Error copying coalesced query result.  Cause: " + e, e);
+      }
+    }
+  }
+
+}
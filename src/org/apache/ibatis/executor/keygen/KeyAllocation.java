@@ -0,0 +1,33 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.keygen;
+
+/**
+ * How a value read from a sequence reserves a block of keys for a {@link SequenceKeyGenerator}.
+ */
+public enum KeyAllocation {
+
+  /**
+   * The sequence is incremented by the allocation size and its value is the first key of the block.
+   */
+  POOLED,
+
+  /**
+   * The sequence is incremented by one and its value (hi) reserves keys hi * size to hi * size + size - 1.
+   */
+  HILO
+
+}
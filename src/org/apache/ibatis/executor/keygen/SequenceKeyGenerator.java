@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.keygen;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Assigns keys from blocks reserved with one execution of a select key statement, instead of running it before
+ * every insert. The statement returns the next value of a database sequence, which reserves
+ * <code>allocationSize</code> keys as described by the {@link KeyAllocation}.
+ * <p>
+ * Keys are handed out from memory, thread safe. Keys of a block that are not used before the application stops are
+ * lost, leaving gaps. Statements sharing a sequence take separate blocks.
+ */
+public class SequenceKeyGenerator implements KeyGenerator {
+
+  private final MappedStatement keyStatement;
+  private final int allocationSize;
+  private final KeyAllocation allocation;
+
+  private long nextKey;
+  private long blockEnd;
+
+  public SequenceKeyGenerator(MappedStatement keyStatement, int allocationSize, KeyAllocation allocation) {
+    if (allocationSize <= 0) {
+      throw new IllegalArgumentException("Allocation size must be positive but was " + allocationSize);
+    }
+    this.keyStatement = keyStatement;
+    this.allocationSize = allocationSize;
+    this.allocation = allocation;
+  }
+
+  @Override
+  public void processBefore(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+    if (parameter == null || keyStatement == null || keyStatement.getKeyProperties() == null) {
+      return;
+    }
+    final String[] keyProperties = keyStatement.getKeyProperties();
+    if (keyProperties.length != 1) {
+      throw new ExecutorException("A sequence key generator sets exactly one key property, but " + ms.getId() + " has " + keyProperties.length + ".");
+    }
+    try {
+      final MetaObject metaParam = ms.getConfiguration().newMetaObject(parameter);
+      setValue(metaParam, keyProperties[0], allocate(executor, parameter));
+    } catch (ExecutorException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ExecutorException("Error allocating key or setting result to parameter object. Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public void processAfter(Executor executor, MappedStatement ms, Statement stmt, Object parameter) {
+    // keys are assigned before the insert
+  }
+
+  private synchronized long allocate(Executor executor, Object parameter) throws SQLException {
+    if (nextKey == blockEnd) {
+      final long value = nextSequenceValue(executor, parameter);
+      if (allocation == KeyAllocation.HILO ? value > Long.MAX_VALUE / allocationSize - 1 : value > Long.MAX_VALUE - allocationSize) {
+        throw new ExecutorException("Sequence value " + value + " of " + keyStatement.getId() + " leaves no block of "
+            + allocationSize + " keys in the range of a long.");
+      }
+      nextKey = allocation == KeyAllocation.HILO ? value * allocationSize : value;
+      blockEnd = nextKey + allocationSize;
+    }
+    return nextKey++;
+  }
+
+  private long nextSequenceValue(Executor executor, Object parameter) throws SQLException {
+    final Configuration configuration = keyStatement.getConfiguration();
+    // Do not close keyExecutor.
+    // The transaction will be closed by parent executor.
+    Executor keyExecutor = configuration.newExecutor(executor.getTransaction(), ExecutorType.SIMPLE);
+    List<Object> values = keyExecutor.query(keyStatement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+    if (values.size() != 1 || !(values.get(0) instanceof Number)) {
+      throw new ExecutorException("SelectKey of a sequence key generator must return one number, but returned " + values + ".");
+    }
+    return ((Number) values.get(0)).longValue();
+  }
+
+  private void setValue(MetaObject metaParam, String property, long key) {
+    if (!metaParam.hasSetter(property)) {
+      throw new ExecutorException("No setter found for the keyProperty '" + property + "' in " + metaParam.getOriginalObject().getClass().getName() + ".");
+    }
+    final Class<?> type = metaParam.getSetterType(property);
+    final Object value;
+    if (Integer.class.equals(type) || int.class.equals(type)) {
+      if (key > Integer.MAX_VALUE || key < Integer.MIN_VALUE) {
+        throw new ExecutorException("Key " + key + " of " + keyStatement.getId() + " does not fit the int property '" + property + "'.");
+      }
+      value = (int) key;
+    } else if (BigInteger.class.equals(type)) {
+      value = BigInteger.valueOf(key);
+    } else if (BigDecimal.class.equals(type)) {
+      value = BigDecimal.valueOf(key);
+    } else if (String.class.equals(type)) {
+      value = String.valueOf(key);
+    } else {
+      value = key;
+    }
+    metaParam.setValue(property, value);
+  }
+
+}
@@ -87,6 +87,10 @@ public class ResultLoader {
   }
 
   private Executor newExecutor() {
+    return newExecutor(configuration);
+  }
+
+  static Executor newExecutor(Configuration configuration) {
     final Environment environment = configuration.getEnvironment();
     if (environment == null) {
       throw new ExecutorException("ResultLoader could not load lazily.  Environment was not configured.");
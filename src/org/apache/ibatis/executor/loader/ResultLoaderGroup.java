@@ -0,0 +1,201 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Lazy loaders of the same property of sibling objects read from one result set.
+ * <p>
+ * When one of them is triggered, the property is loaded for it and for the pending siblings
+ * (up to {@link Configuration#getLazyLoadBatchSize()}) with a single execution of the batch statement.
+ * The batch statement receives the nested query parameters as <code>list</code> / <code>collection</code>
+ * and every returned row is assigned to the owner whose parameter equals the row's batch key property.
+ */
+public class ResultLoaderGroup {
+
+  private final Configuration configuration;
+  private final Executor executor;
+  private final MappedStatement batchStatement;
+  private final String batchKey;
+  private final int batchSize;
+  private final long creatorThreadId;
+
+  private final List<ResultLoaderMap.LoadPair> pendingPairs = new ArrayList<ResultLoaderMap.LoadPair>();
+
+  public ResultLoaderGroup(Configuration configuration, Executor executor, MappedStatement batchStatement, String batchKey) {
+    this.configuration = configuration;
+    this.executor = executor;
+    this.batchStatement = batchStatement;
+    this.batchKey = batchKey;
+    this.batchSize = configuration.getLazyLoadBatchSize();
+    this.creatorThreadId = Thread.currentThread().getId();
+  }
+
+  synchronized void add(ResultLoaderMap.LoadPair pair) {
+    pendingPairs.add(pair);
+  }
+
+  /**
+   * Loads the property of the trigger and of the pending siblings of the next batch.
+   * <p>
+   * A pair is only marked loaded once its value is assigned, so readers of a sibling never see the property unset.
+   * A reader of a sibling taken over by a running batch waits for the rows of the batch and assigns them itself: the
+   * reader holds the loaders of the sibling, which the batch would need to assign them. The values are assigned
+   * without holding the monitor of the group for the same reason.
+   */
+  void load(ResultLoaderMap.LoadPair trigger) throws SQLException {
+    final List<ResultLoaderMap.LoadPair> batch;
+    final List<Object> batchRows;
+    synchronized (this) {
+      awaitBatch(trigger);
+      if (trigger.isLoaded()) {
+        return;
+      }
+      batchRows = trigger.getBatchRows();
+      if (batchRows != null) {
+        batch = null;
+      } else {
+        batch = nextBatch(trigger);
+        pendingPairs.removeAll(batch);
+        for (ResultLoaderMap.LoadPair pair : batch) {
+          pair.setClaimed(true);
+        }
+      }
+    }
+    if (batch == null) {
+      trigger.assign(batchRows);
+      return;
+    }
+    final Map<String, List<Object>> rowsByKey;
+    try {
+      final Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+      for (ResultLoaderMap.LoadPair pair : batch) {
+        final Object parameter = pair.getParameterObject();
+        parameters.put(keyOf(parameter), parameter);
+      }
+      rowsByKey = groupByKey(selectList(new ArrayList<Object>(parameters.values())));
+    } catch (SQLException e) {
+      release(batch);
+      throw e;
+    } catch (RuntimeException e) {
+      release(batch);
+      throw e;
+    }
+    synchronized (this) {
+      for (ResultLoaderMap.LoadPair pair : batch) {
+        final List<Object> rows = rowsByKey.get(keyOf(pair.getParameterObject()));
+        pair.setBatchRows(rows == null ? Collections.<Object> emptyList() : rows);
+      }
+      notifyAll();
+    }
+    for (ResultLoaderMap.LoadPair pair : batch) {
+      pair.assign(pair.getBatchRows());
+    }
+  }
+
+  // waits until the batch which took the pair over has loaded its rows or failed
+  private void awaitBatch(ResultLoaderMap.LoadPair pair) {
+    while (pair.isClaimed() && pair.getBatchRows() == null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ExecutorException("Interrupted while waiting for the batch loading property '" + pair.getProperty() + "'.", e);
+      }
+    }
+  }
+
+  // the batch failed, let its pairs be loaded again
+  private synchronized void release(List<ResultLoaderMap.LoadPair> batch) {
+    for (ResultLoaderMap.LoadPair pair : batch) {
+      pair.setClaimed(false);
+    }
+    pendingPairs.addAll(batch);
+    notifyAll();
+  }
+
+  private List<ResultLoaderMap.LoadPair> nextBatch(ResultLoaderMap.LoadPair trigger) {
+    final int size = pendingPairs.size();
+    final int start = Math.max(pendingPairs.indexOf(trigger), 0);
+    final List<ResultLoaderMap.LoadPair> batch = new ArrayList<ResultLoaderMap.LoadPair>();
+    batch.add(trigger);
+    for (int i = 1; i < size && (batchSize <= 0 || batch.size() < batchSize); i++) {
+      final ResultLoaderMap.LoadPair pair = pendingPairs.get((start + i) % size);
+      if (pair != trigger && !pair.isClaimed()) {
+        batch.add(pair);
+      }
+    }
+    return batch;
+  }
+
+  private Map<String, List<Object>> groupByKey(List<Object> rows) {
+    final Map<String, List<Object>> rowsByKey = new HashMap<String, List<Object>>();
+    for (Object row : rows) {
+      if (row == null) {
+        continue;
+      }
+      final String key = keyOf(configuration.newMetaObject(row).getValue(batchKey));
+      List<Object> keyRows = rowsByKey.get(key);
+      if (keyRows == null) {
+        keyRows = new ArrayList<Object>();
+        rowsByKey.put(key, keyRows);
+      }
+      keyRows.add(row);
+    }
+    return rowsByKey;
+  }
+
+  // numeric keys may come back with a different java type than the parent column (e.g. Integer vs Long)
+  private String keyOf(Object value) {
+    return String.valueOf(value);
+  }
+
+  private List<Object> selectList(List<Object> parameters) throws SQLException {
+    final ParamMap<Object> parameterObject = new ParamMap<Object>();
+    parameterObject.put("collection", parameters);
+    parameterObject.put("list", parameters);
+    Executor localExecutor = executor;
+    if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
+      localExecutor = ResultLoader.newExecutor(configuration);
+    }
+    try {
+      final BoundSql boundSql = batchStatement.getBoundSql(parameterObject);
+      final CacheKey key = localExecutor.createCacheKey(batchStatement, parameterObject, RowBounds.DEFAULT, boundSql);
+      return localExecutor.<Object> query(batchStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, key, boundSql);
+    } finally {
+      if (localExecutor != executor) {
+        localExecutor.close(false);
+      }
+    }
+  }
+
+}
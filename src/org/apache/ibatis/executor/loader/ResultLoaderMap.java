@@ -23,6 +23,7 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -48,42 +49,74 @@ import org.apache.ibatis.session.RowBounds;
 public class ResultLoaderMap {
 
   private final Map<String, LoadPair> loaderMap = new HashMap<String, LoadPair>();
+  private boolean hasGroupedLoaders;
 
   public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader) {
+    addLoader(property, metaResultObject, resultLoader, null);
+  }
+
+  public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader, ResultLoaderGroup group) {
     String upperFirst = getUppercaseFirstProperty(property);
     if (!upperFirst.equalsIgnoreCase(property) && loaderMap.containsKey(upperFirst)) {
       throw new ExecutorException("Nested lazy loaded result property '" + property +
               "' for query id '" + resultLoader.mappedStatement.getId() +
               " already exists in the result map. The leftmost property of all lazy loaded properties must be unique within a result map.");
     }
-    loaderMap.put(upperFirst, new LoadPair(property, metaResultObject, resultLoader));
+    LoadPair pair = new LoadPair(property, metaResultObject, resultLoader);
+    if (group != null) {
+      pair.group = group;
+      pair.owner = this;
+      group.add(pair);
+      hasGroupedLoaders = true;
+    }
+    loaderMap.put(upperFirst, pair);
   }
 
   public final Map<String, LoadPair> getProperties() {
+    removeLoadedByGroup();
     return new HashMap<String, LoadPair>(this.loaderMap);
   }
 
   public Set<String> getPropertyNames() {
+    removeLoadedByGroup();
     return loaderMap.keySet();
   }
 
   public int size() {
+    removeLoadedByGroup();
     return loaderMap.size();
   }
 
   public boolean hasLoader(String property) {
+    removeLoadedByGroup();
     return loaderMap.containsKey(property.toUpperCase(Locale.ENGLISH));
   }
 
   public boolean load(String property) throws SQLException {
     LoadPair pair = loaderMap.remove(property.toUpperCase(Locale.ENGLISH));
     if (pair != null) {
-      pair.load();
+      if (!pair.isLoaded()) {
+        pair.load();
+      }
       return true;
     }
     return false;
   }
 
+  /*
+   * A sibling may have loaded our properties through the group it shares with us.
+   */
+  private void removeLoadedByGroup() {
+    if (hasGroupedLoaders) {
+      Iterator<LoadPair> iterator = loaderMap.values().iterator();
+      while (iterator.hasNext()) {
+        if (iterator.next().isLoaded()) {
+          iterator.remove();
+        }
+      }
+    }
+  }
+
   public void loadAll() throws SQLException {
     final Set<String> methodNameSet = loaderMap.keySet();
     String[] methodNames = methodNameSet.toArray(new String[methodNameSet.size()]);
@@ -139,6 +172,26 @@ public class ResultLoaderMap {
      * Parameter of the sql statement.
      */
     private Serializable mappedParameter;
+    /**
+     * Group of sibling loaders this property is loaded with, if batch loading applies.
+     */
+    private transient ResultLoaderGroup group;
+    /**
+     * Loader map of the object owning the property, whose monitor its lazy loading proxy holds, if batch loading applies.
+     */
+    private transient ResultLoaderMap owner;
+    /**
+     * Set when a batch of the group has taken the property over, guarded by the group.
+     */
+    private transient boolean claimed;
+    /**
+     * Rows the batch which took the property over loaded for it, guarded by the group.
+     */
+    private transient List<Object> batchRows;
+    /**
+     * Set once the value of the property is assigned.
+     */
+    private transient volatile boolean loaded;
 
     private LoadPair(final String property, MetaObject metaResultObject, ResultLoader resultLoader) {
       this.property = property;
@@ -177,9 +230,60 @@ public class ResultLoaderMap {
         throw new IllegalArgumentException("resultLoader is null");
       }
 
+      if (this.group != null) {
+        this.group.load(this);
+        return;
+      }
+
       this.load(null);
     }
 
+    boolean isLoaded() {
+      return loaded;
+    }
+
+    String getProperty() {
+      return property;
+    }
+
+    Object getParameterObject() {
+      return resultLoader.parameterObject;
+    }
+
+    boolean isClaimed() {
+      return claimed;
+    }
+
+    void setClaimed(boolean claimed) {
+      this.claimed = claimed;
+    }
+
+    List<Object> getBatchRows() {
+      return batchRows;
+    }
+
+    void setBatchRows(List<Object> batchRows) {
+      this.batchRows = batchRows;
+    }
+
+    /*
+     * Assigns the rows loaded by a batch, unless a reader of the property already did. The pair leaves the loaders of
+     * its owner first, so that the setter of the lazy loading proxy does not load the property again.
+     */
+    void assign(List<Object> rows) {
+      synchronized (owner) {
+        if (loaded) {
+          return;
+        }
+        final String key = getUppercaseFirstProperty(property);
+        if (owner.loaderMap.get(key) == this) {
+          owner.loaderMap.remove(key);
+        }
+        this.metaResultObject.setValue(property, resultLoader.resultExtractor.extractObjectFromList(rows, resultLoader.targetType));
+        loaded = true;
+      }
+    }
+
     public void load(final Object userObject) throws SQLException {
       if (this.metaResultObject == null || this.resultLoader == null) {
         if (this.mappedParameter == null) {
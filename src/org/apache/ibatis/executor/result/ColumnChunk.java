@@ -0,0 +1,71 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consecutive rows of a result set, held as one {@link ColumnVector} per column.
+ */
+public class ColumnChunk {
+
+  private final long firstRow;
+  private final int rowCount;
+  private final List<ColumnVector> columns;
+
+  public ColumnChunk(long firstRow, int rowCount, List<ColumnVector> columns) {
+    this.firstRow = firstRow;
+    this.rowCount = rowCount;
+    this.columns = Collections.unmodifiableList(columns);
+  }
+
+  /**
+   * @return the index, in the results, of the first row of the chunk
+   */
+  public long getFirstRow() {
+    return firstRow;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public List<ColumnVector> getColumns() {
+    return columns;
+  }
+
+  public int getColumnCount() {
+    return columns.size();
+  }
+
+  public ColumnVector getColumn(int index) {
+    return columns.get(index);
+  }
+
+  /**
+   * @return the column with the given name, ignoring case, or null
+   */
+  public ColumnVector getColumn(String name) {
+    for (ColumnVector column : columns) {
+      if (column.getName().equalsIgnoreCase(name)) {
+        return column;
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,335 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * The values of one column in a {@link ColumnChunk}. Integer, long and floating point columns are kept in primitive
+ * arrays, strings are dictionary encoded and other columns hold the objects read by their type handler. Null values
+ * are recorded in a bitmap, the primitive value of a null row is 0.
+ */
+public abstract class ColumnVector {
+
+  private final String name;
+  private final long[] nulls;
+  protected int size;
+
+  protected ColumnVector(String name, int capacity) {
+    this.name = name;
+    this.nulls = new long[(capacity + 63) >>> 6];
+  }
+
+  /**
+   * Creates an empty vector for a column of the given JDBC type, the type handler reads the columns that are not
+   * kept as primitives or strings.
+   */
+  public static ColumnVector forColumn(String name, JdbcType jdbcType, TypeHandler<?> typeHandler, int capacity) {
+    if (jdbcType != null) {
+      switch (jdbcType) {
+        case BIT:
+        case BOOLEAN:
+        case TINYINT:
+        case SMALLINT:
+        case INTEGER:
+          return new IntVector(name, capacity);
+        case BIGINT:
+          return new LongVector(name, capacity);
+        case REAL:
+        case FLOAT:
+        case DOUBLE:
+          return new DoubleVector(name, capacity);
+        case CHAR:
+        case VARCHAR:
+        case NCHAR:
+        case NVARCHAR:
+        case LONGVARCHAR:
+        case LONGNVARCHAR:
+          return new StringVector(name, new Dictionary(), capacity);
+        default:
+          break;
+      }
+    }
+    return new ObjectVector(name, typeHandler, capacity);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isNull(int row) {
+    return (nulls[row >>> 6] & (1L << row)) != 0;
+  }
+
+  /**
+   * @return the value of the row, boxed
+   */
+  public abstract Object get(int row);
+
+  /**
+   * Reads the value of the current row of the result set and appends it.
+   */
+  public abstract void read(ResultSet rs, int columnIndex) throws SQLException;
+
+  /**
+   * @return an empty vector of the same kind, sharing the string dictionary
+   */
+  public abstract ColumnVector newChunk(int capacity);
+
+  protected void markNull(int row) {
+    nulls[row >>> 6] |= 1L << row;
+  }
+
+  public static class IntVector extends ColumnVector {
+
+    private final int[] values;
+
+    IntVector(String name, int capacity) {
+      super(name, capacity);
+      this.values = new int[capacity];
+    }
+
+    public int getInt(int row) {
+      return values[row];
+    }
+
+    /**
+     * @return the backing array, valid up to {@link #size()}
+     */
+    public int[] getValues() {
+      return values;
+    }
+
+    @Override
+    public Object get(int row) {
+      return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public void read(ResultSet rs, int columnIndex) throws SQLException {
+      values[size] = rs.getInt(columnIndex);
+      if (rs.wasNull()) {
+        markNull(size);
+      }
+      size++;
+    }
+
+    @Override
+    public ColumnVector newChunk(int capacity) {
+      return new IntVector(getName(), capacity);
+    }
+  }
+
+  public static class LongVector extends ColumnVector {
+
+    private final long[] values;
+
+    LongVector(String name, int capacity) {
+      super(name, capacity);
+      this.values = new long[capacity];
+    }
+
+    public long getLong(int row) {
+      return values[row];
+    }
+
+    /**
+     * @return the backing array, valid up to {@link #size()}
+     */
+    public long[] getValues() {
+      return values;
+    }
+
+    @Override
+    public Object get(int row) {
+      return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public void read(ResultSet rs, int columnIndex) throws SQLException {
+      values[size] = rs.getLong(columnIndex);
+      if (rs.wasNull()) {
+        markNull(size);
+      }
+      size++;
+    }
+
+    @Override
+    public ColumnVector newChunk(int capacity) {
+      return new LongVector(getName(), capacity);
+    }
+  }
+
+  public static class DoubleVector extends ColumnVector {
+
+    private final double[] values;
+
+    DoubleVector(String name, int capacity) {
+      super(name, capacity);
+      this.values = new double[capacity];
+    }
+
+    public double getDouble(int row) {
+      return values[row];
+    }
+
+    /**
+     * @return the backing array, valid up to {@link #size()}
+     */
+    public double[] getValues() {
+      return values;
+    }
+
+    @Override
+    public Object get(int row) {
+      return isNull(row) ? null : values[row];
+    }
+
+    @Override
+    public void read(ResultSet rs, int columnIndex) throws SQLException {
+      values[size] = rs.getDouble(columnIndex);
+      if (rs.wasNull()) {
+        markNull(size);
+      }
+      size++;
+    }
+
+    @Override
+    public ColumnVector newChunk(int capacity) {
+      return new DoubleVector(getName(), capacity);
+    }
+  }
+
+  /**
+   * Strings as codes into a dictionary of the distinct values, shared by all the chunks of the column so that a code
+   * means the same string in each of them. Null rows have the code -1.
+   */
+  public static class StringVector extends ColumnVector {
+
+    private final Dictionary dictionary;
+    private final int[] codes;
+
+    StringVector(String name, Dictionary dictionary, int capacity) {
+      super(name, capacity);
+      this.dictionary = dictionary;
+      this.codes = new int[capacity];
+    }
+
+    public int getCode(int row) {
+      return codes[row];
+    }
+
+    /**
+     * @return the backing array of codes, valid up to {@link #size()}
+     */
+    public int[] getCodes() {
+      return codes;
+    }
+
+    /**
+     * @return the distinct values read so far for the column, indexed by code
+     */
+    public List<String> getDictionary() {
+      return dictionary.unmodifiableValues;
+    }
+
+    @Override
+    public String get(int row) {
+      final int code = codes[row];
+      return code < 0 ? null : dictionary.values.get(code);
+    }
+
+    @Override
+    public void read(ResultSet rs, int columnIndex) throws SQLException {
+      final String value = rs.getString(columnIndex);
+      if (value == null) {
+        codes[size] = -1;
+        markNull(size);
+      } else {
+        codes[size] = dictionary.encode(value);
+      }
+      size++;
+    }
+
+    @Override
+    public ColumnVector newChunk(int capacity) {
+      return new StringVector(getName(), dictionary, capacity);
+    }
+  }
+
+  public static class ObjectVector extends ColumnVector {
+
+    private final TypeHandler<?> typeHandler;
+    private final Object[] values;
+
+    ObjectVector(String name, TypeHandler<?> typeHandler, int capacity) {
+      super(name, capacity);
+      this.typeHandler = typeHandler;
+      this.values = new Object[capacity];
+    }
+
+    @Override
+    public Object get(int row) {
+      return values[row];
+    }
+
+    @Override
+    public void read(ResultSet rs, int columnIndex) throws SQLException {
+      final Object value = typeHandler.getResult(rs, columnIndex);
+      values[size] = value;
+      if (value == null) {
+        markNull(size);
+      }
+      size++;
+    }
+
+    @Override
+    public ColumnVector newChunk(int capacity) {
+      return new ObjectVector(getName(), typeHandler, capacity);
+    }
+  }
+
+  static class Dictionary {
+
+    private final Map<String, Integer> codes = new HashMap<String, Integer>();
+    private final List<String> values = new ArrayList<String>();
+    private final List<String> unmodifiableValues = Collections.unmodifiableList(values);
+
+    int encode(String value) {
+      Integer code = codes.get(value);
+      if (code == null) {
+        code = values.size();
+        codes.put(value, code);
+        values.add(value);
+      }
+      return code;
+    }
+  }
+
+}
@@ -0,0 +1,78 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+/**
+ * Reads the rows of a select into column vectors instead of mapping one object per row. Pass it where a
+ * {@link ResultHandler} is accepted, e.g. {@link org.apache.ibatis.session.SqlSession#select(String, Object, ResultHandler)}:
+ * the columns of the result set are read as they are, whatever result map the statement declares, and handed over in
+ * chunks of up to {@link #getChunkSize()} rows. A chunk is not reused once handed over.
+ * <p>
+ * Statements whose rows are merged from several result sets, those of a sharded session targeting several shards or
+ * those with a foreach split in chunks, are rejected.
+ *
+ * @see ColumnVector
+ */
+public abstract class ColumnarResultHandler implements ResultHandler<Object> {
+
+  public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+  private final int chunkSize;
+  private boolean stopped;
+
+  public ColumnarResultHandler() {
+    this(DEFAULT_CHUNK_SIZE);
+  }
+
+  public ColumnarResultHandler(int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("The chunk size must be positive, was " + chunkSize);
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Called for each chunk of rows read, the last one may be partly filled.
+   */
+  public abstract void handleChunk(ColumnChunk chunk);
+
+  /**
+   * Stops reading rows after the current chunk.
+   */
+  public void stop() {
+    stopped = true;
+  }
+
+  public boolean isStopped() {
+    return stopped;
+  }
+
+  @Override
+  public void handleResult(ResultContext<? extends Object> context) {
+    // reached when rows are mapped before being handed over, e.g. merged from several result sets
+    throw new ExecutorException("A ColumnarResultHandler reads the columns of a single result set, it cannot handle "
+        + "mapped objects such as the merged rows of several shards or of the chunks of a split foreach.");
+  }
+
+}
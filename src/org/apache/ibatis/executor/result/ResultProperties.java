@@ -0,0 +1,78 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.util.Map;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Reads a column of a select back from the objects it was mapped to, e.g. to compare or seek rows by their sort key.
+ */
+public final class ResultProperties {
+
+  private ResultProperties() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * @return the property holding the column in the result objects of the result map, an empty string when the
+   *         result objects are the column values themselves, or null when it cannot be found
+   */
+  public static String findProperty(Configuration configuration, ResultMap resultMap, String column) {
+    if (Map.class.isAssignableFrom(resultMap.getType())) {
+      return column;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (column.equalsIgnoreCase(resultMapping.getColumn()) && resultMapping.getProperty() != null) {
+        return resultMapping.getProperty();
+      }
+    }
+    if (configuration.getTypeHandlerRegistry().hasTypeHandler(resultMap.getType())) {
+      // single column results
+      return "";
+    }
+    return MetaClass.forClass(resultMap.getType(), configuration.getReflectorFactory())
+        .findProperty(column, configuration.isMapUnderscoreToCamelCase());
+  }
+
+  /**
+   * @param property a property returned by {@link #findProperty(Configuration, ResultMap, String)}
+   * @return the value of the property in the result object; map keys are matched ignoring case
+   */
+  public static Object valueOf(Configuration configuration, Object row, String property) {
+    if (row == null || property.length() == 0) {
+      return row;
+    }
+    if (row instanceof Map) {
+      final Map<?, ?> map = (Map<?, ?>) row;
+      if (map.containsKey(property)) {
+        return map.get(property);
+      }
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        if (property.equalsIgnoreCase(String.valueOf(entry.getKey()))) {
+          return entry.getValue();
+        }
+      }
+      return null;
+    }
+    return configuration.newMetaObject(row).getValue(property);
+  }
+
+}
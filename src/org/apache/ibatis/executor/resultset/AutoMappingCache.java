@@ -0,0 +1,95 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.List;
+
+import org.apache.ibatis.cache.BoundedMap;
+
+/**
+ * Auto-mapping plans shared by all the result set handlers of a configuration, so that the properties and type
+ * handlers of unmapped columns are discovered once for a result map, column prefix, result type and column shape,
+ * whether the shapes themselves are cached or read again for each result set.
+ * <p>
+ * Plans are found by the {@link ResultSetShape#getSignature() signature} of the shape, computed once per shape, and
+ * by the {@link org.apache.ibatis.type.TypeHandlerRegistry#getResolutionGeneration() generation} of the type handler
+ * registry, so that plans resolved before type handlers were registered are not reused.
+ */
+public class AutoMappingCache {
+
+  // dynamic SQL may produce many shapes, keep the cache bounded
+  private static final int MAX_CACHED_PLANS = 1024;
+
+  private final BoundedMap<PlanKey, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> plans = new BoundedMap<PlanKey, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>>(MAX_CACHED_PLANS);
+
+  List<DefaultResultSetHandler.UnMappedColumnAutoMapping> get(PlanKey key) {
+    return plans.get(key);
+  }
+
+  void put(PlanKey key, List<DefaultResultSetHandler.UnMappedColumnAutoMapping> plan) {
+    plans.put(key, plan);
+  }
+
+  /**
+   * Forgets the plans.
+   */
+  public void clear() {
+    plans.clear();
+  }
+
+  // the signature caches its hash code, so a key costs no more than its allocation
+  static final class PlanKey {
+
+    private final String resultMapId;
+    private final String columnPrefix;
+    private final Class<?> resultType;
+    private final String signature;
+    private final int typeHandlerGeneration;
+    private final int hashCode;
+
+    PlanKey(String resultMapId, String columnPrefix, Class<?> resultType, String signature, int typeHandlerGeneration) {
+      this.resultMapId = resultMapId;
+      this.columnPrefix = columnPrefix;
+      this.resultType = resultType;
+      this.signature = signature;
+      this.typeHandlerGeneration = typeHandlerGeneration;
+      int hash = resultMapId.hashCode() * 31 + (columnPrefix == null ? 0 : columnPrefix.hashCode());
+      hash = (hash * 31 + resultType.hashCode()) * 31 + signature.hashCode();
+      this.hashCode = hash * 31 + typeHandlerGeneration;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof PlanKey)) {
+        return false;
+      }
+      final PlanKey other = (PlanKey) object;
+      return hashCode == other.hashCode && typeHandlerGeneration == other.typeHandlerGeneration && resultType == other.resultType
+          && resultMapId.equals(other.resultMapId)
+          && (columnPrefix == null ? other.columnPrefix == null : columnPrefix.equals(other.columnPrefix))
+          && signature.equals(other.signature);
+    }
+  }
+
+}
@@ -0,0 +1,206 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Rows copied from a result set, so that they can be mapped by another thread while the result set moves on. The
+ * buffered rows are read through a {@link ResultSet} proxy positioned with {@link #setRow(int)}, which answers the
+ * getters used by type handlers by converting the buffered values. LOB, array and structured columns cannot be
+ * buffered, see {@link #canBuffer(List)}.
+ */
+final class BufferedRows implements InvocationHandler {
+
+  private final List<Object[]> rows;
+  private final ResultSetShape shape;
+  private final ResultSetMetaData metaData;
+  private final ResultSet resultSet;
+  private Object[] row;
+  private boolean wasNull;
+
+  BufferedRows(List<Object[]> rows, ResultSetShape shape, ResultSetMetaData metaData) {
+    this.rows = rows;
+    this.shape = shape;
+    this.metaData = metaData;
+    this.resultSet = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, this);
+  }
+
+  /**
+   * @return whether columns of the given types only hold values that stay valid once the result set has moved on
+   */
+  static boolean canBuffer(List<JdbcType> jdbcTypes) {
+    for (JdbcType jdbcType : jdbcTypes) {
+      if (jdbcType == null) {
+        return false;
+      }
+      switch (jdbcType) {
+        case BLOB:
+        case CLOB:
+        case NCLOB:
+        case ARRAY:
+        case STRUCT:
+        case REF:
+        case SQLXML:
+        case DATALINK:
+        case UNDEFINED:
+          return false;
+        default:
+          break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Copies the current row of the result set.
+   */
+  static Object[] readRow(ResultSet rs, List<JdbcType> jdbcTypes) throws SQLException {
+    final Object[] values = new Object[jdbcTypes.size()];
+    for (int i = 0; i < values.length; i++) {
+      // getObject returns vendor types for dates with some drivers
+      switch (jdbcTypes.get(i)) {
+        case DATE:
+          values[i] = rs.getDate(i + 1);
+          break;
+        case TIME:
+          values[i] = rs.getTime(i + 1);
+          break;
+        case TIMESTAMP:
+          values[i] = rs.getTimestamp(i + 1);
+          break;
+        default:
+          values[i] = rs.getObject(i + 1);
+          break;
+      }
+    }
+    return values;
+  }
+
+  ResultSetShape getShape() {
+    return shape;
+  }
+
+  ResultSet getResultSet() {
+    return resultSet;
+  }
+
+  int size() {
+    return rows.size();
+  }
+
+  void setRow(int index) {
+    row = rows.get(index);
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    final String name = method.getName();
+    if (Object.class.equals(method.getDeclaringClass())) {
+      return method.invoke(this, args);
+    } else if ("wasNull".equals(name)) {
+      return wasNull;
+    } else if ("getMetaData".equals(name)) {
+      return metaData;
+    } else if ("findColumn".equals(name)) {
+      return findColumn((String) args[0]);
+    } else if ("getType".equals(name)) {
+      return ResultSet.TYPE_FORWARD_ONLY;
+    } else if (name.startsWith("get") && args != null && args.length > 0
+        && (args[0] instanceof Integer || args[0] instanceof String)) {
+      final int columnIndex = args[0] instanceof Integer ? (Integer) args[0] : findColumn((String) args[0]);
+      if (columnIndex < 1 || columnIndex > row.length) {
+        throw new SQLException("Invalid column index " + args[0]);
+      }
+      final Object value = row[columnIndex - 1];
+      wasNull = value == null;
+      final Class<?> type = "getObject".equals(name) && args.length == 2 && args[1] instanceof Class ? (Class<?>) args[1] : method.getReturnType();
+      return convert(value, type);
+    }
+    throw new SQLFeatureNotSupportedException("Method " + name + " is not supported on a buffered row");
+  }
+
+  private int findColumn(String columnLabel) throws SQLException {
+    final int columnIndex = shape.getColumnIndex(columnLabel);
+    if (columnIndex == 0) {
+      throw new SQLException("Column '" + columnLabel + "' not found");
+    }
+    return columnIndex;
+  }
+
+  private static Object convert(Object value, Class<?> type) throws SQLException {
+    if (value == null) {
+      return type.isPrimitive() ? convert(0, type) : null;
+    }
+    if (type.isInstance(value)) {
+      return value;
+    }
+    if (type == String.class) {
+      return value.toString();
+    }
+    if (value instanceof String && (type == boolean.class || type == Boolean.class)) {
+      final String text = ((String) value).trim();
+      return "1".equals(text) || "true".equalsIgnoreCase(text);
+    }
+    if (value instanceof Boolean) {
+      value = (Boolean) value ? 1 : 0;
+    } else if (value instanceof String && (type.isPrimitive() || Number.class.isAssignableFrom(type))) {
+      value = new BigDecimal(((String) value).trim());
+    }
+    if (value instanceof Number) {
+      final Number number = (Number) value;
+      if (type == int.class || type == Integer.class) {
+        return number.intValue();
+      } else if (type == long.class || type == Long.class) {
+        return number.longValue();
+      } else if (type == double.class || type == Double.class) {
+        return number.doubleValue();
+      } else if (type == float.class || type == Float.class) {
+        return number.floatValue();
+      } else if (type == short.class || type == Short.class) {
+        return number.shortValue();
+      } else if (type == byte.class || type == Byte.class) {
+        return number.byteValue();
+      } else if (type == boolean.class || type == Boolean.class) {
+        return number.intValue() != 0;
+      } else if (type == BigDecimal.class) {
+        return new BigDecimal(number.toString());
+      }
+    }
+    if (value instanceof java.util.Date) {
+      final long time = ((java.util.Date) value).getTime();
+      if (type == java.sql.Timestamp.class) {
+        return new java.sql.Timestamp(time);
+      } else if (type == java.sql.Date.class) {
+        return new java.sql.Date(time);
+      } else if (type == java.sql.Time.class) {
+        return new java.sql.Time(time);
+      }
+    }
+    throw new SQLException("Cannot convert a buffered " + value.getClass().getName() + " to " + type.getName());
+  }
+
+}
@@ -20,24 +20,37 @@ import java.sql.CallableStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.cursor.defaults.DefaultCursor;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderGroup;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.result.ColumnChunk;
+import org.apache.ibatis.executor.result.ColumnVector;
+import org.apache.ibatis.executor.result.ColumnarResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
@@ -57,6 +70,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.LobScope;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
@@ -81,29 +95,39 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ReflectorFactory reflectorFactory;
 
   // nested resultmaps
-  private final Map<CacheKey, Object> nestedResultObjects = new HashMap<CacheKey, Object>();
+  private final Map<RowKey, Object> nestedResultObjects = new HashMap<RowKey, Object>();
+  // the scopes of the row keys, per result map id and column prefix
+  private final Map<String, Map<String, Object>> rowKeyScopes = new HashMap<String, Map<String, Object>>();
+  // the values of the row key being created
+  private final List<Object> rowKeyValues = new ArrayList<Object>();
   private final Map<String, Object> ancestorObjects = new HashMap<String, Object>();
   private Object previousRowValue;
+  // rows read from the first result set, for the adaptive fetch size
+  private int rowsRead;
+  // position of the current result set, part of the key of its cached shape
+  private int resultSetIndex;
+
+  // lazy loaders batched per result set, ResultMapping only compares property names
+  private final Map<ResultMapping, ResultLoaderGroup> resultLoaderGroups = new IdentityHashMap<ResultMapping, ResultLoaderGroup>();
 
   // multiple resultsets
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<String, ResultMapping>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<CacheKey, List<PendingRelation>>();
 
-  // Cached Automappings
-  private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<String, List<UnMappedColumnAutoMapping>>();
-  
   private static class PendingRelation {
     public MetaObject metaObject;
     public ResultMapping propertyMapping;
   }
 
-  private static class UnMappedColumnAutoMapping {
+  static class UnMappedColumnAutoMapping {
     private final String column;   
+    private final int columnIndex;
     private final String property;    
     private final TypeHandler<?> typeHandler;
     private final boolean primitive;
-    public UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
+    public UnMappedColumnAutoMapping(String column, int columnIndex, String property, TypeHandler<?> typeHandler, boolean primitive) {
       this.column = column;
+      this.columnIndex = columnIndex;
       this.property = property;
       this.typeHandler = typeHandler;
       this.primitive = primitive;
@@ -181,6 +205,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     while (rsw != null && resultMapCount > resultSetCount) {
       ResultMap resultMap = resultMaps.get(resultSetCount);
       handleResultSet(rsw, resultMap, multipleResults, null);
+      if (resultSetCount == 0 && isAdaptiveFetchSize()) {
+        configuration.getFetchSizeAdvisor().record(mappedStatement, rsw.getJdbcTypes(), rowsRead);
+      }
       rsw = getNextResultSet(stmt);
       cleanUpAfterHandlingResultSet();
       resultSetCount++;
@@ -219,7 +246,65 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
-    return new DefaultCursor<E>(this, resultMap, rsw, rowBounds);
+    if (isAdaptiveFetchSize()) {
+      // applies to the fetches following the first one
+      rsw.getResultSet().setFetchSize(configuration.getFetchSizeAdvisor().getCursorFetchSize(rsw.getJdbcTypes(), configuration.getFetchSizeMemoryBudget()));
+    }
+    Cursor<E> cursor = new DefaultCursor<E>(this, resultMap, rsw, rowBounds);
+    if (configuration.getCursorPrefetchSize() > 0 && canPrefetch(resultMap, new HashSet<String>())) {
+      cursor = new PrefetchingCursor<E>(cursor, configuration.getCursorPrefetchSize());
+    }
+    return cursor;
+  }
+
+  // nested selects would run on the prefetching thread through the session's executor and connection, and the
+  // streamed LOBs of a row would be released when the next row is read ahead, before the consumer reads them
+  private boolean canPrefetch(ResultMap resultMap, Set<String> visited) {
+    if (!visited.add(resultMap.getId())) {
+      return true;
+    }
+    if (resultMap.hasNestedQueries() || hasStreamedLobs(resultMap)) {
+      return false;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (resultMapping.getNestedResultMapId() != null
+          && !canPrefetch(configuration.getResultMap(resultMapping.getNestedResultMapId()), visited)) {
+        return false;
+      }
+    }
+    if (resultMap.getDiscriminator() != null) {
+      for (String caseResultMapId : resultMap.getDiscriminator().getDiscriminatorMap().values()) {
+        if (!canPrefetch(configuration.getResultMap(caseResultMapId), visited)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean hasStreamedLobs(ResultMap resultMap) {
+    if (LobScope.isStreamed(typeHandlerRegistry.getTypeHandler(resultMap.getType()))) {
+      return true;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (LobScope.isStreamed(resultMapping.getTypeHandler())) {
+        return true;
+      }
+    }
+    if (shouldApplyAutomaticMappings(resultMap, resultMap.hasNestedResultMaps())) {
+      // unmapped columns are auto-mapped to the properties of the same name
+      final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
+      for (String property : metaType.getSetterNames()) {
+        if (LobScope.isStreamed(typeHandlerRegistry.getTypeHandler(metaType.getSetterType(property)))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean isAdaptiveFetchSize() {
+    return configuration.isAdaptiveFetchSize() && mappedStatement.getFetchSize() == null;
   }
 
   private ResultSetWrapper getFirstResultSet(Statement stmt) throws SQLException {
@@ -236,7 +321,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+    resultSetIndex = 0;
+    return rs != null ? wrap(rs) : null;
+  }
+
+  private ResultSetWrapper wrap(ResultSet rs) throws SQLException {
+    if (!configuration.isCacheResultSetMetadata()) {
+      return new ResultSetWrapper(rs, configuration);
+    }
+    final ResultSetShape shape = configuration.getResultSetShapeCache().getShape(mappedStatement, boundSql.getSql(), resultSetIndex, rs.getMetaData());
+    return new ResultSetWrapper(rs, configuration, shape);
   }
 
   private ResultSetWrapper getNextResultSet(Statement stmt) throws SQLException {
@@ -246,7 +340,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         // Crazy Standard JDBC way of determining if there are more results
         if (!((!stmt.getMoreResults()) && (stmt.getUpdateCount() == -1))) {
           ResultSet rs = stmt.getResultSet();
-          return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+          resultSetIndex++;
+          return rs != null ? wrap(rs) : null;
         }
       }
     } catch (Exception e) {
@@ -267,6 +362,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
+    resultLoaderGroups.clear();
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -283,10 +379,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       } else {
         if (resultHandler == null) {
           DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
-          handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+          handleTopLevelRowValues(rsw, resultMap, defaultResultHandler);
           multipleResults.add(defaultResultHandler.getResultList());
+        } else if (resultHandler instanceof ColumnarResultHandler) {
+          handleColumnValues(rsw, (ColumnarResultHandler) resultHandler, rowBounds);
         } else {
-          handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
+          handleTopLevelRowValues(rsw, resultMap, resultHandler);
         }
       }
     } finally {
@@ -314,6 +412,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  private void handleTopLevelRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler) throws SQLException {
+    if (configuration.isParallelRowMapping() && BufferedRows.canBuffer(rsw.getJdbcTypes())
+        && canMapInParallel(resultMap, new HashSet<String>())) {
+      handleRowValuesInParallel(rsw, resultMap, resultHandler, rowBounds);
+    } else {
+      handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
+    }
+  }
+
   private void ensureNoRowBounds() {
     if (configuration.isSafeRowBoundsEnabled() && rowBounds != null && (rowBounds.getLimit() < RowBounds.NO_ROW_LIMIT || rowBounds.getOffset() > RowBounds.NO_ROW_OFFSET)) {
       throw new ExecutorException("Mapped Statements with nested result mappings cannot be safely constrained by RowBounds. "
@@ -334,12 +441,138 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     DefaultResultContext<Object> resultContext = new DefaultResultContext<Object>();
     skipRows(rsw.getResultSet(), rowBounds);
     while (shouldProcessMoreRows(resultContext, rowBounds) && rsw.getResultSet().next()) {
+      rowsRead++;
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
       Object rowValue = getRowValue(rsw, discriminatedResultMap);
       storeObject(resultHandler, resultContext, rowValue, parentMapping, rsw.getResultSet());
     }
   }
 
+  //
+  // HANDLE ROWS FOR SIMPLE RESULTMAP IN PARALLEL
+  //
+
+  private static final int PARALLEL_BATCH_SIZE = 256;
+  private static ForkJoinPool rowMappingPool;
+
+  private static synchronized ForkJoinPool getRowMappingPool() {
+    if (rowMappingPool == null) {
+      rowMappingPool = new ForkJoinPool();
+    }
+    return rowMappingPool;
+  }
+
+  /**
+   * Whether the rows of the result map only need the columns of their own row: no nested result maps or queries,
+   * no multiple result sets, including the result maps chosen by discriminators.
+   */
+  private boolean canMapInParallel(ResultMap resultMap, Set<String> visited) {
+    if (!visited.add(resultMap.getId())) {
+      return true;
+    }
+    if (resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries()) {
+      return false;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (resultMapping.getResultSet() != null || resultMapping.getNestedResultMapId() != null) {
+        return false;
+      }
+    }
+    final Discriminator discriminator = resultMap.getDiscriminator();
+    if (discriminator != null) {
+      for (String discriminatedMapId : discriminator.getDiscriminatorMap().values()) {
+        if (configuration.hasResultMap(discriminatedMapId)
+            && !canMapInParallel(configuration.getResultMap(discriminatedMapId), visited)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Copies the rows in batches on this thread and maps the batches on a fork join pool, handing the results over in
+   * the order of the rows. Results of fewer rows than a batch are mapped on this thread.
+   */
+  private void handleRowValuesInParallel(ResultSetWrapper rsw, final ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds)
+      throws SQLException {
+    final DefaultResultContext<Object> resultContext = new DefaultResultContext<Object>();
+    final ResultSet rs = rsw.getResultSet();
+    final ForkJoinPool pool = getRowMappingPool();
+    final int maxPendingBatches = pool.getParallelism() * 2;
+    final Deque<Future<Object[]>> pendingBatches = new ArrayDeque<Future<Object[]>>();
+    skipRows(rs, rowBounds);
+    try {
+      int rowsLeft = rowBounds.getLimit();
+      List<Object[]> batch = new ArrayList<Object[]>(PARALLEL_BATCH_SIZE);
+      while (!resultContext.isStopped() && rowsLeft > 0 && rs.next()) {
+        rowsRead++;
+        rowsLeft--;
+        batch.add(BufferedRows.readRow(rs, rsw.getJdbcTypes()));
+        if (batch.size() == PARALLEL_BATCH_SIZE) {
+          final BufferedRows rows = new BufferedRows(batch, rsw.getShape(), rs.getMetaData());
+          pendingBatches.add(pool.submit(new Callable<Object[]>() {
+            @Override
+            public Object[] call() throws SQLException {
+              return mapBufferedRows(rows, resultMap);
+            }
+          }));
+          batch = new ArrayList<Object[]>(PARALLEL_BATCH_SIZE);
+          while (!pendingBatches.isEmpty() && (pendingBatches.size() >= maxPendingBatches || pendingBatches.peek().isDone())) {
+            storeObjects(resultHandler, resultContext, awaitBatch(pendingBatches.poll()));
+          }
+        }
+      }
+      while (!pendingBatches.isEmpty() && !resultContext.isStopped()) {
+        storeObjects(resultHandler, resultContext, awaitBatch(pendingBatches.poll()));
+      }
+      if (!batch.isEmpty() && !resultContext.isStopped()) {
+        storeObjects(resultHandler, resultContext, mapBufferedRows(new BufferedRows(batch, rsw.getShape(), rs.getMetaData()), resultMap));
+      }
+    } finally {
+      for (Future<Object[]> pendingBatch : pendingBatches) {
+        pendingBatch.cancel(false);
+      }
+    }
+  }
+
+  private Object[] mapBufferedRows(BufferedRows rows, ResultMap resultMap) throws SQLException {
+    final ResultSetWrapper rsw = new ResultSetWrapper(rows.getResultSet(), configuration, rows.getShape());
+    final Object[] rowValues = new Object[rows.size()];
+    for (int i = 0; i < rowValues.length; i++) {
+      rows.setRow(i);
+      final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
+      rowValues[i] = getRowValue(rsw, discriminatedResultMap);
+    }
+    return rowValues;
+  }
+
+  private Object[] awaitBatch(Future<Object[]> batch) throws SQLException {
+    try {
+      return batch.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while mapping rows.  Cause: " + e, e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error mapping rows.  Cause: " + cause, cause);
+    }
+  }
+
+  private void storeObjects(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object[] rowValues) {
+    for (Object rowValue : rowValues) {
+      if (resultContext.isStopped()) {
+        return;
+      }
+      callResultHandler(resultHandler, resultContext, rowValue);
+    }
+  }
+
   private void storeObject(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object rowValue, ResultMapping parentMapping, ResultSet rs) throws SQLException {
     if (parentMapping != null) {
       linkToParents(rs, parentMapping, rowValue);
@@ -370,6 +603,48 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  //
+  // HANDLE ROWS AS COLUMNS
+  //
+
+  private void handleColumnValues(ResultSetWrapper rsw, ColumnarResultHandler resultHandler, RowBounds rowBounds) throws SQLException {
+    final ResultSet rs = rsw.getResultSet();
+    final List<String> columnNames = rsw.getColumnNames();
+    final int chunkSize = resultHandler.getChunkSize();
+    List<ColumnVector> columns = new ArrayList<ColumnVector>(columnNames.size());
+    for (int i = 0; i < columnNames.size(); i++) {
+      final String columnName = columnNames.get(i);
+      final TypeHandler<?> typeHandler = rsw.getTypeHandler(Object.class, columnName);
+      columns.add(ColumnVector.forColumn(columnName, rsw.getJdbcTypes().get(i), typeHandler, chunkSize));
+    }
+    skipRows(rs, rowBounds);
+    long firstRow = 0;
+    int rows = 0;
+    while (!resultHandler.isStopped() && firstRow + rows < rowBounds.getLimit() && rs.next()) {
+      for (int i = 0; i < columns.size(); i++) {
+        columns.get(i).read(rs, i + 1);
+      }
+      if (++rows == chunkSize) {
+        resultHandler.handleChunk(new ColumnChunk(firstRow, rows, columns));
+        columns = newChunk(columns, chunkSize);
+        firstRow += rows;
+        rows = 0;
+      }
+    }
+    if (rows > 0) {
+      resultHandler.handleChunk(new ColumnChunk(firstRow, rows, columns));
+    }
+    rowsRead += firstRow + rows;
+  }
+
+  private List<ColumnVector> newChunk(List<ColumnVector> columns, int chunkSize) {
+    final List<ColumnVector> chunk = new ArrayList<ColumnVector>(columns.size());
+    for (ColumnVector column : columns) {
+      chunk.add(column.newChunk(chunkSize));
+    }
+    return chunk;
+  }
+
   //
   // GET VALUE FROM ROW FOR SIMPLE RESULT MAP
   //
@@ -410,9 +685,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, ResultLoaderMap lazyLoader, String columnPrefix)
       throws SQLException {
     final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+    final int[] columnIndexes = configuration.isUseColumnIndex() ? rsw.getPropertyColumnIndexes(resultMap, columnPrefix) : null;
     boolean foundValues = false;
     final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
-    for (ResultMapping propertyMapping : propertyMappings) {
+    for (int i = 0; i < propertyMappings.size(); i++) {
+      final ResultMapping propertyMapping = propertyMappings.get(i);
       String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
       if (propertyMapping.getNestedResultMapId() != null) {
         // the user added a column attribute to a nested result map, ignore it
@@ -421,7 +698,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       if (propertyMapping.isCompositeResult()
           || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
           || propertyMapping.getResultSet() != null) {
-        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
+        final int columnIndex = columnIndexes == null ? 0 : columnIndexes[i];
+        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, columnIndex, lazyLoader, columnPrefix);
         // issue #541 make property optional
         final String property = propertyMapping.getProperty();
         if (property == null) {
@@ -442,7 +720,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return foundValues;
   }
 
-  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
+  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, int columnIndex, ResultLoaderMap lazyLoader, String columnPrefix)
       throws SQLException {
     if (propertyMapping.getNestedQueryId() != null) {
       return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
@@ -451,54 +729,75 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       return DEFERED;
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
+      if (columnIndex > 0) {
+        return typeHandler.getResult(rs, columnIndex);
+      }
       final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
       return typeHandler.getResult(rs, column);
     }
   }
 
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
-    final String mapKey = resultMap.getId() + ":" + columnPrefix;
-    List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
+    // memoized on the shape for the rows of a result set, shared by the configuration across shapes of the same columns
+    final ResultSetShape shape = rsw.getShape();
+    final Class<?> resultType = metaObject.getOriginalObject().getClass();
+    final ResultSetShape.AutoMappingKey mapKey = new ResultSetShape.AutoMappingKey(resultMap.getId(), columnPrefix, resultType);
+    List<UnMappedColumnAutoMapping> autoMapping = shape.autoMappingsMap.get(mapKey);
     if (autoMapping == null) {
-      autoMapping = new ArrayList<UnMappedColumnAutoMapping>();
-      final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
-      for (String columnName : unmappedColumnNames) {
-        String propertyName = columnName;
-        if (columnPrefix != null && !columnPrefix.isEmpty()) {
-          // When columnPrefix is specified,
-          // ignore columns without the prefix.
-          if (columnName.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
-            propertyName = columnName.substring(columnPrefix.length());
-          } else {
-            continue;
-          }
+      final AutoMappingCache.PlanKey planKey = new AutoMappingCache.PlanKey(resultMap.getId(), columnPrefix, resultType,
+          shape.getSignature(), typeHandlerRegistry.getResolutionGeneration());
+      autoMapping = configuration.getAutoMappingCache().get(planKey);
+      if (autoMapping == null) {
+        autoMapping = buildAutomaticMappings(rsw, resultMap, metaObject, columnPrefix);
+        configuration.getAutoMappingCache().put(planKey, autoMapping);
+      }
+      shape.autoMappingsMap.put(mapKey, autoMapping);
+    }
+    return autoMapping;
+  }
+
+  private List<UnMappedColumnAutoMapping> buildAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
+    final List<UnMappedColumnAutoMapping> autoMapping = new ArrayList<UnMappedColumnAutoMapping>();
+    final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
+    for (String columnName : unmappedColumnNames) {
+      String propertyName = columnName;
+      if (columnPrefix != null && !columnPrefix.isEmpty()) {
+        // When columnPrefix is specified,
+        // ignore columns without the prefix.
+        if (columnName.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
+          propertyName = columnName.substring(columnPrefix.length());
+        } else {
+          continue;
         }
-        final String property = metaObject.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase());
-        if (property != null && metaObject.hasSetter(property)) {
-          final Class<?> propertyType = metaObject.getSetterType(property);
-          if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
-            final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
-            autoMapping.add(new UnMappedColumnAutoMapping(columnName, property, typeHandler, propertyType.isPrimitive()));
-          } else {
-            configuration.getAutoMappingUnknownColumnBehavior()
-                    .doAction(mappedStatement, columnName, property, propertyType);
-          }
-        } else{
+      }
+      final String property = metaObject.findProperty(propertyName, configuration.isMapUnderscoreToCamelCase());
+      if (property != null && metaObject.hasSetter(property)) {
+        final Class<?> propertyType = metaObject.getSetterType(property);
+        if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
+          final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
+          final int columnIndex = rsw.getColumnNames().indexOf(columnName) + 1;
+          autoMapping.add(new UnMappedColumnAutoMapping(columnName, columnIndex, property, typeHandler, propertyType.isPrimitive()));
+        } else {
           configuration.getAutoMappingUnknownColumnBehavior()
-                  .doAction(mappedStatement, columnName, (property != null) ? property : propertyName, null);
+                  .doAction(mappedStatement, columnName, property, propertyType);
         }
+      } else{
+        configuration.getAutoMappingUnknownColumnBehavior()
+                .doAction(mappedStatement, columnName, (property != null) ? property : propertyName, null);
       }
-      autoMappingsCache.put(mapKey, autoMapping);
     }
-    return autoMapping;
+    return Collections.unmodifiableList(autoMapping);
   }
   
   private boolean applyAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
     List<UnMappedColumnAutoMapping> autoMapping = createAutomaticMappings(rsw, resultMap, metaObject, columnPrefix);
     boolean foundValues = false;
     if (autoMapping.size() > 0) {
+      final boolean useColumnIndex = configuration.isUseColumnIndex();
       for (UnMappedColumnAutoMapping mapping : autoMapping) {
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+        final Object value = useColumnIndex
+            ? mapping.typeHandler.getResult(rsw.getResultSet(), mapping.columnIndex)
+            : mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
         if (value != null) {
           foundValues = true;
         }
@@ -592,7 +891,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     if (hasTypeHandlerForResultObject(rsw, resultType)) {
       return createPrimitiveResultObject(rsw, resultMap, columnPrefix);
     } else if (!constructorMappings.isEmpty()) {
-      return createParameterizedResultObject(rsw, resultType, constructorMappings, constructorArgTypes, constructorArgs, columnPrefix);
+      final int[] columnIndexes = configuration.isUseColumnIndex() ? rsw.getConstructorColumnIndexes(resultMap, columnPrefix) : null;
+      return createParameterizedResultObject(rsw, resultType, constructorMappings, columnIndexes, constructorArgTypes, constructorArgs, columnPrefix);
     } else if (resultType.isInterface() || metaType.hasDefaultConstructor()) {
       return objectFactory.create(resultType);
     } else if (shouldApplyAutomaticMappings(resultMap, false)) {
@@ -601,10 +901,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     throw new ExecutorException("Do not know how to create an instance of " + resultType);
   }
 
-  Object createParameterizedResultObject(ResultSetWrapper rsw, Class<?> resultType, List<ResultMapping> constructorMappings,
+  Object createParameterizedResultObject(ResultSetWrapper rsw, Class<?> resultType, List<ResultMapping> constructorMappings, int[] columnIndexes,
       List<Class<?>> constructorArgTypes, List<Object> constructorArgs, String columnPrefix) {
     boolean foundValues = false;
-    for (ResultMapping constructorMapping : constructorMappings) {
+    for (int i = 0; i < constructorMappings.size(); i++) {
+      final ResultMapping constructorMapping = constructorMappings.get(i);
       final Class<?> parameterType = constructorMapping.getJavaType();
       final String column = constructorMapping.getColumn();
       final Object value;
@@ -616,7 +917,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           value = getRowValue(rsw, resultMap);
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          final int columnIndex = columnIndexes == null ? 0 : columnIndexes[i];
+          value = columnIndex > 0
+              ? typeHandler.getResult(rsw.getResultSet(), columnIndex)
+              : typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
         }
       } catch (ResultMapException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -669,7 +973,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       columnName = rsw.getColumnNames().get(0);
     }
     final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-    return typeHandler.getResult(rsw.getResultSet(), columnName);
+    final int columnIndex = configuration.isUseColumnIndex() ? rsw.getColumnIndex(columnName) : 0;
+    return columnIndex > 0 ? typeHandler.getResult(rsw.getResultSet(), columnIndex) : typeHandler.getResult(rsw.getResultSet(), columnName);
   }
 
   //
@@ -710,7 +1015,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       } else {
         final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
         if (propertyMapping.isLazy()) {
-          lazyLoader.addLoader(property, metaResultObject, resultLoader);
+          lazyLoader.addLoader(property, metaResultObject, resultLoader, getResultLoaderGroup(propertyMapping));
           value = DEFERED;
         } else {
           value = resultLoader.loadResult();
@@ -720,6 +1025,19 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  private ResultLoaderGroup getResultLoaderGroup(ResultMapping propertyMapping) {
+    if (propertyMapping.getBatchQueryId() == null || propertyMapping.isCompositeResult()) {
+      return null;
+    }
+    ResultLoaderGroup group = resultLoaderGroups.get(propertyMapping);
+    if (group == null) {
+      final MappedStatement batchQuery = configuration.getMappedStatement(propertyMapping.getBatchQueryId());
+      group = new ResultLoaderGroup(configuration, executor, batchQuery, propertyMapping.getBatchKey());
+      resultLoaderGroups.put(propertyMapping, group);
+    }
+    return group;
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -811,8 +1129,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     skipRows(rsw.getResultSet(), rowBounds);
     Object rowValue = previousRowValue;
     while (shouldProcessMoreRows(resultContext, rowBounds) && rsw.getResultSet().next()) {
+      rowsRead++;
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(rsw.getResultSet(), resultMap, null);
-      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+      final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
       // issue #577 && #542
       if (mappedStatement.isResultOrdered()) {
@@ -840,7 +1159,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
 
-  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
+  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, RowKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
     final String resultMapId = resultMap.getId();
     Object resultObject = partialObject;
     if (resultObject != null) {
@@ -864,7 +1183,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         foundValues = lazyLoader.size() > 0 || foundValues;
         resultObject = foundValues ? resultObject : null;
       }
-      if (combinedKey != CacheKey.NULL_CACHE_KEY) {
+      if (combinedKey != RowKey.NULL_ROW_KEY) {
         nestedResultObjects.put(combinedKey, resultObject);
       }
     }
@@ -879,7 +1198,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // NESTED RESULT MAP (JOIN MAPPING)
   //
 
-  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, CacheKey parentRowKey, boolean newObject) {
+  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, RowKey parentRowKey, boolean newObject) {
     boolean foundValues = false;
     for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
       final String nestedResultMapId = resultMapping.getNestedResultMapId();
@@ -898,8 +1217,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               continue;
             }
           } 
-          final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-          final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
+          final RowKey combinedKey = createRowKey(nestedResultMap, rsw, columnPrefix).combine(parentRowKey);
           Object rowValue = nestedResultObjects.get(combinedKey);
           boolean knownValue = (rowValue != null);
           instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
@@ -960,37 +1278,38 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // UNIQUE RESULT KEY
   //
 
-  private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
-    cacheKey.update(resultMap.getId());
+  private RowKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    final List<Object> values = rowKeyValues;
+    values.clear();
     List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
     if (resultMappings.size() == 0) {
       if (Map.class.isAssignableFrom(resultMap.getType())) {
-        createRowKeyForMap(rsw, cacheKey);
+        createRowKeyForMap(rsw, values);
       } else {
-        createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
+        createRowKeyForUnmappedProperties(resultMap, rsw, values, columnPrefix);
       }
     } else {
-      createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
+      createRowKeyForMappedProperties(resultMap, rsw, values, resultMappings, columnPrefix);
     }
-    if (cacheKey.getUpdateCount() < 2) {
-      return CacheKey.NULL_CACHE_KEY;
-    }    
-    return cacheKey;
+    return RowKey.create(getRowKeyScope(resultMap, columnPrefix), values);
   }
 
-  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-    if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-      CacheKey combinedKey;
-      try {
-        combinedKey = rowKey.clone();
-      } catch (CloneNotSupportedException e) {
-        throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
-      }
-      combinedKey.update(parentRowKey);
-      return combinedKey;
+  /**
+   * The columns of a row key are identified by their position, which only means the same for the same result map and
+   * column prefix: keys are compared within a scope object shared by these.
+   */
+  private Object getRowKeyScope(ResultMap resultMap, String columnPrefix) {
+    Map<String, Object> scopes = rowKeyScopes.get(resultMap.getId());
+    if (scopes == null) {
+      scopes = new HashMap<String, Object>();
+      rowKeyScopes.put(resultMap.getId(), scopes);
+    }
+    Object scope = scopes.get(columnPrefix);
+    if (scope == null) {
+      scope = resultMap.getId() + ":" + columnPrefix;
+      scopes.put(columnPrefix, scope);
     }
-    return CacheKey.NULL_CACHE_KEY;
+    return scope;
   }
 
   private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
@@ -1001,12 +1320,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return resultMappings;
   }
 
-  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<Object> values, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
     for (ResultMapping resultMapping : resultMappings) {
       if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) {
         // Issue #392
         final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
-        createRowKeyForMappedProperties(nestedResultMap, rsw, cacheKey, nestedResultMap.getConstructorResultMappings(),
+        createRowKeyForMappedProperties(nestedResultMap, rsw, values, nestedResultMap.getConstructorResultMappings(),
             prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
       } else if (resultMapping.getNestedQueryId() == null) {
         final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
@@ -1014,17 +1333,13 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         // Issue #114
         if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-          final Object value = th.getResult(rsw.getResultSet(), column);
-          if (value != null) {
-            cacheKey.update(column);
-            cacheKey.update(value);
-          }
+          values.add(th.getResult(rsw.getResultSet(), column));
         }
       }
     }
   }
 
-  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, String columnPrefix) throws SQLException {
+  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<Object> values, String columnPrefix) throws SQLException {
     final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
     List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
     for (String column : unmappedColumnNames) {
@@ -1038,23 +1353,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
       if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
-        String value = rsw.getResultSet().getString(column);
-        if (value != null) {
-          cacheKey.update(column);
-          cacheKey.update(value);
-        }
+        values.add(rsw.getResultSet().getString(column));
       }
     }
   }
 
-  private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
-    List<String> columnNames = rsw.getColumnNames();
-    for (String columnName : columnNames) {
-      final String value = rsw.getResultSet().getString(columnName);
-      if (value != null) {
-        cacheKey.update(columnName);
-        cacheKey.update(value);
-      }
+  private void createRowKeyForMap(ResultSetWrapper rsw, List<Object> values) throws SQLException {
+    final ResultSet rs = rsw.getResultSet();
+    for (int i = 1; i <= rsw.getColumnNames().size(); i++) {
+      values.add(rs.getString(i));
     }
   }
 
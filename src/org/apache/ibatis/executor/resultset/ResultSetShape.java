@@ -0,0 +1,185 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * The columns of a result set, as read from its metadata, and what has been resolved from them: the type handlers
+ * of each column, the columns a result map maps or leaves to auto-mapping, the indexes of the mapped columns and
+ * the auto-mapping plans.
+ * <p>
+ * A shape may be shared by the result sets of several executions of the same SQL (see {@link ResultSetShapeCache}),
+ * so its lazily filled maps are thread safe. Its {@link #getSignature() signature} lets the
+ * {@link AutoMappingCache} share auto-mapping plans between shapes of the same columns.
+ */
+public class ResultSetShape {
+
+  private final boolean useColumnLabel;
+  private final int typeHandlerGeneration;
+  private final List<String> columnNames;
+  private final List<String> classNames;
+  private final List<JdbcType> jdbcTypes;
+  // upper case label -> index of the first column with that label, as ResultSet.findColumn resolves it
+  private final Map<String, Integer> columnIndexes;
+  private final String signature;
+
+  final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new ConcurrentHashMap<String, Map<Class<?>, TypeHandler<?>>>();
+  final Map<String, List<String>> mappedColumnNamesMap = new ConcurrentHashMap<String, List<String>>();
+  final Map<String, List<String>> unMappedColumnNamesMap = new ConcurrentHashMap<String, List<String>>();
+  final Map<String, int[]> mappingColumnIndexesMap = new ConcurrentHashMap<String, int[]>();
+  final Map<AutoMappingKey, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> autoMappingsMap = new ConcurrentHashMap<AutoMappingKey, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>>();
+
+  public ResultSetShape(ResultSetMetaData metaData, boolean useColumnLabel) throws SQLException {
+    this(metaData, useColumnLabel, 0);
+  }
+
+  /**
+   * @param typeHandlerGeneration the {@link org.apache.ibatis.type.TypeHandlerRegistry#getResolutionGeneration()
+   *        generation} of the registry the type handlers of the shape are resolved from
+   */
+  public ResultSetShape(ResultSetMetaData metaData, boolean useColumnLabel, int typeHandlerGeneration) throws SQLException {
+    this.useColumnLabel = useColumnLabel;
+    this.typeHandlerGeneration = typeHandlerGeneration;
+    final int columnCount = metaData.getColumnCount();
+    final List<String> columnNames = new ArrayList<String>(columnCount);
+    final List<String> classNames = new ArrayList<String>(columnCount);
+    final List<JdbcType> jdbcTypes = new ArrayList<JdbcType>(columnCount);
+    final Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+    final StringBuilder signature = new StringBuilder();
+    for (int i = 1; i <= columnCount; i++) {
+      final String columnName = getColumnName(metaData, i);
+      final JdbcType jdbcType = JdbcType.forCode(metaData.getColumnType(i));
+      final String className = metaData.getColumnClassName(i);
+      columnNames.add(columnName);
+      jdbcTypes.add(jdbcType);
+      classNames.add(className);
+      signature.append(columnName).append('\0').append(jdbcType).append('\0').append(className).append('\0');
+      // the getters taking a column name look it up by label
+      final String label = (useColumnLabel ? columnName : metaData.getColumnLabel(i)).toUpperCase(Locale.ENGLISH);
+      if (!columnIndexes.containsKey(label)) {
+        columnIndexes.put(label, i);
+      }
+    }
+    this.columnNames = Collections.unmodifiableList(columnNames);
+    this.classNames = Collections.unmodifiableList(classNames);
+    this.jdbcTypes = Collections.unmodifiableList(jdbcTypes);
+    this.columnIndexes = columnIndexes;
+    this.signature = signature.toString();
+  }
+
+  /**
+   * @return whether the result set has the same columns, compared by count and name
+   */
+  public boolean matches(ResultSetMetaData metaData) throws SQLException {
+    final int columnCount = metaData.getColumnCount();
+    if (columnCount != columnNames.size()) {
+      return false;
+    }
+    for (int i = 1; i <= columnCount; i++) {
+      if (!columnNames.get(i - 1).equals(getColumnName(metaData, i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int getTypeHandlerGeneration() {
+    return typeHandlerGeneration;
+  }
+
+  private String getColumnName(ResultSetMetaData metaData, int column) throws SQLException {
+    return useColumnLabel ? metaData.getColumnLabel(column) : metaData.getColumnName(column);
+  }
+
+  /**
+   * @return the names, JDBC types and class names of the columns, in order: what the type handlers and auto-mapping
+   *         plans of the shape are resolved from
+   */
+  public String getSignature() {
+    return signature;
+  }
+
+  public List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  public List<String> getClassNames() {
+    return classNames;
+  }
+
+  public List<JdbcType> getJdbcTypes() {
+    return jdbcTypes;
+  }
+
+  /**
+   * @return the index of the column with the given label, ignoring case, or 0 if the result set has no such column
+   */
+  public int getColumnIndex(String columnLabel) {
+    final Integer index = columnLabel == null ? null : columnIndexes.get(columnLabel.toUpperCase(Locale.ENGLISH));
+    return index == null ? 0 : index;
+  }
+
+  /**
+   * Identifies an auto-mapping plan within a shape: the result map, the column prefix and the class of the result.
+   */
+  static final class AutoMappingKey {
+
+    private final String resultMapId;
+    private final String columnPrefix;
+    private final Class<?> resultType;
+    private final int hashCode;
+
+    AutoMappingKey(String resultMapId, String columnPrefix, Class<?> resultType) {
+      this.resultMapId = resultMapId;
+      this.columnPrefix = columnPrefix;
+      this.resultType = resultType;
+      this.hashCode = (resultMapId.hashCode() * 31 + (columnPrefix == null ? 0 : columnPrefix.hashCode())) * 31
+          + resultType.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof AutoMappingKey)) {
+        return false;
+      }
+      final AutoMappingKey other = (AutoMappingKey) o;
+      return resultType == other.resultType && resultMapId.equals(other.resultMapId)
+          && (columnPrefix == null ? other.columnPrefix == null : columnPrefix.equals(other.columnPrefix));
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+  }
+
+}
@@ -0,0 +1,89 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.apache.ibatis.cache.BoundedMap;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Keeps the {@link ResultSetShape} of each result set of a statement per SQL text, so that executions of the same SQL
+ * skip reading the column types from the metadata and resolving their type handlers and mapped columns again.
+ * <p>
+ * A cached shape is only checked against the column names of a new result set; it is replaced when they differ or
+ * when type handlers have been registered since it was read.
+ */
+public class ResultSetShapeCache {
+
+  // dynamic SQL may produce many texts, keep the cache bounded
+  private static final int MAX_CACHED_SHAPES = 1024;
+
+  private final BoundedMap<ShapeKey, ResultSetShape> shapes = new BoundedMap<ShapeKey, ResultSetShape>(MAX_CACHED_SHAPES);
+
+  public ResultSetShape getShape(MappedStatement ms, String sql, int resultSetIndex, ResultSetMetaData metaData) throws SQLException {
+    final ShapeKey key = new ShapeKey(ms.getId(), sql, resultSetIndex);
+    final int typeHandlerGeneration = ms.getConfiguration().getTypeHandlerRegistry().getResolutionGeneration();
+    ResultSetShape shape = shapes.get(key);
+    if (shape == null || shape.getTypeHandlerGeneration() != typeHandlerGeneration || !shape.matches(metaData)) {
+      shape = new ResultSetShape(metaData, ms.getConfiguration().isUseColumnLabel(), typeHandlerGeneration);
+      shapes.put(key, shape);
+    }
+    return shape;
+  }
+
+  /**
+   * Forgets the shapes.
+   */
+  public void clear() {
+    shapes.clear();
+  }
+
+  // the SQL string caches its hash code, so a key costs no more than its allocation
+  private static final class ShapeKey {
+
+    private final String statementId;
+    private final String sql;
+    private final int resultSetIndex;
+    private final int hashCode;
+
+    ShapeKey(String statementId, String sql, int resultSetIndex) {
+      this.statementId = statementId;
+      this.sql = sql;
+      this.resultSetIndex = resultSetIndex;
+      this.hashCode = (statementId.hashCode() * 31 + sql.hashCode()) * 31 + resultSetIndex;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof ShapeKey)) {
+        return false;
+      }
+      final ShapeKey other = (ShapeKey) object;
+      return resultSetIndex == other.resultSetIndex && statementId.equals(other.statementId) && sql.equals(other.sql);
+    }
+  }
+
+}
@@ -16,18 +16,18 @@
 package org.apache.ibatis.executor.resultset;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.ObjectTypeHandler;
@@ -42,36 +42,54 @@ public class ResultSetWrapper {
 
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
-  private final List<String> columnNames = new ArrayList<String>();
-  private final List<String> classNames = new ArrayList<String>();
-  private final List<JdbcType> jdbcTypes = new ArrayList<JdbcType>();
-  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<String, Map<Class<?>, TypeHandler<?>>>();
-  private Map<String, List<String>> mappedColumnNamesMap = new HashMap<String, List<String>>();
-  private Map<String, List<String>> unMappedColumnNamesMap = new HashMap<String, List<String>>();
+  private final ResultSetShape shape;
+  private final List<String> columnNames;
+  private final List<String> classNames;
+  private final List<JdbcType> jdbcTypes;
+  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap;
+  private final Map<String, List<String>> mappedColumnNamesMap;
+  private final Map<String, List<String>> unMappedColumnNamesMap;
+  private final Map<String, int[]> mappingColumnIndexesMap;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
+    this(rs, configuration, new ResultSetShape(rs.getMetaData(), configuration.isUseColumnLabel()));
+  }
+
+  /**
+   * Wraps a result set whose columns are already known, the shape may be shared with other wrappers.
+   */
+  public ResultSetWrapper(ResultSet rs, Configuration configuration, ResultSetShape shape) {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
-    final ResultSetMetaData metaData = rs.getMetaData();
-    final int columnCount = metaData.getColumnCount();
-    for (int i = 1; i <= columnCount; i++) {
-      columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
-      jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
-      classNames.add(metaData.getColumnClassName(i));
-    }
+    this.shape = shape;
+    this.columnNames = shape.getColumnNames();
+    this.classNames = shape.getClassNames();
+    this.jdbcTypes = shape.getJdbcTypes();
+    this.typeHandlerMap = shape.typeHandlerMap;
+    this.mappedColumnNamesMap = shape.mappedColumnNamesMap;
+    this.unMappedColumnNamesMap = shape.unMappedColumnNamesMap;
+    this.mappingColumnIndexesMap = shape.mappingColumnIndexesMap;
   }
 
   public ResultSet getResultSet() {
     return resultSet;
   }
 
+  public ResultSetShape getShape() {
+    return shape;
+  }
+
   public List<String> getColumnNames() {
     return this.columnNames;
   }
 
   public List<String> getClassNames() {
-    return Collections.unmodifiableList(classNames);
+    return classNames;
+  }
+
+  public List<JdbcType> getJdbcTypes() {
+    return jdbcTypes;
   }
 
   public JdbcType getJdbcType(String columnName) {
@@ -96,7 +114,7 @@ public class ResultSetWrapper {
     TypeHandler<?> handler = null;
     Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlerMap.get(columnName);
     if (columnHandlers == null) {
-      columnHandlers = new HashMap<Class<?>, TypeHandler<?>>();
+      columnHandlers = new ConcurrentHashMap<Class<?>, TypeHandler<?>>();
       typeHandlerMap.put(columnName, columnHandlers);
     } else {
       handler = columnHandlers.get(propertyType);
@@ -172,6 +190,42 @@ public class ResultSetWrapper {
     return unMappedColumnNames;
   }
 
+  /**
+   * @return the index of the column with the given label, 0 if there is none
+   */
+  public int getColumnIndex(String columnLabel) {
+    return shape.getColumnIndex(columnLabel);
+  }
+
+  /**
+   * @return the indexes of the columns of the property mappings of the result map, 0 for those without a column
+   */
+  public int[] getPropertyColumnIndexes(ResultMap resultMap, String columnPrefix) {
+    return getColumnIndexes(resultMap.getPropertyResultMappings(), getMapKey(resultMap, columnPrefix) + ":properties", columnPrefix);
+  }
+
+  /**
+   * @return the indexes of the columns of the constructor mappings of the result map, 0 for those without a column
+   */
+  public int[] getConstructorColumnIndexes(ResultMap resultMap, String columnPrefix) {
+    return getColumnIndexes(resultMap.getConstructorResultMappings(), getMapKey(resultMap, columnPrefix) + ":constructor", columnPrefix);
+  }
+
+  private int[] getColumnIndexes(List<ResultMapping> resultMappings, String mapKey, String columnPrefix) {
+    int[] columnIndexes = mappingColumnIndexesMap.get(mapKey);
+    if (columnIndexes == null) {
+      columnIndexes = new int[resultMappings.size()];
+      for (int i = 0; i < columnIndexes.length; i++) {
+        final String column = resultMappings.get(i).getColumn();
+        if (column != null && column.length() > 0) {
+          columnIndexes[i] = shape.getColumnIndex(columnPrefix == null ? column : columnPrefix + column);
+        }
+      }
+      mappingColumnIndexesMap.put(mapKey, columnIndexes);
+    }
+    return columnIndexes;
+  }
+
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
     return resultMap.getId() + ":" + columnPrefix;
   }
@@ -0,0 +1,139 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Identifies the object a row maps to with a nested result map, i.e. its result map, column prefix and the values of
+ * its id columns, and those of the objects it is nested in.
+ * <p>
+ * The key is meant to be small, as one is kept per object of a join: the result map and column prefix are a shared
+ * scope object, the columns are identified by their position and a single whole number value is kept unboxed.
+ * Combining a key with its parent's only links the two.
+ */
+final class RowKey {
+
+  static final RowKey NULL_ROW_KEY = new RowKey(null, null, 0, null);
+
+  // marks a single whole number value, held in number
+  private static final Object NUMBER = new Object();
+
+  private final Object scope;
+  private final Object values;
+  private final long number;
+  private final RowKey parent;
+  private final int hashCode;
+
+  private RowKey(Object scope, Object values, long number, RowKey parent) {
+    this.scope = scope;
+    this.values = values;
+    this.number = number;
+    this.parent = parent;
+    int hash = scope == null ? 0 : scope.hashCode();
+    hash = 31 * hash + (values == NUMBER ? (int) (number ^ (number >>> 32)) : hashCode(values));
+    this.hashCode = parent == null ? hash : 31 * hash + parent.hashCode;
+  }
+
+  /**
+   * @param scope the same object for the keys of a result map and column prefix
+   * @param values the values of the id columns, in the same order for each row, null where a column is null
+   * @return the key, {@link #NULL_ROW_KEY} when all the values are null
+   */
+  static RowKey create(Object scope, List<Object> values) {
+    boolean hasValue = false;
+    for (Object value : values) {
+      if (value != null) {
+        hasValue = true;
+        break;
+      }
+    }
+    if (!hasValue) {
+      return NULL_ROW_KEY;
+    }
+    if (values.size() == 1) {
+      final Object value = values.get(0);
+      if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        return new RowKey(scope, NUMBER, ((Number) value).longValue(), null);
+      }
+      return new RowKey(scope, value, 0, null);
+    }
+    return new RowKey(scope, values.toArray(), 0, null);
+  }
+
+  /**
+   * @return this key within the parent one, {@link #NULL_ROW_KEY} if either is
+   */
+  RowKey combine(RowKey parentKey) {
+    if (this == NULL_ROW_KEY || parentKey == NULL_ROW_KEY) {
+      return NULL_ROW_KEY;
+    }
+    return new RowKey(scope, values, number, parentKey);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof RowKey)) {
+      return false;
+    }
+    final RowKey that = (RowKey) object;
+    if (hashCode != that.hashCode || scope != that.scope || number != that.number) {
+      return false;
+    }
+    if (values == NUMBER || that.values == NUMBER) {
+      if (values != that.values) {
+        return false;
+      }
+    } else if (!valuesEqual(values, that.values)) {
+      return false;
+    }
+    return parent == null ? that.parent == null : parent.equals(that.parent);
+  }
+
+  private static boolean valuesEqual(Object value, Object other) {
+    if (value == other) {
+      return true;
+    } else if (value == null || other == null) {
+      return false;
+    } else if (value instanceof Object[] && other instanceof Object[]) {
+      return Arrays.deepEquals((Object[]) value, (Object[]) other);
+    } else if (value.getClass().isArray()) {
+      return Arrays.deepEquals(new Object[] { value }, new Object[] { other });
+    }
+    return value.equals(other);
+  }
+
+  private static int hashCode(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof Object[]) {
+      return Arrays.deepHashCode((Object[]) value);
+    } else if (value.getClass().isArray()) {
+      return Arrays.deepHashCode(new Object[] { value });
+    }
+    return value.hashCode();
+  }
+
+}
@@ -0,0 +1,80 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Picks the shard from the value of a shard key property of the parameter object: numbers are taken modulo the
+ * shard count, other values by their hash code. A simple parameter (e.g. an Integer) is the key itself and a
+ * collection of keys targets the shards of all its elements. Statements without a key value target every shard, which
+ * {@link ShardingExecutor} only accepts for selects (and for updates when multi shard updates are enabled).
+ */
+public class PropertyShardStrategy implements ShardStrategy {
+
+  private final String shardKeyProperty;
+
+  public PropertyShardStrategy(String shardKeyProperty) {
+    this.shardKeyProperty = shardKeyProperty;
+  }
+
+  @Override
+  public List<Integer> getShards(MappedStatement ms, Object parameterObject, int shardCount) {
+    final Object key = getShardKey(ms.getConfiguration(), parameterObject);
+    if (key == null) {
+      return Collections.emptyList();
+    }
+    if (key instanceof Collection) {
+      final List<Integer> shards = new ArrayList<Integer>();
+      for (Object element : (Collection<?>) key) {
+        if (element == null) {
+          return Collections.emptyList();
+        }
+        final Integer shard = shardOf(element, shardCount);
+        if (!shards.contains(shard)) {
+          shards.add(shard);
+        }
+      }
+      return shards;
+    }
+    return Collections.singletonList(shardOf(key, shardCount));
+  }
+
+  private Object getShardKey(Configuration configuration, Object parameterObject) {
+    if (parameterObject == null) {
+      return null;
+    }
+    if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())
+        || parameterObject instanceof Collection) {
+      return parameterObject;
+    }
+    final MetaObject metaObject = configuration.newMetaObject(parameterObject);
+    return metaObject.hasGetter(shardKeyProperty) ? metaObject.getValue(shardKeyProperty) : null;
+  }
+
+  protected int shardOf(Object key, int shardCount) {
+    final long hash = key instanceof Number ? ((Number) key).longValue() : key.hashCode();
+    return (int) Math.abs(hash % shardCount);
+  }
+
+}
@@ -0,0 +1,280 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.cache.BoundedMap;
+import org.apache.ibatis.dialect.SqlClauses;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.executor.result.ResultProperties;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Merges the rows returned by several shards into one result.
+ * <p>
+ * When the SQL ends with an ORDER BY, the shard results (each already sorted by its database) are merged in that
+ * order, which must only sort on plain columns that can be found in the result objects; an ORDER BY that cannot be
+ * followed (expressions, function calls, unmapped columns) is rejected, as the merged page would be wrong. Results
+ * of unsorted selects are concatenated in shard order. Offset and limit are applied while merging. Comparators are
+ * derived once per statement and SQL text.
+ */
+public class ShardResultMerger {
+
+  // an optionally qualified column name
+  private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)*");
+
+  // dynamic SQL may produce many texts, keep the cache bounded
+  private static final int MAX_CACHED_COMPARATORS = 1024;
+
+  private static final Comparator<Object> UNORDERED = new OrderByComparator(null, new String[0], new boolean[0]);
+
+  private final Configuration configuration;
+  private final BoundedMap<ComparatorKey, Comparator<Object>> comparators = new BoundedMap<ComparatorKey, Comparator<Object>>(MAX_CACHED_COMPARATORS);
+
+  public ShardResultMerger(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  /**
+   * Rows each shard has to return so that the merge can honor the given bounds.
+   */
+  public RowBounds shardRowBounds(RowBounds rowBounds) {
+    if (rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT) {
+      return RowBounds.DEFAULT;
+    }
+    final long rows = (long) rowBounds.getOffset() + rowBounds.getLimit();
+    return new RowBounds(RowBounds.NO_ROW_OFFSET, (int) Math.min(rows, RowBounds.NO_ROW_LIMIT));
+  }
+
+  public <E> List<E> merge(MappedStatement ms, String sql, List<List<E>> shardResults, RowBounds rowBounds) {
+    final Comparator<Object> comparator = getComparator(ms, sql);
+    final int offset = rowBounds.getOffset();
+    final int limit = rowBounds.getLimit();
+    if (comparator == UNORDERED) {
+      final List<E> merged = new ArrayList<E>();
+      for (List<E> shardResult : shardResults) {
+        merged.addAll(shardResult);
+      }
+      final int from = Math.min(offset, merged.size());
+      final int to = (int) Math.min((long) from + limit, merged.size());
+      return from == 0 && to == merged.size() ? merged : new ArrayList<E>(merged.subList(from, to));
+    }
+    return mergeSorted(shardResults, comparator, offset, limit);
+  }
+
+  // k-way merge of the shard results, each already sorted by its database; ties keep shard order
+  private <E> List<E> mergeSorted(List<List<E>> shardResults, final Comparator<Object> comparator, int offset, int limit) {
+    final PriorityQueue<ShardHead<E>> heads = new PriorityQueue<ShardHead<E>>(Math.max(shardResults.size(), 1), new Comparator<ShardHead<E>>() {
+      @Override
+      public int compare(ShardHead<E> head1, ShardHead<E> head2) {
+        final int result = comparator.compare(head1.row, head2.row);
+        return result != 0 ? result : head1.shard - head2.shard;
+      }
+    });
+    int total = 0;
+    for (int i = 0; i < shardResults.size(); i++) {
+      final Iterator<E> rows = shardResults.get(i).iterator();
+      total += shardResults.get(i).size();
+      if (rows.hasNext()) {
+        heads.add(new ShardHead<E>(i, rows));
+      }
+    }
+    final List<E> merged = new ArrayList<E>((int) Math.max(0, Math.min((long) limit, (long) total - offset)));
+    int skipped = 0;
+    while (merged.size() < limit && !heads.isEmpty()) {
+      final ShardHead<E> head = heads.poll();
+      if (skipped < offset) {
+        skipped++;
+      } else {
+        merged.add(head.row);
+      }
+      if (head.next()) {
+        heads.add(head);
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Hands merged rows to a result handler until it stops.
+   */
+  @SuppressWarnings("unchecked")
+  public <E> void handleResults(List<E> list, ResultHandler<?> resultHandler) {
+    final ResultHandler<E> handler = (ResultHandler<E>) resultHandler;
+    final DefaultResultContext<E> resultContext = new DefaultResultContext<E>();
+    for (E resultObject : list) {
+      resultContext.nextResultObject(resultObject);
+      handler.handleResult(resultContext);
+      if (resultContext.isStopped()) {
+        break;
+      }
+    }
+  }
+
+  // threads racing on a new key derive the same comparator
+  private Comparator<Object> getComparator(MappedStatement ms, String sql) {
+    final ComparatorKey key = new ComparatorKey(ms.getId(), sql);
+    Comparator<Object> comparator = comparators.get(key);
+    if (comparator == null) {
+      comparator = buildComparator(ms, sql);
+      comparators.put(key, comparator);
+    }
+    return comparator;
+  }
+
+  private Comparator<Object> buildComparator(MappedStatement ms, String sql) {
+    final String orderBy = SqlClauses.getOrderByItems(sql);
+    if (orderBy == null) {
+      if (SqlClauses.hasOrderBy(sql)) {
+        throw new ExecutorException("Cannot merge the results of '" + ms.getId()
+            + "' in order, its ORDER BY must only list plain columns.");
+      }
+      return UNORDERED;
+    }
+    if (ms.getResultMaps().size() != 1) {
+      throw unsortable(ms, orderBy, "it must map a single result set");
+    }
+    final ResultMap resultMap = ms.getResultMaps().get(0);
+    final String[] items = orderBy.split(",");
+    final String[] properties = new String[items.length];
+    final boolean[] descending = new boolean[items.length];
+    for (int i = 0; i < items.length; i++) {
+      final String[] tokens = items[i].trim().split("\\s+");
+      if (tokens.length == 0 || tokens.length > 2 || (tokens.length == 2 && !isDirection(tokens[1]))
+          || !COLUMN_NAME.matcher(tokens[0]).matches()) {
+        throw unsortable(ms, orderBy, "'" + items[i].trim() + "' is not a plain column");
+      }
+      final String column = tokens[0].substring(tokens[0].lastIndexOf('.') + 1);
+      properties[i] = ResultProperties.findProperty(configuration, resultMap, column);
+      if (properties[i] == null) {
+        throw unsortable(ms, orderBy, "column '" + column + "' is not found in " + resultMap.getType().getName());
+      }
+      descending[i] = tokens.length == 2 && "DESC".equalsIgnoreCase(tokens[1]);
+    }
+    return new OrderByComparator(configuration, properties, descending);
+  }
+
+  private ExecutorException unsortable(MappedStatement ms, String orderBy, String reason) {
+    return new ExecutorException("Cannot merge the results of '" + ms.getId() + "' in the order of '" + orderBy + "', " + reason + ".");
+  }
+
+  private boolean isDirection(String token) {
+    return "ASC".equalsIgnoreCase(token) || "DESC".equalsIgnoreCase(token);
+  }
+
+  // the SQL string caches its hash code, so a key costs no more than its allocation
+  private static final class ComparatorKey {
+
+    private final String statementId;
+    private final String sql;
+    private final int hashCode;
+
+    ComparatorKey(String statementId, String sql) {
+      this.statementId = statementId;
+      this.sql = sql;
+      this.hashCode = statementId.hashCode() * 31 + sql.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof ComparatorKey)) {
+        return false;
+      }
+      final ComparatorKey other = (ComparatorKey) object;
+      return statementId.equals(other.statementId) && sql.equals(other.sql);
+    }
+  }
+
+  private static class ShardHead<E> {
+
+    private final int shard;
+    private final Iterator<E> rows;
+    private E row;
+
+    ShardHead(int shard, Iterator<E> rows) {
+      this.shard = shard;
+      this.rows = rows;
+      this.row = rows.next();
+    }
+
+    boolean next() {
+      if (!rows.hasNext()) {
+        return false;
+      }
+      row = rows.next();
+      return true;
+    }
+  }
+
+  private static class OrderByComparator implements Comparator<Object> {
+
+    private final Configuration configuration;
+    private final String[] properties;
+    private final boolean[] descending;
+
+    OrderByComparator(Configuration configuration, String[] properties, boolean[] descending) {
+      this.configuration = configuration;
+      this.properties = properties;
+      this.descending = descending;
+    }
+
+    @Override
+    public int compare(Object row1, Object row2) {
+      for (int i = 0; i < properties.length; i++) {
+        int result = compareValues(ResultProperties.valueOf(configuration, row1, properties[i]),
+            ResultProperties.valueOf(configuration, row2, properties[i]));
+        if (result != 0) {
+          return descending[i] ? -result : result;
+        }
+      }
+      return 0;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private int compareValues(Object value1, Object value2) {
+      if (value1 == value2) {
+        return 0;
+      } else if (value1 == null) {
+        return -1;
+      } else if (value2 == null) {
+        return 1;
+      } else if (value1 instanceof Comparable) {
+        return ((Comparable) value1).compareTo(value2);
+      }
+      return 0;
+    }
+  }
+
+}
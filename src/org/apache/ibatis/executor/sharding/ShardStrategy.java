@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.util.List;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Chooses the shards a statement has to run on.
+ *
+ * @see ShardingExecutor
+ */
+public interface ShardStrategy {
+
+  /**
+   * @param ms the statement being executed
+   * @param parameterObject its parameter
+   * @param shardCount number of available shards
+   * @return indexes of the target shards, an empty list means every shard
+   */
+  List<Integer> getShards(MappedStatement ms, Object parameterObject, int shardCount);
+
+}
@@ -0,0 +1,201 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Opens sessions backed by a {@link ShardingExecutor} over one environment per shard.
+ * All shards share the configuration (mapped statements, caches, settings) of this factory.
+ */
+public class ShardedSqlSessionFactory implements SqlSessionFactory {
+
+  private final Configuration configuration;
+  private final List<Environment> shards;
+  private final ShardStrategy shardStrategy;
+  private final ExecutorService threadPool;
+  private final ShardResultMerger resultMerger;
+  private final boolean ownsThreadPool;
+
+  private volatile boolean multiShardUpdates;
+  private volatile boolean closed;
+
+  /**
+   * Creates a factory with a fixed pool of daemon threads, one per shard, for scatter-gather queries.
+   * The pool is shut down by {@link #close()}.
+   */
+  public ShardedSqlSessionFactory(Configuration configuration, List<Environment> shards, ShardStrategy shardStrategy) {
+    this(configuration, shards, shardStrategy, Executors.newFixedThreadPool(Math.max(shards.size(), 1), new ShardThreadFactory()), true);
+  }
+
+  /**
+   * Creates a factory running scatter-gather queries on the given pool, which stays owned by the caller.
+   */
+  public ShardedSqlSessionFactory(Configuration configuration, List<Environment> shards, ShardStrategy shardStrategy, ExecutorService threadPool) {
+    this(configuration, shards, shardStrategy, threadPool, false);
+  }
+
+  private ShardedSqlSessionFactory(Configuration configuration, List<Environment> shards, ShardStrategy shardStrategy,
+      ExecutorService threadPool, boolean ownsThreadPool) {
+    if (shards.isEmpty()) {
+      throw new SqlSessionException("At least one shard environment is required.");
+    }
+    this.configuration = configuration;
+    this.shards = Collections.unmodifiableList(new ArrayList<Environment>(shards));
+    this.shardStrategy = shardStrategy;
+    this.threadPool = threadPool;
+    this.resultMerger = new ShardResultMerger(configuration);
+    this.ownsThreadPool = ownsThreadPool;
+  }
+
+  /**
+   * Shuts down the thread pool this factory created; sessions opened afterwards fail.
+   * A pool given to the constructor is left to its owner.
+   */
+  public void close() {
+    closed = true;
+    if (ownsThreadPool) {
+      threadPool.shutdown();
+    }
+  }
+
+  public boolean isMultiShardUpdates() {
+    return multiShardUpdates;
+  }
+
+  /**
+   * Lets updates and deletes of the sessions opened afterwards run on several shards, e.g. when their parameter has
+   * no shard key. Off by default, such statements are then rejected; inserts must always target a single shard.
+   */
+  public void setMultiShardUpdates(boolean multiShardUpdates) {
+    this.multiShardUpdates = multiShardUpdates;
+  }
+
+  @Override
+  public SqlSession openSession() {
+    return openShardedSession(configuration.getDefaultExecutorType(), null, false);
+  }
+
+  @Override
+  public SqlSession openSession(boolean autoCommit) {
+    return openShardedSession(configuration.getDefaultExecutorType(), null, autoCommit);
+  }
+
+  @Override
+  public SqlSession openSession(ExecutorType execType) {
+    return openShardedSession(execType, null, false);
+  }
+
+  @Override
+  public SqlSession openSession(TransactionIsolationLevel level) {
+    return openShardedSession(configuration.getDefaultExecutorType(), level, false);
+  }
+
+  @Override
+  public SqlSession openSession(ExecutorType execType, TransactionIsolationLevel level) {
+    return openShardedSession(execType, level, false);
+  }
+
+  @Override
+  public SqlSession openSession(ExecutorType execType, boolean autoCommit) {
+    return openShardedSession(execType, null, autoCommit);
+  }
+
+  @Override
+  public SqlSession openSession(Connection connection) {
+    throw new SqlSessionException("A sharded session cannot be opened on a single connection.");
+  }
+
+  @Override
+  public SqlSession openSession(ExecutorType execType, Connection connection) {
+    throw new SqlSessionException("A sharded session cannot be opened on a single connection.");
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return configuration;
+  }
+
+  public List<Environment> getShards() {
+    return shards;
+  }
+
+  private SqlSession openShardedSession(ExecutorType execType, TransactionIsolationLevel level, boolean autoCommit) {
+    if (closed) {
+      throw new SqlSessionException("The sharded session factory was closed.");
+    }
+    final List<Transaction> transactions = new ArrayList<Transaction>();
+    try {
+      final List<Executor> executors = new ArrayList<Executor>();
+      for (Environment environment : shards) {
+        final Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), level, autoCommit);
+        transactions.add(tx);
+        executors.add(configuration.newExecutor(tx, execType));
+      }
+      final Executor executor = new ShardingExecutor(configuration, executors, shardStrategy, threadPool, resultMerger, multiShardUpdates);
+      return new DefaultSqlSession(configuration, executor, autoCommit);
+    } catch (Exception e) {
+      closeTransactions(transactions); // may have fetched connections so lets call close()
+      throw ExceptionFactory.wrapException("Error opening session.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  private void closeTransactions(List<Transaction> transactions) {
+    for (Transaction tx : transactions) {
+      try {
+        tx.close();
+      } catch (SQLException ignore) {
+        // Intentionally ignore. Prefer previous error.
+      }
+    }
+  }
+
+  private static class ShardThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, "mybatis-shard-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+}
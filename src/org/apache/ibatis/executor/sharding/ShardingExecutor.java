@@ -0,0 +1,401 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.sharding;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.result.ColumnarResultHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Discriminator;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Executor that spreads the statements of one session over several shards, each with its own executor.
+ * <p>
+ * Statements the {@link ShardStrategy} routes to a single shard are handed to that shard's executor unchanged.
+ * Selects that target several shards are run in parallel on the given thread pool and their results are merged by a
+ * {@link ShardResultMerger}. An insert must target exactly one shard; other updates that target several shards are
+ * rejected unless multi shard updates are enabled, they then run on each shard in turn and return the summed update
+ * count. Commit, rollback and close apply to every shard (there is no two phase commit).
+ * <p>
+ * Results of a scatter-gather select are built on pool threads, their lazy properties could only be loaded from the
+ * configuration's default environment rather than the shard they came from: selects with lazy nested selects must
+ * target a single shard.
+ */
+public class ShardingExecutor implements Executor {
+
+  private final Configuration configuration;
+  private final List<Executor> shards;
+  private final ShardStrategy shardStrategy;
+  private final ExecutorService threadPool;
+  private final ShardResultMerger resultMerger;
+  private final boolean multiShardUpdates;
+
+  private boolean closed;
+
+  public ShardingExecutor(Configuration configuration, List<Executor> shards, ShardStrategy shardStrategy,
+      ExecutorService threadPool, ShardResultMerger resultMerger) {
+    this(configuration, shards, shardStrategy, threadPool, resultMerger, false);
+  }
+
+  /**
+   * @param multiShardUpdates whether updates and deletes may run on several shards, inserts never do
+   */
+  public ShardingExecutor(Configuration configuration, List<Executor> shards, ShardStrategy shardStrategy,
+      ExecutorService threadPool, ShardResultMerger resultMerger, boolean multiShardUpdates) {
+    if (shards.isEmpty()) {
+      throw new ExecutorException("A sharding executor needs at least one shard.");
+    }
+    this.configuration = configuration;
+    this.shards = Collections.unmodifiableList(new ArrayList<Executor>(shards));
+    this.shardStrategy = shardStrategy;
+    this.threadPool = threadPool;
+    this.resultMerger = resultMerger;
+    this.multiShardUpdates = multiShardUpdates;
+  }
+
+  @Override
+  public int update(MappedStatement ms, Object parameter) throws SQLException {
+    int updateCount = 0;
+    for (Executor shard : updateTargetShards(ms, parameter)) {
+      updateCount += shard.update(ms, parameter);
+    }
+    return updateCount;
+  }
+
+  /**
+   * Sends each row to the shards the strategy routes it to, with one JDBC batch per shard.
+   */
+  @Override
+  public long bulkUpdate(MappedStatement ms, Iterator<?> parameters, int batchSize) throws SQLException {
+    // share the transactions of the shards, so they must not be closed
+    final Executor[] batchExecutors = new Executor[shards.size()];
+    final int[] batched = new int[shards.size()];
+    try {
+      long rows = 0;
+      while (parameters.hasNext()) {
+        final Object parameter = parameters.next();
+        for (Executor shard : updateTargetShards(ms, parameter)) {
+          final int index = shards.indexOf(shard);
+          if (batchExecutors[index] == null) {
+            batchExecutors[index] = configuration.newExecutor(shard.getTransaction(), ExecutorType.BATCH);
+          }
+          batchExecutors[index].update(ms, parameter);
+          if (++batched[index] == batchSize) {
+            rows += BatchResult.countRows(batchExecutors[index].flushStatements());
+            batched[index] = 0;
+          }
+        }
+      }
+      for (Executor batchExecutor : batchExecutors) {
+        if (batchExecutor != null) {
+          rows += BatchResult.countRows(batchExecutor.flushStatements());
+          batchExecutor.commit(false);
+        }
+      }
+      return rows;
+    } catch (SQLException e) {
+      rollback(batchExecutors);
+      throw e;
+    } catch (RuntimeException e) {
+      rollback(batchExecutors);
+      throw e;
+    }
+  }
+
+  // discards the pending batches, the shard transactions are left to the session
+  private void rollback(Executor[] batchExecutors) throws SQLException {
+    for (Executor batchExecutor : batchExecutors) {
+      if (batchExecutor != null) {
+        batchExecutor.rollback(false);
+      }
+    }
+  }
+
+  @Override
+  public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
+    return query(ms, parameter, rowBounds, resultHandler, ms.getBoundSql(parameter));
+  }
+
+  @Override
+  public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, CacheKey key, BoundSql boundSql) throws SQLException {
+    return query(ms, parameter, rowBounds, resultHandler, boundSql);
+  }
+
+  private <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler<?> resultHandler, BoundSql boundSql) throws SQLException {
+    final List<Executor> targets = targetShards(ms, parameter);
+    if (targets.size() == 1) {
+      final Executor shard = targets.get(0);
+      return shard.<E> query(ms, parameter, rowBounds, resultHandler, shardCacheKey(shard, ms, parameter, rowBounds, boundSql), boundSql);
+    }
+    if (rowBounds instanceof Seek) {
+      throw new ExecutorException("Keyset pagination must target a single shard, but '" + ms.getId() + "' targets " + targets.size() + ".");
+    }
+    if (resultHandler instanceof ColumnarResultHandler) {
+      throw new ExecutorException("A ColumnarResultHandler must target a single shard, but '" + ms.getId() + "' targets " + targets.size() + ".");
+    }
+    for (ResultMap resultMap : ms.getResultMaps()) {
+      if (hasLazyNestedQueries(resultMap, new HashSet<String>())) {
+        throw new ExecutorException("Selects with lazy nested selects must target a single shard, but '" + ms.getId()
+            + "' targets " + targets.size() + ". Load its nested selects eagerly (fetchType=\"eager\").");
+      }
+    }
+    final List<E> list = resultMerger.merge(ms, boundSql.getSql(), this.<E> scatter(targets, ms, parameter, rowBounds, boundSql), rowBounds);
+    if (resultHandler == null) {
+      return list;
+    }
+    resultMerger.handleResults(list, resultHandler);
+    return Collections.emptyList();
+  }
+
+  // including the nested result maps and those chosen by discriminators
+  private boolean hasLazyNestedQueries(ResultMap resultMap, Set<String> visited) {
+    if (!visited.add(resultMap.getId())) {
+      return false;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (resultMapping.getNestedQueryId() != null && resultMapping.isLazy()) {
+        return true;
+      }
+      final String nestedResultMapId = resultMapping.getNestedResultMapId();
+      if (nestedResultMapId != null && configuration.hasResultMap(nestedResultMapId)
+          && hasLazyNestedQueries(configuration.getResultMap(nestedResultMapId), visited)) {
+        return true;
+      }
+    }
+    final Discriminator discriminator = resultMap.getDiscriminator();
+    if (discriminator != null) {
+      for (String discriminatedMapId : discriminator.getDiscriminatorMap().values()) {
+        if (configuration.hasResultMap(discriminatedMapId)
+            && hasLazyNestedQueries(configuration.getResultMap(discriminatedMapId), visited)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private <E> List<List<E>> scatter(List<Executor> targets, final MappedStatement ms, final Object parameter, RowBounds rowBounds, final BoundSql boundSql) throws SQLException {
+    final RowBounds shardRowBounds = resultMerger.shardRowBounds(rowBounds);
+    final List<Future<List<E>>> futures = new ArrayList<Future<List<E>>>(targets.size());
+    for (final Executor shard : targets) {
+      final CacheKey key = shardCacheKey(shard, ms, parameter, shardRowBounds, boundSql);
+      futures.add(threadPool.submit(new Callable<List<E>>() {
+        @Override
+        public List<E> call() throws SQLException {
+          try {
+            return shard.<E> query(ms, parameter, shardRowBounds, NO_RESULT_HANDLER, key, boundSql);
+          } finally {
+            ErrorContext.instance().reset();
+          }
+        }
+      }));
+    }
+    final List<List<E>> results = new ArrayList<List<E>>(targets.size());
+    try {
+      for (Future<List<E>> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for the shards to answer.", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error querying the shards.  Cause: " + cause, cause);
+    } finally {
+      for (Future<List<E>> future : futures) {
+        future.cancel(true);
+      }
+    }
+    return results;
+  }
+
+  // shards may share a second level cache, so their keys must differ
+  private CacheKey shardCacheKey(Executor shard, MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) {
+    final CacheKey key = shard.createCacheKey(ms, parameter, rowBounds, boundSql);
+    key.update(shards.indexOf(shard));
+    return key;
+  }
+
+  @Override
+  public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
+    final List<Executor> targets = targetShards(ms, parameter);
+    if (targets.size() != 1) {
+      throw new ExecutorException("Cursor queries must target a single shard, but '" + ms.getId() + "' targets " + targets.size() + ".");
+    }
+    return targets.get(0).queryCursor(ms, parameter, rowBounds);
+  }
+
+  private List<Executor> targetShards(MappedStatement ms, Object parameter) {
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    final List<Integer> indexes = shardStrategy.getShards(ms, parameter, shards.size());
+    if (indexes == null || indexes.isEmpty()) {
+      return shards;
+    }
+    final List<Executor> targets = new ArrayList<Executor>(indexes.size());
+    for (Integer index : indexes) {
+      if (index < 0 || index >= shards.size()) {
+        throw new ExecutorException("Shard strategy returned shard " + index + " for '" + ms.getId()
+            + "' but there are only " + shards.size() + " shards.");
+      }
+      targets.add(shards.get(index));
+    }
+    return targets;
+  }
+
+  // a row without shard key would be inserted on every shard
+  private List<Executor> updateTargetShards(MappedStatement ms, Object parameter) {
+    final List<Executor> targets = targetShards(ms, parameter);
+    if (targets.size() > 1) {
+      if (ms.getSqlCommandType() == SqlCommandType.INSERT) {
+        throw new ExecutorException("An insert must target a single shard, but '" + ms.getId() + "' targets " + targets.size()
+            + ". Check that its parameter holds the shard key.");
+      }
+      if (!multiShardUpdates) {
+        throw new ExecutorException("Updates must target a single shard unless multi shard updates are enabled, but '"
+            + ms.getId() + "' targets " + targets.size() + ".");
+      }
+    }
+    return targets;
+  }
+
+  @Override
+  public List<BatchResult> flushStatements() throws SQLException {
+    final List<BatchResult> results = new ArrayList<BatchResult>();
+    for (Executor shard : shards) {
+      results.addAll(shard.flushStatements());
+    }
+    return results;
+  }
+
+  @Override
+  public void commit(boolean required) throws SQLException {
+    for (Executor shard : shards) {
+      shard.commit(required);
+    }
+  }
+
+  @Override
+  public void rollback(boolean required) throws SQLException {
+    SQLException failure = null;
+    for (Executor shard : shards) {
+      try {
+        shard.rollback(required);
+      } catch (SQLException e) {
+        // keep rolling back the other shards
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public CacheKey createCacheKey(MappedStatement ms, Object parameterObject, RowBounds rowBounds, BoundSql boundSql) {
+    return shards.get(0).createCacheKey(ms, parameterObject, rowBounds, boundSql);
+  }
+
+  @Override
+  public boolean isCached(MappedStatement ms, CacheKey key) {
+    return false;
+  }
+
+  @Override
+  public void clearLocalCache() {
+    for (Executor shard : shards) {
+      shard.clearLocalCache();
+    }
+  }
+
+  @Override
+  public void deferLoad(MappedStatement ms, MetaObject resultObject, String property, CacheKey key, Class<?> targetType) {
+    throw new ExecutorException("Deferred loading is not supported across shards.");
+  }
+
+  /**
+   * Returns the transaction of the first shard, the others are only reachable through their executors.
+   */
+  @Override
+  public Transaction getTransaction() {
+    return shards.get(0).getTransaction();
+  }
+
+  @Override
+  public void close(boolean forceRollback) {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (Executor shard : shards) {
+      shard.close(forceRollback);
+    }
+  }
+
+  @Override
+  public boolean isClosed() {
+    return closed;
+  }
+
+  @Override
+  public void setExecutorWrapper(Executor executor) {
+    // shard executors keep their own wrappers
+  }
+
+  public List<Executor> getShards() {
+    return shards;
+  }
+
+  public Configuration getConfiguration() {
+    return configuration;
+  }
+
+}
@@ -19,6 +19,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+import org.apache.ibatis.dialect.KeysetPagination;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
@@ -27,10 +28,13 @@ import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
@@ -47,6 +51,8 @@ public abstract class BaseStatementHandler implements StatementHandler {
   protected final Executor executor;
   protected final MappedStatement mappedStatement;
   protected final RowBounds rowBounds;
+  // rows are handed to a result handler instead of being collected
+  private final boolean streamingResults;
 
   protected BoundSql boundSql;
 
@@ -54,7 +60,6 @@ public abstract class BaseStatementHandler implements StatementHandler {
     this.configuration = mappedStatement.getConfiguration();
     this.executor = executor;
     this.mappedStatement = mappedStatement;
-    this.rowBounds = rowBounds;
 
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.objectFactory = configuration.getObjectFactory();
@@ -62,14 +67,45 @@ public abstract class BaseStatementHandler implements StatementHandler {
     if (boundSql == null) { // issue #435, get the key before calculating the statement
       generateKeys(parameterObject);
       boundSql = mappedStatement.getBoundSql(parameterObject);
+      if (boundSql.isChunked()) {
+        // selects run their chunks in the executor
+        throw new ExecutorException("Only selects can use a foreach split in chunks, but '" + mappedStatement.getId() + "' is a " + mappedStatement.getSqlCommandType() + ".");
+      }
+    }
+
+    if (rowBounds instanceof Seek && mappedStatement.getSqlCommandType() == SqlCommandType.SELECT) {
+      boundSql = KeysetPagination.rewrite(mappedStatement, boundSql, (Seek) rowBounds);
+      if (KeysetPagination.isLimitedBySql(mappedStatement)) {
+        rowBounds = RowBounds.DEFAULT;
+      }
+    } else if (canPushDownRowBounds(rowBounds)) {
+      final String limitSql = configuration.getDialect().getLimitSql(boundSql.getSql(), rowBounds.getOffset(), rowBounds.getLimit());
+      if (limitSql != null) {
+        // the database skips and limits the rows, the result set handler reads them all
+        boundSql = boundSql.withSql(limitSql);
+        rowBounds = RowBounds.DEFAULT;
+      }
     }
 
+    this.rowBounds = rowBounds;
     this.boundSql = boundSql;
+    this.streamingResults = resultHandler != null;
 
     this.parameterHandler = configuration.newParameterHandler(mappedStatement, parameterObject, boundSql);
     this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, rowBounds, parameterHandler, resultHandler, boundSql);
   }
 
+  private boolean canPushDownRowBounds(RowBounds rowBounds) {
+    return configuration.isPushDownRowBounds()
+        && rowBounds != null
+        && (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT)
+        && mappedStatement.getSqlCommandType() == SqlCommandType.SELECT
+        && mappedStatement.getStatementType() != StatementType.CALLABLE
+        // bounds of nested result maps count objects, not rows
+        && !mappedStatement.hasNestedResultMaps()
+        && configuration.getDialect() != null;
+  }
+
   @Override
   public BoundSql getBoundSql() {
     return boundSql;
@@ -119,6 +155,13 @@ public abstract class BaseStatementHandler implements StatementHandler {
       stmt.setFetchSize(fetchSize);
       return;
     }
+    if (configuration.isAdaptiveFetchSize()) {
+      fetchSize = configuration.getFetchSizeAdvisor().getFetchSize(mappedStatement, rowBounds, streamingResults, configuration.getFetchSizeMemoryBudget());
+      if (fetchSize != null) {
+        stmt.setFetchSize(fetchSize);
+        return;
+      }
+    }
     Integer defaultFetchSize = configuration.getDefaultFetchSize();
     if (defaultFetchSize != null) {
       stmt.setFetchSize(defaultFetchSize);
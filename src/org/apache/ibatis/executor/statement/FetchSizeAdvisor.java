@@ -0,0 +1,155 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Chooses the JDBC fetch size of selects from the rows their previous executions returned.
+ * <p>
+ * For each statement it keeps a moving average of the rows read and an estimate of the memory a row takes in the
+ * driver's buffers, based on the JDBC types of its columns. The fetch size covers the expected rows in a single round
+ * trip without buffering more than the memory budget. Streaming selects (cursors and result handlers) do not keep
+ * their rows, so they get the largest chunk the budget allows.
+ * <p>
+ * The statistics are approximate: concurrent executions of a statement may overwrite each other's update.
+ */
+public class FetchSizeAdvisor {
+
+  public static final int DEFAULT_MEMORY_BUDGET = 4 * 1024 * 1024;
+
+  private static final int MIN_FETCH_SIZE = 10;
+  private static final int MAX_FETCH_SIZE = 10000;
+  // weight of the last execution in the moving average
+  private static final double LAST_EXECUTION_WEIGHT = 0.25;
+  private static final int ROW_OVERHEAD_BYTES = 16;
+
+  private final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<String, Statistics>();
+
+  /**
+   * @return the fetch size for the next execution of the statement, null when it has not been executed yet
+   */
+  public Integer getFetchSize(MappedStatement ms, RowBounds rowBounds, boolean streaming, int memoryBudget) {
+    final Statistics stats = statistics.get(ms.getId());
+    if (stats == null) {
+      return null;
+    }
+    long fetchSize = maxRows(stats.rowBytes, memoryBudget);
+    if (!streaming) {
+      // one more row than expected lets the driver see the end of the results without another round trip
+      fetchSize = Math.min(fetchSize, Math.max(MIN_FETCH_SIZE, (long) Math.ceil(stats.averageRows * 1.25) + 1));
+    }
+    if (rowBounds != null && rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT) {
+      fetchSize = Math.min(fetchSize, (long) rowBounds.getOffset() + rowBounds.getLimit() + 1);
+    }
+    return (int) fetchSize;
+  }
+
+  /**
+   * @return the fetch size of a cursor returning columns of the given types
+   */
+  public int getCursorFetchSize(List<JdbcType> columnTypes, int memoryBudget) {
+    return maxRows(estimateRowBytes(columnTypes), memoryBudget);
+  }
+
+  public void record(MappedStatement ms, List<JdbcType> columnTypes, int rows) {
+    final Statistics stats = statistics.get(ms.getId());
+    if (stats == null) {
+      statistics.putIfAbsent(ms.getId(), new Statistics(rows, estimateRowBytes(columnTypes)));
+    } else {
+      stats.averageRows += (rows - stats.averageRows) * LAST_EXECUTION_WEIGHT;
+    }
+  }
+
+  public void clear() {
+    statistics.clear();
+  }
+
+  private static int maxRows(int rowBytes, int memoryBudget) {
+    return Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, memoryBudget / rowBytes));
+  }
+
+  static int estimateRowBytes(List<JdbcType> columnTypes) {
+    int bytes = ROW_OVERHEAD_BYTES;
+    for (JdbcType jdbcType : columnTypes) {
+      bytes += estimateColumnBytes(jdbcType);
+    }
+    return bytes;
+  }
+
+  private static int estimateColumnBytes(JdbcType jdbcType) {
+    if (jdbcType == null) {
+      return 64;
+    }
+    switch (jdbcType) {
+      case BIT:
+      case BOOLEAN:
+      case TINYINT:
+      case SMALLINT:
+      case INTEGER:
+      case REAL:
+        return 16;
+      case BIGINT:
+      case FLOAT:
+      case DOUBLE:
+        return 24;
+      case NUMERIC:
+      case DECIMAL:
+      case DATE:
+      case TIME:
+      case TIMESTAMP:
+      case DATETIMEOFFSET:
+      case CHAR:
+      case NCHAR:
+      case ROWID:
+        return 32;
+      case BINARY:
+      case VARBINARY:
+      case LONGVARCHAR:
+      case LONGNVARCHAR:
+      case ARRAY:
+      case STRUCT:
+        return 256;
+      case LONGVARBINARY:
+      case BLOB:
+      case CLOB:
+      case NCLOB:
+      case SQLXML:
+        // drivers often prefetch (part of) the content of large objects
+        return 1024;
+      default:
+        return 64;
+    }
+  }
+
+  private static class Statistics {
+
+    private volatile double averageRows;
+    private final int rowBytes;
+
+    Statistics(int rows, int rowBytes) {
+      this.averageRows = rows;
+      this.rowBytes = rowBytes;
+    }
+  }
+
+}
@@ -15,6 +15,8 @@
  */
 package org.apache.ibatis.mapping;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +42,7 @@ public class BoundSql {
   private Object parameterObject;
   private Map<String, Object> additionalParameters;
   private MetaObject metaParameters;
+  private List<BoundSql> chunks;
 
   public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Object parameterObject) {
     this.sql = sql;
@@ -49,6 +52,53 @@ public class BoundSql {
     this.metaParameters = configuration.newMetaObject(additionalParameters);
   }
 
+  private BoundSql(String sql, List<ParameterMapping> parameterMappings, BoundSql source) {
+    this.sql = sql;
+    this.parameterMappings = parameterMappings;
+    this.parameterObject = source.parameterObject;
+    this.additionalParameters = source.additionalParameters;
+    this.metaParameters = source.metaParameters;
+  }
+
+  /**
+   * Returns a BoundSql running another SQL text with the same parameters (e.g. the SQL rewritten by a dialect).
+   * The chunks of a split foreach are not carried over, each has a SQL text of its own: rewrite them and
+   * {@link #addChunk(BoundSql) add} them to the result.
+   */
+  public BoundSql withSql(String sql) {
+    return new BoundSql(sql, parameterMappings, this);
+  }
+
+  /**
+   * Returns a BoundSql running another SQL text with other parameter mappings but the same parameter object and
+   * additional parameters.
+   */
+  public BoundSql withSql(String sql, List<ParameterMapping> parameterMappings) {
+    return new BoundSql(sql, parameterMappings, this);
+  }
+
+  /**
+   * Adds the SQL of another chunk of a foreach collection that was split; the statement runs once per chunk.
+   */
+  public void addChunk(BoundSql chunk) {
+    if (chunks == null) {
+      chunks = new ArrayList<BoundSql>();
+      chunks.add(this);
+    }
+    chunks.add(chunk);
+  }
+
+  public boolean isChunked() {
+    return chunks != null;
+  }
+
+  /**
+   * @return the bound SQL of each chunk starting with this one, or just this one when nothing was split
+   */
+  public List<BoundSql> getChunks() {
+    return chunks != null ? Collections.unmodifiableList(chunks) : Collections.singletonList(this);
+  }
+
   public String getSql() {
     return sql;
   }
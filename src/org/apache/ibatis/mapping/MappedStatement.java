@@ -47,6 +47,7 @@ public final class MappedStatement {
   private boolean flushCacheRequired;
   private boolean useCache;
   private boolean resultOrdered;
+  private boolean coalesce;
   private SqlCommandType sqlCommandType;
   private KeyGenerator keyGenerator;
   private String[] keyProperties;
@@ -143,6 +144,11 @@ public final class MappedStatement {
       return this;
     }
 
+    public Builder coalesce(boolean coalesce) {
+      mappedStatement.coalesce = coalesce;
+      return this;
+    }
+
     public Builder keyGenerator(KeyGenerator keyGenerator) {
       mappedStatement.keyGenerator = keyGenerator;
       return this;
@@ -258,6 +264,15 @@ public final class MappedStatement {
     return resultOrdered;
   }
 
+  /**
+   * Whether concurrent executions of this select with the same cache key may share one database query.
+   *
+   * @see org.apache.ibatis.executor.QueryCoalescer
+   */
+  public boolean isCoalesce() {
+    return coalesce;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -292,7 +307,12 @@ public final class MappedStatement {
     BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     if (parameterMappings == null || parameterMappings.isEmpty()) {
+      final List<BoundSql> chunks = boundSql.getChunks();
       boundSql = new BoundSql(configuration, boundSql.getSql(), parameterMap.getParameterMappings(), parameterObject);
+      // the chunks of a split foreach share the SQL of the first, so none of them has inline parameters either
+      for (int i = 1; i < chunks.size(); i++) {
+        boundSql.addChunk(new BoundSql(configuration, chunks.get(i).getSql(), parameterMap.getParameterMappings(), parameterObject));
+      }
     }
 
     // check for nested result maps in parameter mappings (issue #30)
@@ -38,6 +38,8 @@ public class ResultMapping {
   private TypeHandler<?> typeHandler;
   private String nestedResultMapId;
   private String nestedQueryId;
+  private String batchQueryId;
+  private String batchKey;
   private Set<String> notNullColumns;
   private String columnPrefix;
   private List<ResultFlag> flags;
@@ -92,6 +94,16 @@ public class ResultMapping {
       return this;
     }
 
+    public Builder batchQueryId(String batchQueryId) {
+      resultMapping.batchQueryId = batchQueryId;
+      return this;
+    }
+
+    public Builder batchKey(String batchKey) {
+      resultMapping.batchKey = batchKey;
+      return this;
+    }
+
     public Builder resultSet(String resultSet) {
       resultMapping.resultSet = resultSet;
       return this;
@@ -154,6 +166,14 @@ public class ResultMapping {
       if (resultMapping.nestedResultMapId == null && resultMapping.column == null && resultMapping.composites.isEmpty()) {
         throw new IllegalStateException("Mapping is missing column attribute for property " + resultMapping.property);
       }
+      if (resultMapping.batchQueryId != null) {
+        if (resultMapping.nestedQueryId == null) {
+          throw new IllegalStateException("Cannot define batchSelect without select in property " + resultMapping.property);
+        }
+        if (resultMapping.batchKey == null) {
+          throw new IllegalStateException("Mapping is missing batchKey attribute for batchSelect in property " + resultMapping.property);
+        }
+      }
       if (resultMapping.getResultSet() != null) {
         int numColumns = 0;
         if (resultMapping.column != null) {
@@ -211,6 +231,14 @@ public class ResultMapping {
     return nestedQueryId;
   }
 
+  public String getBatchQueryId() {
+    return batchQueryId;
+  }
+
+  public String getBatchKey() {
+    return batchKey;
+  }
+
   public Set<String> getNotNullColumns() {
     return notNullColumns;
   }
@@ -291,6 +319,8 @@ public class ResultMapping {
     //sb.append(", typeHandler=").append(typeHandler); // typeHandler also doesn't have a useful .toString()
     sb.append(", nestedResultMapId='").append(nestedResultMapId).append('\'');
     sb.append(", nestedQueryId='").append(nestedQueryId).append('\'');
+    sb.append(", batchQueryId='").append(batchQueryId).append('\'');
+    sb.append(", batchKey='").append(batchKey).append('\'');
     sb.append(", notNullColumns=").append(notNullColumns);
     sb.append(", columnPrefix='").append(columnPrefix).append('\'');
     sb.append(", flags=").append(flags);
@@ -0,0 +1,273 @@
+/**
+ *    Copyright 2009-2015 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.LoaderClassPath;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * A single layer running all the interceptors of a chain, used instead of one {@link Plugin} proxy per interceptor
+ * when the chain is compiled.
+ * <p>
+ * The {@link Dispatch} of a target class is computed once: the interfaces to implement and, for each intercepted
+ * method, the interceptors to run (the last registered first, as with nested plugins). When the interfaces are public
+ * a {@link GeneratedPlugin} subclass is generated with Javassist, whose other methods call the target directly;
+ * otherwise a dynamic proxy invokes them by reflection. Invocations expose the real target to every interceptor.
+ */
+public class CompiledPlugin implements InvocationHandler {
+
+  private static final AtomicInteger classCount = new AtomicInteger();
+
+  private final Object target;
+  private final Dispatch dispatch;
+
+  private CompiledPlugin(Object target, Dispatch dispatch) {
+    this.target = target;
+    this.dispatch = dispatch;
+  }
+
+  public static Object wrap(Object target, Dispatch dispatch) {
+    if (dispatch.proxyInterfaces != null) {
+      // the proxy class of a non public interface is not public either
+      return Proxy.newProxyInstance(target.getClass().getClassLoader(), dispatch.proxyInterfaces, new CompiledPlugin(target, dispatch));
+    }
+    if (dispatch.constructor == null) {
+      return target;
+    }
+    try {
+      return dispatch.constructor.newInstance(target, dispatch);
+    } catch (Exception e) {
+      throw new PluginException("Could not create the plugin proxy of " + target.getClass().getName() + ". Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    try {
+      final Interceptor[] interceptors = dispatch.interceptors.get(method);
+      if (interceptors == null) {
+        return method.invoke(target, args);
+      }
+      return interceptors[0].intercept(new ChainedInvocation(target, method, args, interceptors, 0));
+    } catch (Exception e) {
+      throw ExceptionUtil.unwrapThrowable(e);
+    }
+  }
+
+  /**
+   * Compiles the dispatch of a target class for the given interceptors and their signature maps.
+   */
+  public static Dispatch compile(Class<?> type, List<Interceptor> interceptors, Map<Interceptor, Map<Class<?>, Set<Method>>> signatureMaps) {
+    final Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
+    for (Interceptor interceptor : interceptors) {
+      for (Class<?> c : Plugin.getAllInterfaces(type, signatureMaps.get(interceptor))) {
+        interfaces.add(c);
+      }
+    }
+    final Map<Method, Interceptor[]> chains = new HashMap<Method, Interceptor[]>();
+    for (Class<?> c : interfaces) {
+      for (Method method : c.getMethods()) {
+        final List<Interceptor> chain = new ArrayList<Interceptor>();
+        for (int i = interceptors.size() - 1; i >= 0; i--) {
+          final Set<Method> methods = signatureMaps.get(interceptors.get(i)).get(method.getDeclaringClass());
+          if (methods != null && methods.contains(method)) {
+            chain.add(interceptors.get(i));
+          }
+        }
+        if (!chain.isEmpty()) {
+          chains.put(method, chain.toArray(new Interceptor[chain.size()]));
+        }
+      }
+    }
+    final Dispatch dispatch = new Dispatch(chains);
+    if (interfaces.isEmpty()) {
+      return dispatch;
+    }
+    if (!canGenerate(interfaces)) {
+      dispatch.proxyInterfaces = interfaces.toArray(new Class<?>[interfaces.size()]);
+      return dispatch;
+    }
+    try {
+      dispatch.constructor = dispatch.generate(type, interfaces).getConstructor(Object.class, Dispatch.class);
+    } catch (Exception e) {
+      throw new PluginException("Could not create the plugin proxy class of " + type.getName() + ". Cause: " + e, e);
+    }
+    return dispatch;
+  }
+
+  // only public interfaces can be implemented by a class of another class loader
+  private static boolean canGenerate(Set<Class<?>> interfaces) {
+    for (Class<?> c : interfaces) {
+      if (!Modifier.isPublic(c.getModifiers())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public static class Dispatch {
+
+    private final Map<Method, Interceptor[]> interceptors;
+    // the constructor of the generated class, or else the interfaces of a dynamic proxy
+    private Constructor<?> constructor;
+    private Class<?>[] proxyInterfaces;
+    // the intercepted methods of a generated class and their interceptors, by index
+    private Method[] methods;
+    private Interceptor[][] methodInterceptors;
+
+    private Dispatch(Map<Method, Interceptor[]> interceptors) {
+      this.interceptors = interceptors;
+    }
+
+    Object intercept(Object target, int index, Object[] args) throws Throwable {
+      final Method method = methods[index];
+      try {
+        return methodInterceptors[index][0].intercept(new ChainedInvocation(target, method, args, methodInterceptors[index], 0));
+      } catch (Exception e) {
+        final Throwable cause = ExceptionUtil.unwrapThrowable(e);
+        if (cause instanceof RuntimeException || isDeclared(method, cause)) {
+          throw cause;
+        }
+        // as a dynamic proxy would
+        throw new UndeclaredThrowableException(cause);
+      }
+    }
+
+    private static boolean isDeclared(Method method, Throwable t) {
+      for (Class<?> exceptionType : method.getExceptionTypes()) {
+        if (exceptionType.isInstance(t)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private Class<?> generate(Class<?> type, Set<Class<?>> interfaces) throws Exception {
+      final ClassPool pool = new ClassPool(true);
+      pool.appendClassPath(new LoaderClassPath(type.getClassLoader()));
+      pool.appendClassPath(new ClassClassPath(GeneratedPlugin.class));
+      final CtClass ctClass = pool.makeClass(type.getName() + "$$CompiledPlugin" + classCount.incrementAndGet());
+      ctClass.setSuperclass(pool.get(GeneratedPlugin.class.getName()));
+      ctClass.addConstructor(CtNewConstructor.make(
+          new CtClass[] { pool.get(Object.class.getName()), pool.get(Dispatch.class.getName()) },
+          new CtClass[0], "{ super($1, $2); }", ctClass));
+      final List<Method> intercepted = new ArrayList<Method>();
+      final Set<String> signatures = new HashSet<String>();
+      for (Class<?> c : interfaces) {
+        ctClass.addInterface(pool.get(c.getName()));
+        for (Method method : c.getMethods()) {
+          if (Modifier.isStatic(method.getModifiers())
+              || !signatures.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+            continue;
+          }
+          final boolean isVoid = void.class.equals(method.getReturnType());
+          final String body;
+          if (interceptors.containsKey(method)) {
+            body = (isVoid ? "{ " : "{ return ($r) ") + "intercept(" + intercepted.size() + ", $args); }";
+            intercepted.add(method);
+          } else {
+            body = (isVoid ? "{ " : "{ return ") + "((" + c.getName() + ") target)." + method.getName() + "($$); }";
+          }
+          final Class<?>[] parameterTypes = method.getParameterTypes();
+          final CtClass[] ctParameterTypes = new CtClass[parameterTypes.length];
+          for (int i = 0; i < parameterTypes.length; i++) {
+            ctParameterTypes[i] = pool.get(typeName(parameterTypes[i]));
+          }
+          final CtMethod ctMethod = new CtMethod(pool.get(typeName(method.getReturnType())), method.getName(), ctParameterTypes, ctClass);
+          ctMethod.setBody(body);
+          ctClass.addMethod(ctMethod);
+        }
+      }
+      methods = intercepted.toArray(new Method[intercepted.size()]);
+      methodInterceptors = new Interceptor[methods.length][];
+      for (int i = 0; i < methods.length; i++) {
+        methodInterceptors[i] = interceptors.get(methods[i]);
+      }
+      try {
+        return new GeneratedClassLoader(type.getClassLoader()).define(ctClass.getName(), ctClass.toBytecode());
+      } finally {
+        ctClass.detach();
+      }
+    }
+
+    private static String typeName(Class<?> type) {
+      return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+    }
+  }
+
+  private static class GeneratedClassLoader extends ClassLoader {
+
+    GeneratedClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> define(String name, byte[] bytecode) {
+      return defineClass(name, bytecode, 0, bytecode.length);
+    }
+  }
+
+  /**
+   * Proceeds with the next interceptor of the chain, then with the target.
+   */
+  private static class ChainedInvocation extends Invocation {
+
+    private final Interceptor[] interceptors;
+    private final int index;
+
+    ChainedInvocation(Object target, Method method, Object[] args, Interceptor[] interceptors, int index) {
+      super(target, method, args);
+      this.interceptors = interceptors;
+      this.index = index;
+    }
+
+    @Override
+    public Object proceed() throws InvocationTargetException, IllegalAccessException {
+      if (index + 1 == interceptors.length) {
+        return super.proceed();
+      }
+      try {
+        return interceptors[index + 1].intercept(new ChainedInvocation(getTarget(), getMethod(), getArgs(), interceptors, index + 1));
+      } catch (Throwable t) {
+        // as if the next interceptor was reached through a proxy
+        throw new InvocationTargetException(ExceptionUtil.unwrapThrowable(t));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.plugin;
+
+/**
+ * Superclass of the classes a {@link CompiledPlugin} generates for a target class. Methods that are not intercepted
+ * call the target directly, intercepted ones call {@link #intercept(int, Object[])} with their index.
+ */
+public abstract class GeneratedPlugin {
+
+  protected final Object target;
+  private final CompiledPlugin.Dispatch dispatch;
+
+  protected GeneratedPlugin(Object target, CompiledPlugin.Dispatch dispatch) {
+    this.target = target;
+    this.dispatch = dispatch;
+  }
+
+  protected final Object intercept(int method, Object[] args) throws Throwable {
+    return dispatch.intercept(target, method, args);
+  }
+
+  // as a dynamic proxy would, hand the methods of Object to the target
+
+  @Override
+  public boolean equals(Object obj) {
+    return target.equals(obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return target.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return target.toString();
+  }
+
+}
@@ -15,9 +15,13 @@
  */
 package org.apache.ibatis.plugin;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Clinton Begin
@@ -25,20 +29,54 @@ import java.util.List;
 public class InterceptorChain {
 
   private final List<Interceptor> interceptors = new ArrayList<Interceptor>();
+  private boolean compiled;
+  private final Map<Interceptor, Map<Class<?>, Set<Method>>> signatureMaps = new ConcurrentHashMap<Interceptor, Map<Class<?>, Set<Method>>>();
+  private final Map<Class<?>, CompiledPlugin.Dispatch> dispatches = new ConcurrentHashMap<Class<?>, CompiledPlugin.Dispatch>();
 
   public Object pluginAll(Object target) {
+    if (compiled && !interceptors.isEmpty()) {
+      return CompiledPlugin.wrap(target, getDispatch(target.getClass()));
+    }
     for (Interceptor interceptor : interceptors) {
       target = interceptor.plugin(target);
     }
     return target;
   }
 
+  private CompiledPlugin.Dispatch getDispatch(Class<?> type) {
+    CompiledPlugin.Dispatch dispatch = dispatches.get(type);
+    if (dispatch == null) {
+      for (Interceptor interceptor : interceptors) {
+        if (!signatureMaps.containsKey(interceptor)) {
+          signatureMaps.put(interceptor, Plugin.getSignatureMap(interceptor));
+        }
+      }
+      dispatch = CompiledPlugin.compile(type, interceptors, signatureMaps);
+      dispatches.put(type, dispatch);
+    }
+    return dispatch;
+  }
+
   public void addInterceptor(Interceptor interceptor) {
     interceptors.add(interceptor);
+    dispatches.clear();
   }
   
   public List<Interceptor> getInterceptors() {
     return Collections.unmodifiableList(interceptors);
   }
 
+  /**
+   * Whether targets are wrapped by a single generated {@link CompiledPlugin} layer instead of calling
+   * {@link Interceptor#plugin(Object)} of each interceptor. All the interceptors must then be described by their
+   * {@link Intercepts} annotation, as those relying on {@link Plugin#wrap(Object, Interceptor)} are.
+   */
+  public boolean isCompiled() {
+    return compiled;
+  }
+
+  public void setCompiled(boolean compiled) {
+    this.compiled = compiled;
+  }
+
 }
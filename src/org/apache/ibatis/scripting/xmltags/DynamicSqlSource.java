@@ -38,6 +38,20 @@ public class DynamicSqlSource implements SqlSource {
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
     DynamicContext context = new DynamicContext(configuration, parameterObject);
+    BoundSql boundSql = getBoundSql(context, parameterObject);
+    if (context.getBindings().containsKey(ForEachSqlNode.CHUNK_COUNT)) {
+      // a foreach split its collection, bind the SQL of each chunk
+      final int chunkCount = (Integer) context.getBindings().get(ForEachSqlNode.CHUNK_COUNT);
+      for (int chunk = 1; chunk < chunkCount; chunk++) {
+        DynamicContext chunkContext = new DynamicContext(configuration, parameterObject);
+        chunkContext.bind(ForEachSqlNode.CHUNK_INDEX, chunk);
+        boundSql.addChunk(getBoundSql(chunkContext, parameterObject));
+      }
+    }
+    return boundSql;
+  }
+
+  private BoundSql getBoundSql(DynamicContext context, Object parameterObject) {
     rootSqlNode.apply(context);
     SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
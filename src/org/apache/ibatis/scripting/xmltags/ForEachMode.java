@@ -0,0 +1,36 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+/**
+ * How a &lt;foreach&gt; binds the elements of its collection.
+ */
+public enum ForEachMode {
+  /**
+   * Applies the contents once per element, each one with its own parameters.
+   */
+  EACH,
+  /**
+   * Like {@link #EACH}, repeating the last element up to the next power of two so that collections of similar size
+   * share the same SQL text (and the statement and plan caches of the database).
+   */
+  PADDED,
+  /**
+   * Binds the whole collection as a single SQL ARRAY parameter written between open and close; the contents are
+   * ignored. The SQL around it is database specific, e.g. <code>id = ANY(?)</code> or <code>id IN (UNNEST(?))</code>.
+   */
+  ARRAY
+}
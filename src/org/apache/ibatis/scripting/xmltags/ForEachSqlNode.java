@@ -15,17 +15,30 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.parsing.TokenHandler;
+import org.apache.ibatis.scripting.ScriptingException;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.ArrayParameter;
 
 /**
  * @author Clinton Begin
  */
 public class ForEachSqlNode implements SqlNode {
   public static final String ITEM_PREFIX = "__frch_";
+  /**
+   * Binding holding the chunk to apply when the collection is split, set by {@link DynamicSqlSource}.
+   */
+  public static final String CHUNK_INDEX = "_foreachChunk";
+  /**
+   * Binding holding the number of chunks of a split collection.
+   */
+  public static final String CHUNK_COUNT = "_foreachChunkCount";
 
   private ExpressionEvaluator evaluator;
   private String collectionExpression;
@@ -35,9 +48,21 @@ public class ForEachSqlNode implements SqlNode {
   private String separator;
   private String item;
   private String index;
+  private ForEachMode mode;
+  private String arrayType;
+  private int chunkSize;
   private Configuration configuration;
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, ForEachMode.EACH, null, 0);
+  }
+
+  /**
+   * @param arrayType the SQL type name of the elements in {@link ForEachMode#ARRAY} mode
+   * @param chunkSize when positive, larger collections are split and the statement runs once per chunk
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator,
+      ForEachMode mode, String arrayType, int chunkSize) {
     this.evaluator = new ExpressionEvaluator();
     this.collectionExpression = collectionExpression;
     this.contents = contents;
@@ -46,6 +71,9 @@ public class ForEachSqlNode implements SqlNode {
     this.separator = separator;
     this.index = index;
     this.item = item;
+    this.mode = mode;
+    this.arrayType = arrayType;
+    this.chunkSize = chunkSize;
     this.configuration = configuration;
   }
 
@@ -53,13 +81,52 @@ public class ForEachSqlNode implements SqlNode {
   public boolean apply(DynamicContext context) {
     Map<String, Object> bindings = context.getBindings();
     final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings);
+    if (mode == ForEachMode.ARRAY) {
+      applyArray(context, iterable);
+      return true;
+    }
     if (!iterable.iterator().hasNext()) {
       return true;
     }
+    if (mode == ForEachMode.EACH && chunkSize <= 0) {
+      applyItems(context, iterable, 0, 0);
+      return true;
+    }
+    List<Object> items = new ArrayList<Object>();
+    for (Object o : iterable) {
+      items.add(o);
+    }
+    int firstIndex = 0;
+    if (chunkSize > 0 && items.size() > chunkSize) {
+      firstIndex = getChunk(context, (items.size() + chunkSize - 1) / chunkSize) * chunkSize;
+      items = items.subList(firstIndex, Math.min(items.size(), firstIndex + chunkSize));
+    }
+    int count = items.size();
+    if (mode == ForEachMode.PADDED) {
+      count = count == 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+      if (chunkSize > 0) {
+        count = Math.min(count, chunkSize);
+      }
+    }
+    applyItems(context, items, firstIndex, count);
+    return true;
+  }
+
+  /**
+   * Applies the contents to the items, repeating the last one (and its index) until <code>count</code> is reached.
+   */
+  private void applyItems(DynamicContext context, Iterable<?> items, int firstIndex, int count) {
     boolean first = true;
     applyOpen(context);
     int i = 0;
-    for (Object o : iterable) {
+    int position = firstIndex - 1;
+    Object o = null;
+    final Iterator<?> iterator = items.iterator();
+    while (iterator.hasNext() || i < count) {
+      if (iterator.hasNext()) {
+        o = iterator.next();
+        position++;
+      }
       DynamicContext oldContext = context;
       if (first) {
         context = new PrefixedContext(context, "");
@@ -76,7 +143,7 @@ public class ForEachSqlNode implements SqlNode {
         applyIndex(context, mapEntry.getKey(), uniqueNumber);
         applyItem(context, mapEntry.getValue(), uniqueNumber);
       } else {
-        applyIndex(context, i, uniqueNumber);
+        applyIndex(context, position, uniqueNumber);
         applyItem(context, o, uniqueNumber);
       }
       contents.apply(new FilteredDynamicContext(configuration, context, index, item, uniqueNumber));
@@ -87,7 +154,27 @@ public class ForEachSqlNode implements SqlNode {
       i++;
     }
     applyClose(context);
-    return true;
+  }
+
+  private int getChunk(DynamicContext context, int chunkCount) {
+    final Map<String, Object> bindings = context.getBindings();
+    if (bindings.containsKey(CHUNK_COUNT)) {
+      throw new ScriptingException("Only one foreach of a statement can be split in chunks and it cannot be nested in another foreach.");
+    }
+    context.bind(CHUNK_COUNT, chunkCount);
+    return bindings.containsKey(CHUNK_INDEX) ? (Integer) bindings.get(CHUNK_INDEX) : 0;
+  }
+
+  private void applyArray(DynamicContext context, Iterable<?> iterable) {
+    final List<Object> elements = new ArrayList<Object>();
+    for (Object o : iterable) {
+      elements.add(o instanceof Map.Entry ? ((Map.Entry<?, ?>) o).getValue() : o);
+    }
+    final String name = itemizeItem(item != null ? item : "array", context.getUniqueNumber());
+    context.bind(name, new ArrayParameter(arrayType, elements.toArray()));
+    applyOpen(context);
+    context.appendSql("#{" + name + "}");
+    applyClose(context);
   }
 
   private void applyIndex(DynamicContext context, Object o, int i) {
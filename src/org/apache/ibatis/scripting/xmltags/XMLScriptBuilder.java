@@ -18,6 +18,7 @@ package org.apache.ibatis.scripting.xmltags;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.ibatis.builder.BaseBuilder;
@@ -180,7 +181,15 @@ public class XMLScriptBuilder extends BaseBuilder {
       String open = nodeToHandle.getStringAttribute("open");
       String close = nodeToHandle.getStringAttribute("close");
       String separator = nodeToHandle.getStringAttribute("separator");
-      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator);
+      String mode = nodeToHandle.getStringAttribute("mode", "each");
+      String arrayType = nodeToHandle.getStringAttribute("arrayType");
+      int chunkSize = nodeToHandle.getIntAttribute("chunkSize", 0);
+      ForEachMode forEachMode = ForEachMode.valueOf(mode.toUpperCase(Locale.ENGLISH));
+      if (forEachMode == ForEachMode.ARRAY && (arrayType == null || chunkSize > 0)) {
+        throw new BuilderException("A foreach in array mode needs an arrayType and cannot have a chunkSize.");
+      }
+      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, index, item, open, close, separator,
+          forEachMode, arrayType, chunkSize);
       targetContents.add(forEachSqlNode);
     }
   }
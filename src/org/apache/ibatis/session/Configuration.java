@@ -15,8 +15,10 @@
  */
 package org.apache.ibatis.session;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -24,6 +26,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.ibatis.binding.MapperRegistry;
 import org.apache.ibatis.builder.CacheRefResolver;
@@ -39,9 +43,15 @@ import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
+import org.apache.ibatis.dialect.CountSqlSource;
+import org.apache.ibatis.dialect.Dialect;
+import org.apache.ibatis.dialect.DialectRegistry;
+import org.apache.ibatis.dialect.LimitOffsetDialect;
+import org.apache.ibatis.dialect.OffsetFetchDialect;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.QueryCoalescer;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -49,8 +59,11 @@ import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.AutoMappingCache;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.resultset.ResultSetShapeCache;
+import org.apache.ibatis.executor.statement.FetchSizeAdvisor;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.io.VFS;
@@ -68,6 +81,9 @@ import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
 import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.plugin.Interceptor;
@@ -116,6 +132,16 @@ public class Configuration {
   protected Set<String> lazyLoadTriggerMethods = new HashSet<String>(Arrays.asList(new String[] { "equals", "clone", "hashCode", "toString" }));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected int cursorPrefetchSize = 0;
+  protected boolean adaptiveFetchSize = false;
+  protected int fetchSizeMemoryBudget = FetchSizeAdvisor.DEFAULT_MEMORY_BUDGET;
+  protected boolean cacheResultSetMetadata = false;
+  protected boolean useColumnIndex = false;
+  protected boolean parallelRowMapping = false;
+  protected boolean generatedMappers = false;
+  protected Dialect dialect;
+  protected boolean pushDownRowBounds = false;
+  protected boolean concurrentCountQuery = false;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
   protected AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior = AutoMappingUnknownColumnBehavior.NONE;
@@ -126,6 +152,7 @@ public class Configuration {
   protected ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
 
   protected boolean lazyLoadingEnabled = false;
+  protected int lazyLoadBatchSize = 0;
   protected ProxyFactory proxyFactory = new JavassistProxyFactory(); // #224 Using internal Javassist instead of OGNL
 
   protected String databaseId;
@@ -139,11 +166,17 @@ public class Configuration {
 
   protected final MapperRegistry mapperRegistry = new MapperRegistry(this);
   protected final InterceptorChain interceptorChain = new InterceptorChain();
+  protected final QueryCoalescer queryCoalescer = new QueryCoalescer();
   protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry();
   protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
   protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
+  protected final DialectRegistry dialectRegistry = new DialectRegistry();
 
   protected final Map<String, MappedStatement> mappedStatements = new StrictMap<MappedStatement>("Mapped Statements collection");
+  protected final ConcurrentMap<String, MappedStatement> countStatements = new ConcurrentHashMap<String, MappedStatement>();
+  protected final FetchSizeAdvisor fetchSizeAdvisor = new FetchSizeAdvisor();
+  protected final ResultSetShapeCache resultSetShapeCache = new ResultSetShapeCache();
+  protected final AutoMappingCache autoMappingCache = new AutoMappingCache();
   protected final Map<String, Cache> caches = new StrictMap<Cache>("Caches collection");
   protected final Map<String, ResultMap> resultMaps = new StrictMap<ResultMap>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<ParameterMap>("Parameter Maps collection");
@@ -199,6 +232,9 @@ public class Configuration {
     typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
     typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
 
+    typeAliasRegistry.registerAlias("LIMIT_OFFSET", LimitOffsetDialect.class);
+    typeAliasRegistry.registerAlias("OFFSET_FETCH", OffsetFetchDialect.class);
+
     languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
     languageRegistry.register(RawLanguageDriver.class);
   }
@@ -335,6 +371,17 @@ public class Configuration {
     this.lazyLoadingEnabled = lazyLoadingEnabled;
   }
 
+  /**
+   * Maximum number of sibling objects whose lazy property is loaded by one batchSelect query. Zero means no limit.
+   */
+  public int getLazyLoadBatchSize() {
+    return lazyLoadBatchSize;
+  }
+
+  public void setLazyLoadBatchSize(int lazyLoadBatchSize) {
+    this.lazyLoadBatchSize = lazyLoadBatchSize;
+  }
+
   public ProxyFactory getProxyFactory() {
     return proxyFactory;
   }
@@ -416,6 +463,130 @@ public class Configuration {
     this.defaultFetchSize = defaultFetchSize;
   }
 
+  /**
+   * Number of rows a cursor reads ahead on a background thread. Zero (the default) reads rows on demand.
+   * Cursors of result maps with nested selects or streamed LOBs always read on demand. While a prefetching cursor is open its
+   * session must not be used.
+   */
+  public int getCursorPrefetchSize() {
+    return cursorPrefetchSize;
+  }
+
+  public void setCursorPrefetchSize(int cursorPrefetchSize) {
+    this.cursorPrefetchSize = cursorPrefetchSize;
+  }
+
+  /**
+   * Whether selects without a fetchSize of their own get one chosen from the rows their previous executions returned.
+   * Statements that have not run yet use the {@link #getDefaultFetchSize() default fetch size}.
+   */
+  public boolean isAdaptiveFetchSize() {
+    return adaptiveFetchSize;
+  }
+
+  public void setAdaptiveFetchSize(boolean adaptiveFetchSize) {
+    this.adaptiveFetchSize = adaptiveFetchSize;
+  }
+
+  /**
+   * Bytes the rows of one fetch may take when the fetch size is adaptive.
+   */
+  public int getFetchSizeMemoryBudget() {
+    return fetchSizeMemoryBudget;
+  }
+
+  public void setFetchSizeMemoryBudget(int fetchSizeMemoryBudget) {
+    this.fetchSizeMemoryBudget = fetchSizeMemoryBudget;
+  }
+
+  public FetchSizeAdvisor getFetchSizeAdvisor() {
+    return fetchSizeAdvisor;
+  }
+
+  /**
+   * Whether the columns of result sets, with their resolved type handlers, are reused by later executions of the
+   * same SQL instead of being read from the metadata again. Off by default.
+   */
+  public boolean isCacheResultSetMetadata() {
+    return cacheResultSetMetadata;
+  }
+
+  public void setCacheResultSetMetadata(boolean cacheResultSetMetadata) {
+    this.cacheResultSetMetadata = cacheResultSetMetadata;
+  }
+
+  /**
+   * Whether mapped columns are read by their index, resolved once per result set shape, instead of by their label.
+   * Off by default: drivers resolve duplicate or aliased labels differently, reading by label keeps their behaviour.
+   */
+  public boolean isUseColumnIndex() {
+    return useColumnIndex;
+  }
+
+  public void setUseColumnIndex(boolean useColumnIndex) {
+    this.useColumnIndex = useColumnIndex;
+  }
+
+  /**
+   * Whether the rows of large results are mapped on a fork join pool. Only applies to result maps without nested
+   * result maps or queries and to result sets without LOB columns; the type handlers must be thread safe.
+   */
+  public boolean isParallelRowMapping() {
+    return parallelRowMapping;
+  }
+
+  public void setParallelRowMapping(boolean parallelRowMapping) {
+    this.parallelRowMapping = parallelRowMapping;
+  }
+
+  public ResultSetShapeCache getResultSetShapeCache() {
+    return resultSetShapeCache;
+  }
+
+  public AutoMappingCache getAutoMappingCache() {
+    return autoMappingCache;
+  }
+
+  /**
+   * @return the dialect set explicitly or else the one registered for the database id, null if none is known
+   */
+  public Dialect getDialect() {
+    return dialect != null ? dialect : dialectRegistry.getDialect(databaseId);
+  }
+
+  public void setDialect(Dialect dialect) {
+    this.dialect = dialect;
+  }
+
+  public DialectRegistry getDialectRegistry() {
+    return dialectRegistry;
+  }
+
+  /**
+   * Whether non default RowBounds of selects are written into the SQL by the {@link #getDialect() dialect}
+   * instead of skipping rows in memory.
+   */
+  public boolean isPushDownRowBounds() {
+    return pushDownRowBounds;
+  }
+
+  public void setPushDownRowBounds(boolean pushDownRowBounds) {
+    this.pushDownRowBounds = pushDownRowBounds;
+  }
+
+  /**
+   * Whether the count of a paged select runs on a separate connection while the page is read. Only sessions opened on
+   * the data source of the environment do so; sessions on a given connection, sharded sessions and sessions on a
+   * {@link org.apache.ibatis.datasource.routing.RoutingDataSource} count in the session.
+   */
+  public boolean isConcurrentCountQuery() {
+    return concurrentCountQuery;
+  }
+
+  public void setConcurrentCountQuery(boolean concurrentCountQuery) {
+    this.concurrentCountQuery = concurrentCountQuery;
+  }
+
   public boolean isUseColumnLabel() {
     return useColumnLabel;
   }
@@ -463,6 +634,10 @@ public class Configuration {
     return mapperRegistry;
   }
 
+  public QueryCoalescer getQueryCoalescer() {
+    return queryCoalescer;
+  }
+
   public ReflectorFactory getReflectorFactory() {
 	  return reflectorFactory;
   }
@@ -494,6 +669,30 @@ public class Configuration {
     return interceptorChain.getInterceptors();
   }
 
+  /**
+   * Whether plugins are applied through one generated class per target instead of one proxy per interceptor.
+   *
+   * @see InterceptorChain#isCompiled()
+   */
+  public boolean isCompiledPlugins() {
+    return interceptorChain.isCompiled();
+  }
+
+  public void setCompiledPlugins(boolean compiledPlugins) {
+    interceptorChain.setCompiled(compiledPlugins);
+  }
+
+  /**
+   * Whether mappers are instances of classes generated with Javassist when registered instead of dynamic proxies.
+   */
+  public boolean isGeneratedMappers() {
+    return generatedMappers;
+  }
+
+  public void setGeneratedMappers(boolean generatedMappers) {
+    this.generatedMappers = generatedMappers;
+  }
+
   public LanguageDriverRegistry getLanguageRegistry() {
     return languageRegistry;
   }
@@ -686,6 +885,13 @@ public class Configuration {
     return this.getMappedStatement(id, true);
   }
 
+  /**
+   * Resolves a statement once for the {@link SqlSession} methods taking a {@link StatementHandle}.
+   */
+  public StatementHandle getStatementHandle(String id) {
+    return new StatementHandle(getMappedStatement(id));
+  }
+
   public MappedStatement getMappedStatement(String id, boolean validateIncompleteStatements) {
     if (validateIncompleteStatements) {
       buildAllStatements();
@@ -693,6 +899,33 @@ public class Configuration {
     return mappedStatements.get(id);
   }
 
+  /**
+   * Returns the statement counting the rows of a select, derived from its SQL on first use.
+   */
+  public MappedStatement getCountStatement(MappedStatement ms) {
+    MappedStatement countStatement = countStatements.get(ms.getId());
+    if (countStatement == null) {
+      if (ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() == StatementType.CALLABLE) {
+        throw new IllegalArgumentException("Cannot derive a count query from " + ms.getId());
+      }
+      final String id = ms.getId() + "!count";
+      final ResultMap resultMap = new ResultMap.Builder(this, id + "-Inline", Long.class, new ArrayList<ResultMapping>()).build();
+      countStatement = new MappedStatement.Builder(this, id, new CountSqlSource(ms.getSqlSource()), SqlCommandType.SELECT)
+          .resource(ms.getResource())
+          .databaseId(ms.getDatabaseId())
+          .statementType(ms.getStatementType())
+          .timeout(ms.getTimeout())
+          .parameterMap(ms.getParameterMap())
+          .resultMaps(Collections.singletonList(resultMap))
+          .build();
+      final MappedStatement existing = countStatements.putIfAbsent(ms.getId(), countStatement);
+      if (existing != null) {
+        countStatement = existing;
+      }
+    }
+    return countStatement;
+  }
+
   public Map<String, XNode> getSqlFragments() {
     return sqlFragments;
   }
@@ -0,0 +1,65 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+
+/**
+ * One page of a paginated select, with the bounds of the next page for keyset pagination and the total row count
+ * when it was asked for.
+ *
+ * @see Seek
+ * @see SqlSession#selectPageWithTotal(String, Object, RowBounds)
+ */
+public class Page<E> {
+
+  private final List<E> items;
+  private final Seek next;
+  private final long total;
+
+  public Page(List<E> items, Seek next) {
+    this(items, next, -1);
+  }
+
+  public Page(List<E> items, Seek next, long total) {
+    this.items = items;
+    this.next = next;
+    this.total = total;
+  }
+
+  public List<E> getItems() {
+    return items;
+  }
+
+  /**
+   * @return the bounds of the following page, null when this page is the last one
+   */
+  public Seek getNext() {
+    return next;
+  }
+
+  public boolean hasNext() {
+    return next != null;
+  }
+
+  /**
+   * @return the number of rows of the select without bounds, -1 when not counted
+   */
+  public long getTotal() {
+    return total;
+  }
+
+}
@@ -0,0 +1,115 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.Arrays;
+
+/**
+ * Keyset (seek) pagination bounds: the next <code>size</code> rows whose sort key comes after the last row of the
+ * previous page, instead of skipping an offset.
+ * <p>
+ * The sort key is made of the given columns or, by default, of the id columns of the statement's result map. Use
+ * {@link #first(int, String...)} for the first page and {@link Page#getNext()} (or {@link #after(Object...)}) for
+ * the following ones. To let a client continue, hand it the {@link #getLastValues() last values} only and rebuild the
+ * bounds on the server with <code>Seek.first(size, columns).after(lastValues)</code>: the sort columns are written into
+ * the SQL, they are checked against the statement's result map but must not come from the client.
+ *
+ * @see SqlSession#selectPage(String, Object, Seek)
+ */
+public class Seek extends RowBounds {
+
+  private final int size;
+  private final String[] columns;
+  private final Object[] lastValues;
+  private final boolean descending;
+
+  private Seek(int size, String[] columns, Object[] lastValues, boolean descending) {
+    super(NO_ROW_OFFSET, size);
+    if (size <= 0) {
+      throw new IllegalArgumentException("Page size must be positive but was " + size);
+    }
+    this.size = size;
+    this.columns = columns;
+    this.lastValues = lastValues;
+    this.descending = descending;
+  }
+
+  /**
+   * @param size rows per page
+   * @param columns sort key columns (as returned by the select), the result map id columns when none are given; each
+   *        must be a plain column name mapped by the statement's result map
+   */
+  public static Seek first(int size, String... columns) {
+    return new Seek(size, columns == null || columns.length == 0 ? null : columns.clone(), null, false);
+  }
+
+  /**
+   * @return the same bounds sorted in descending order
+   */
+  public Seek descending() {
+    return new Seek(size, columns, lastValues, true);
+  }
+
+  /**
+   * @return the page following the row with the given sort key values
+   */
+  public Seek after(Object... lastValues) {
+    return new Seek(size, columns, lastValues.clone(), descending);
+  }
+
+  @Override
+  public int getOffset() {
+    return NO_ROW_OFFSET;
+  }
+
+  @Override
+  public int getLimit() {
+    return size;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return the sort key columns, null for the result map id columns
+   */
+  public String[] getColumns() {
+    return columns == null ? null : columns.clone();
+  }
+
+  /**
+   * @return the sort key of the last row of the previous page, null on the first page
+   */
+  public Object[] getLastValues() {
+    return lastValues == null ? null : lastValues.clone();
+  }
+
+  public boolean isFirst() {
+    return lastValues == null;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  @Override
+  public String toString() {
+    return "Seek [size=" + size + ", columns=" + Arrays.toString(columns) + ", lastValues=" + Arrays.toString(lastValues)
+        + ", descending=" + descending + "]";
+  }
+
+}
@@ -17,10 +17,12 @@ package org.apache.ibatis.session;
 
 import java.io.Closeable;
 import java.sql.Connection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.reactive.Publisher;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -76,6 +78,35 @@ public interface SqlSession extends Closeable {
    */
   <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Retrieve a single row mapped from a statement resolved beforehand.
+   * @param <T> the returned object type
+   * @param statement Handle of the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Mapped object
+   * @see Configuration#getStatementHandle(String)
+   */
+  <T> T selectOne(StatementHandle statement, Object parameter);
+
+  /**
+   * Retrieve a list of mapped objects from a statement resolved beforehand.
+   * @param <E> the returned list element type
+   * @param statement Handle of the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return List of mapped object
+   */
+  <E> List<E> selectList(StatementHandle statement, Object parameter);
+
+  /**
+   * Retrieve a list of mapped objects from a statement resolved beforehand, within the specified row bounds.
+   * @param <E> the returned list element type
+   * @param statement Handle of the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return List of mapped object
+   */
+  <E> List<E> selectList(StatementHandle statement, Object parameter, RowBounds rowBounds);
+
   /**
    * The selectMap is a special case in that it is designed to convert a list
    * of results into a Map based on one of the properties in the resulting
@@ -116,6 +147,37 @@ public interface SqlSession extends Closeable {
    */
   <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds);
 
+  /**
+   * Retrieve one page of mapped objects with keyset pagination.
+   * @param <E> the returned page element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param seek Size and sort key of the page, and the last sort key of the previous page
+   * @return Page of mapped objects with the bounds of the next page
+   */
+  <E> Page<E> selectPage(String statement, Object parameter, Seek seek);
+
+  /**
+   * Counts the rows a select returns, with a count query derived from its SQL.
+   * @param statement Unique identifier matching the select to count.
+   * @param parameter A parameter object to pass to the statement.
+   * @return number of rows
+   */
+  long selectCount(String statement, Object parameter);
+
+  /**
+   * Retrieve one page of mapped objects together with the total row count of the select.
+   * The count runs on a separate connection of the session's environment, concurrently with the page, when
+   * concurrentCountQuery is enabled, this session was opened on the environment's data source and it has no pending
+   * changes.
+   * @param <E> the returned page element type
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds Bounds of the page, a {@link Seek} for keyset pagination
+   * @return Page of mapped objects with the total row count
+   */
+  <E> Page<E> selectPageWithTotal(String statement, Object parameter, RowBounds rowBounds);
+
   /**
    * A Cursor offers the same results as a List, except it fetches data lazily using an Iterator.
    * @param <T> the returned cursor element type.
@@ -143,6 +205,30 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * A Publisher emits the same results as a Cursor, reading rows only as its subscriber requests them.
+   * The publisher takes over this session and closes it when the rows are consumed, the subscription is cancelled
+   * or the query fails, so use a dedicated session for it.
+   * @param <T> the published element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Publisher of mapped objects
+   */
+  <T> Publisher<T> selectPublisher(String statement, Object parameter);
+
+  /**
+   * A Publisher emits the same results as a Cursor, reading rows only as its subscriber requests them.
+   * The publisher takes over this session and closes it when the rows are consumed, the subscription is cancelled
+   * or the query fails, so use a dedicated session for it.
+   * @param <T> the published element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @param prefetch Maximum number of rows read ahead of the subscriber's demand
+   * @return Publisher of mapped objects
+   */
+  <T> Publisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds, int prefetch);
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -169,6 +255,14 @@ public interface SqlSession extends Closeable {
    */
   void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler);
 
+  /**
+   * Retrieve rows of a statement resolved beforehand using a {@code ResultHandler} and {@code RowBounds}
+   * @param statement Handle of the statement to use.
+   * @param rowBounds RowBound instance to limit the query results
+   * @param handler ResultHandler that will handle each retrieved row
+   */
+  void select(StatementHandle statement, Object parameter, RowBounds rowBounds, ResultHandler<?> handler);
+
   /**
    * Execute an insert statement.
    * @param statement Unique identifier matching the statement to execute.
@@ -186,6 +280,17 @@ public interface SqlSession extends Closeable {
    */
   int insert(String statement, Object parameter);
 
+  /**
+   * Execute an insert statement once for each parameter object, sending the rows to the database in JDBC batches
+   * of {@code batchSize}. Parameter objects are read from the iterator as the batches are filled, so memory use does
+   * not depend on the number of rows. Generated keys are set on the parameter objects as with a BATCH executor.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameters The parameter objects, one per row.
+   * @param batchSize Maximum number of rows per JDBC batch.
+   * @return The number of rows inserted.
+   */
+  long bulkInsert(String statement, Iterator<?> parameters, int batchSize);
+
   /**
    * Execute an update statement. The number of rows affected will be returned.
    * @param statement Unique identifier matching the statement to execute.
@@ -201,6 +306,14 @@ public interface SqlSession extends Closeable {
    */
   int update(String statement, Object parameter);
 
+  /**
+   * Execute an insert, update or delete statement resolved beforehand. The number of rows affected will be returned.
+   * @param statement Handle of the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return int The number of rows affected.
+   */
+  int update(StatementHandle statement, Object parameter);
+
   /**
    * Execute a delete statement. The number of rows affected will be returned.
    * @param statement Unique identifier matching the statement to execute.
@@ -21,11 +21,13 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.reactive.Publisher;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -181,6 +183,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.<K, V> selectMap(statement, parameter, mapKey, rowBounds);
   }
 
+  @Override
+  public <E> Page<E> selectPage(String statement, Object parameter, Seek seek) {
+    return sqlSessionProxy.<E> selectPage(statement, parameter, seek);
+  }
+
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    return sqlSessionProxy.selectCount(statement, parameter);
+  }
+
+  @Override
+  public <E> Page<E> selectPageWithTotal(String statement, Object parameter, RowBounds rowBounds) {
+    return sqlSessionProxy.<E> selectPageWithTotal(statement, parameter, rowBounds);
+  }
+
   @Override
   public <T> Cursor<T> selectCursor(String statement) {
     return sqlSessionProxy.selectCursor(statement);
@@ -196,6 +213,22 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectCursor(statement, parameter, rowBounds);
   }
 
+  /**
+   * Runs on a session of its own, which the publisher closes when done.
+   */
+  @Override
+  public <T> Publisher<T> selectPublisher(String statement, Object parameter) {
+    return sqlSessionFactory.openSession().selectPublisher(statement, parameter);
+  }
+
+  /**
+   * Runs on a session of its own, which the publisher closes when done.
+   */
+  @Override
+  public <T> Publisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds, int prefetch) {
+    return sqlSessionFactory.openSession().selectPublisher(statement, parameter, rowBounds, prefetch);
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return sqlSessionProxy.<E> selectList(statement);
@@ -211,6 +244,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.<E> selectList(statement, parameter, rowBounds);
   }
 
+  @Override
+  public <T> T selectOne(StatementHandle statement, Object parameter) {
+    return sqlSessionProxy.<T> selectOne(statement, parameter);
+  }
+
+  @Override
+  public <E> List<E> selectList(StatementHandle statement, Object parameter) {
+    return sqlSessionProxy.<E> selectList(statement, parameter);
+  }
+
+  @Override
+  public <E> List<E> selectList(StatementHandle statement, Object parameter, RowBounds rowBounds) {
+    return sqlSessionProxy.<E> selectList(statement, parameter, rowBounds);
+  }
+
   @Override
   public void select(String statement, ResultHandler handler) {
     sqlSessionProxy.select(statement, handler);
@@ -226,6 +274,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     sqlSessionProxy.select(statement, parameter, rowBounds, handler);
   }
 
+  @Override
+  public void select(StatementHandle statement, Object parameter, RowBounds rowBounds, ResultHandler<?> handler) {
+    sqlSessionProxy.select(statement, parameter, rowBounds, handler);
+  }
+
   @Override
   public int insert(String statement) {
     return sqlSessionProxy.insert(statement);
@@ -236,6 +289,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.insert(statement, parameter);
   }
 
+  @Override
+  public long bulkInsert(String statement, Iterator<?> parameters, int batchSize) {
+    return sqlSessionProxy.bulkInsert(statement, parameters, batchSize);
+  }
+
   @Override
   public int update(String statement) {
     return sqlSessionProxy.update(statement);
@@ -246,6 +304,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.update(statement, parameter);
   }
 
+  @Override
+  public int update(StatementHandle statement, Object parameter) {
+    return sqlSessionProxy.update(statement, parameter);
+  }
+
   @Override
   public int delete(String statement) {
     return sqlSessionProxy.delete(statement);
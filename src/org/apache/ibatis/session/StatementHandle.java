@@ -0,0 +1,56 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+
+/**
+ * A mapped statement resolved once from its id, executed through the {@link SqlSession} methods that take a handle
+ * without looking the id up again. A handle is tied to the configuration it was resolved from and can be shared by
+ * sessions and threads.
+ *
+ * @see Configuration#getStatementHandle(String)
+ */
+public final class StatementHandle {
+
+  private final MappedStatement mappedStatement;
+
+  public StatementHandle(MappedStatement mappedStatement) {
+    if (mappedStatement == null) {
+      throw new IllegalArgumentException("A statement handle needs a mapped statement");
+    }
+    this.mappedStatement = mappedStatement;
+  }
+
+  public String getId() {
+    return mappedStatement.getId();
+  }
+
+  public SqlCommandType getSqlCommandType() {
+    return mappedStatement.getSqlCommandType();
+  }
+
+  public MappedStatement getMappedStatement() {
+    return mappedStatement;
+  }
+
+  @Override
+  public String toString() {
+    return "StatementHandle[" + mappedStatement.getId() + "]";
+  }
+
+}
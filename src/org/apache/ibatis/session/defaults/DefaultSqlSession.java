@@ -21,11 +21,16 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.reactive.CursorPublisher;
+import org.apache.ibatis.cursor.reactive.Publisher;
+import org.apache.ibatis.dialect.KeysetPagination;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
@@ -33,11 +38,15 @@ import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.StatementHandle;
 
 /**
  *
@@ -48,12 +57,16 @@ import org.apache.ibatis.session.SqlSession;
  */
 public class DefaultSqlSession implements SqlSession {
 
+  private static final String QUERY_ERROR = "Error querying database.  Cause: ";
+  private static final String UPDATE_ERROR = "Error updating database.  Cause: ";
+
   private Configuration configuration;
   private Executor executor;
 
   private boolean autoCommit;
   private boolean dirty;
   private List<Cursor<?>> cursorList;
+  private Environment countEnvironment;
 
   public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
     this.configuration = configuration;
@@ -73,15 +86,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public <T> T selectOne(String statement, Object parameter) {
-    // Popular vote was to return null on 0 results and throw exception on too many.
-    List<T> list = this.<T>selectList(statement, parameter);
-    if (list.size() == 1) {
-      return list.get(0);
-    } else if (list.size() > 1) {
-      throw new TooManyResultsException("Expected one result (or null) to be returned by selectOne(), but found: " + list.size());
-    } else {
-      return null;
-    }
+    return this.<T>selectOne(getStatementHandle(statement, QUERY_ERROR), parameter);
   }
 
   @Override
@@ -107,6 +112,72 @@ public class DefaultSqlSession implements SqlSession {
     return mapResultHandler.getMappedResults();
   }
 
+  @Override
+  public <E> Page<E> selectPage(String statement, Object parameter, Seek seek) {
+    return toKeysetPage(this.<E> selectList(statement, parameter, seek), statement, seek);
+  }
+
+  private <E> Page<E> toKeysetPage(List<E> list, String statement, Seek seek) {
+    try {
+      MappedStatement ms = configuration.getMappedStatement(statement);
+      return new Page<E>(list, KeysetPagination.nextSeek(ms, seek, list));
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error reading the next page key.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  /**
+   * Sets the environment whose data source this session reads, where counts may run concurrently with their page.
+   * Left unset, e.g. for sessions on a given connection, counts run in this session.
+   */
+  void setCountEnvironment(Environment countEnvironment) {
+    this.countEnvironment = countEnvironment;
+  }
+
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    try {
+      MappedStatement countStatement = configuration.getCountStatement(configuration.getMappedStatement(statement));
+      List<Long> counts = executor.query(countStatement, wrapCollection(parameter), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      return DetachedCountQuery.sum(counts);
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  @Override
+  public <E> Page<E> selectPageWithTotal(String statement, Object parameter, RowBounds rowBounds) {
+    Future<Long> concurrentCount = null;
+    if (configuration.isConcurrentCountQuery() && !dirty && countEnvironment != null) {
+      try {
+        MappedStatement countStatement = configuration.getCountStatement(configuration.getMappedStatement(statement));
+        concurrentCount = DetachedCountQuery.submit(configuration, countEnvironment, countStatement, wrapCollection(parameter));
+      } catch (Exception e) {
+        throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+      } finally {
+        ErrorContext.instance().reset();
+      }
+    }
+    final List<E> list;
+    try {
+      list = this.<E> selectList(statement, parameter, rowBounds);
+    } catch (RuntimeException e) {
+      if (concurrentCount != null) {
+        concurrentCount.cancel(true);
+      }
+      throw e;
+    }
+    final long total = concurrentCount != null ? DetachedCountQuery.await(concurrentCount) : selectCount(statement, parameter);
+    if (rowBounds instanceof Seek) {
+      return new Page<E>(list, toKeysetPage(list, statement, (Seek) rowBounds).getNext(), total);
+    }
+    return new Page<E>(list, null, total);
+  }
+
   @Override
   public <T> Cursor<T> selectCursor(String statement) {
     return selectCursor(statement, null);
@@ -131,6 +202,16 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public <T> Publisher<T> selectPublisher(String statement, Object parameter) {
+    return selectPublisher(statement, parameter, RowBounds.DEFAULT, CursorPublisher.DEFAULT_PREFETCH);
+  }
+
+  @Override
+  public <T> Publisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds, int prefetch) {
+    return new CursorPublisher<T>(this, statement, parameter, rowBounds, prefetch);
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return this.selectList(statement, null);
@@ -143,9 +224,31 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return this.<E>selectList(getStatementHandle(statement, QUERY_ERROR), parameter, rowBounds);
+  }
+
+  @Override
+  public <T> T selectOne(StatementHandle statement, Object parameter) {
+    // Popular vote was to return null on 0 results and throw exception on too many.
+    List<T> list = this.<T>selectList(statement, parameter);
+    if (list.size() == 1) {
+      return list.get(0);
+    } else if (list.size() > 1) {
+      throw new TooManyResultsException("Expected one result (or null) to be returned by selectOne(), but found: " + list.size());
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public <E> List<E> selectList(StatementHandle statement, Object parameter) {
+    return this.selectList(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  @Override
+  public <E> List<E> selectList(StatementHandle statement, Object parameter, RowBounds rowBounds) {
     try {
-      MappedStatement ms = configuration.getMappedStatement(statement);
-      return executor.query(ms, wrapCollection(parameter), rowBounds, Executor.NO_RESULT_HANDLER);
+      return executor.query(statement.getMappedStatement(), wrapCollection(parameter), rowBounds, Executor.NO_RESULT_HANDLER);
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
     } finally {
@@ -165,9 +268,13 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler) {
+    select(getStatementHandle(statement, QUERY_ERROR), parameter, rowBounds, handler);
+  }
+
+  @Override
+  public void select(StatementHandle statement, Object parameter, RowBounds rowBounds, ResultHandler<?> handler) {
     try {
-      MappedStatement ms = configuration.getMappedStatement(statement);
-      executor.query(ms, wrapCollection(parameter), rowBounds, handler);
+      executor.query(statement.getMappedStatement(), wrapCollection(parameter), rowBounds, handler);
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
     } finally {
@@ -192,10 +299,33 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public int update(String statement, Object parameter) {
+    return update(getStatementHandle(statement, UPDATE_ERROR), parameter);
+  }
+
+  @Override
+  public int update(StatementHandle statement, Object parameter) {
+    try {
+      dirty = true;
+      return executor.update(statement.getMappedStatement(), wrapCollection(parameter));
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error updating database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  @Override
+  public long bulkInsert(String statement, Iterator<?> parameters, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive but was " + batchSize);
+    }
     try {
       dirty = true;
       MappedStatement ms = configuration.getMappedStatement(statement);
-      return executor.update(ms, wrapCollection(parameter));
+      // pending statements of this session run first
+      executor.flushStatements();
+      executor.clearLocalCache();
+      return executor.bulkUpdate(ms, wrapEach(parameters), batchSize);
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error updating database.  Cause: " + e, e);
     } finally {
@@ -203,6 +333,25 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  private Iterator<Object> wrapEach(final Iterator<?> parameters) {
+    return new Iterator<Object>() {
+      @Override
+      public boolean hasNext() {
+        return parameters.hasNext();
+      }
+
+      @Override
+      public Object next() {
+        return wrapCollection(parameters.next());
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
   @Override
   public int delete(String statement) {
     return update(statement, null);
@@ -317,6 +466,17 @@ public class DefaultSqlSession implements SqlSession {
     return (!autoCommit && dirty) || force;
   }
 
+  // an unknown statement fails as it did when it was looked up by the string methods themselves
+  private StatementHandle getStatementHandle(String statement, String error) {
+    try {
+      return configuration.getStatementHandle(statement);
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException(error + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
   private Object wrapCollection(final Object object) {
     if (object instanceof Collection) {
       StrictMap<Object> map = new StrictMap<Object>();
@@ -18,6 +18,7 @@ package org.apache.ibatis.session.defaults;
 import java.sql.Connection;
 import java.sql.SQLException;
 
+import org.apache.ibatis.datasource.routing.RoutingDataSource;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
@@ -94,7 +95,12 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
       final TransactionFactory transactionFactory = getTransactionFactoryFromEnvironment(environment);
       tx = transactionFactory.newTransaction(environment.getDataSource(), level, autoCommit);
       final Executor executor = configuration.newExecutor(tx, execType);
-      return new DefaultSqlSession(configuration, executor, autoCommit);
+      final DefaultSqlSession session = new DefaultSqlSession(configuration, executor, autoCommit);
+      // a routing data source may hand the count another replica than the page
+      if (environment.getTransactionFactory() != null && !(environment.getDataSource() instanceof RoutingDataSource)) {
+        session.setCountEnvironment(environment);
+      }
+      return session;
     } catch (Exception e) {
       closeTransaction(tx); // may have fetched a connection so lets call close()
       throw ExceptionFactory.wrapException("Error opening session.  Cause: " + e, e);
@@ -0,0 +1,129 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.executor.ErrorContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * Runs a count statement on a connection of its own from the environment of the session, in a background thread.
+ * <p>
+ * The threads are bounded; counts submitted while they are all busy and the queue is full run on the calling thread.
+ */
+final class DetachedCountQuery implements Callable<Long> {
+
+  // counts wait on the database, so more threads than cores are useful, but not without bound
+  private static final int MAX_THREADS = 16;
+  private static final int MAX_QUEUED_COUNTS = 64;
+
+  private static ExecutorService threadPool;
+
+  private final Configuration configuration;
+  private final Environment environment;
+  private final MappedStatement countStatement;
+  private final Object parameter;
+
+  private DetachedCountQuery(Configuration configuration, Environment environment, MappedStatement countStatement, Object parameter) {
+    this.configuration = configuration;
+    this.environment = environment;
+    this.countStatement = countStatement;
+    this.parameter = parameter;
+  }
+
+  static Future<Long> submit(Configuration configuration, Environment environment, MappedStatement countStatement, Object parameter) {
+    return getThreadPool().submit(new DetachedCountQuery(configuration, environment, countStatement, parameter));
+  }
+
+  static long await(Future<Long> count) {
+    try {
+      return count.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      count.cancel(true);
+      throw ExceptionFactory.wrapException("Interrupted while counting rows.  Cause: " + e, e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + cause, cause instanceof Exception ? (Exception) cause : e);
+    }
+  }
+
+  /**
+   * Adds up the rows of a count statement: the shards of a sharded session and the chunks of a split foreach are
+   * counted one row each.
+   */
+  static long sum(List<Long> counts) {
+    long total = 0;
+    for (Long count : counts) {
+      if (count != null) {
+        total += count;
+      }
+    }
+    return total;
+  }
+
+  private static synchronized ExecutorService getThreadPool() {
+    if (threadPool == null) {
+      final ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60L, TimeUnit.SECONDS,
+          new ArrayBlockingQueue<Runnable>(MAX_QUEUED_COUNTS), new CountThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+      pool.allowCoreThreadTimeOut(true);
+      threadPool = pool;
+    }
+    return threadPool;
+  }
+
+  @Override
+  public Long call() throws Exception {
+    final Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+    final Executor executor = configuration.newExecutor(tx, ExecutorType.SIMPLE);
+    try {
+      return sum(executor.<Long> query(countStatement, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER));
+    } finally {
+      executor.close(false);
+      ErrorContext.instance().reset();
+    }
+  }
+
+  private static class CountThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      final Thread thread = new Thread(runnable, "mybatis-count-query-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+}
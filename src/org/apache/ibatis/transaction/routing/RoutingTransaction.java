@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.transaction.routing;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.ibatis.datasource.routing.RoutingDataSource;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+
+/**
+ * {@link JdbcTransaction} that sends selects to a replica of a {@link RoutingDataSource}.
+ * <p>
+ * The executor calls {@link #route(SqlCommandType)} before every statement. Selects run on a replica connection
+ * until the first insert, update or delete; from then on every statement of the session, selects included,
+ * runs on the primary so the session reads its own writes, until the session commits or rolls back.
+ * Commit and rollback only apply to the primary: read connections run in auto-commit mode so they never keep a
+ * transaction open on a replica.
+ * Statements cached by a REUSE executor stay bound to the connection they were prepared on.
+ *
+ * @see RoutingTransactionFactory
+ */
+public class RoutingTransaction extends JdbcTransaction {
+
+  private static final Log log = LogFactory.getLog(RoutingTransaction.class);
+
+  private final RoutingDataSource routingDataSource;
+  private Connection readConnection;
+  private boolean read;
+  private boolean sticky;
+
+  public RoutingTransaction(RoutingDataSource ds, TransactionIsolationLevel desiredLevel, boolean desiredAutoCommit) {
+    super(ds, desiredLevel, desiredAutoCommit);
+    this.routingDataSource = ds;
+  }
+
+  public void route(SqlCommandType sqlCommandType) {
+    if (sqlCommandType == SqlCommandType.SELECT) {
+      read = !sticky && routingDataSource.hasReplicas();
+    } else {
+      read = false;
+      sticky = true;
+    }
+  }
+
+  public boolean isRoutedToPrimary() {
+    return !read;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (!read) {
+      return super.getConnection();
+    }
+    if (readConnection == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("Opening JDBC read Connection");
+      }
+      readConnection = routingDataSource.getReadConnection();
+      if (level != null) {
+        readConnection.setTransactionIsolation(level.getLevel());
+      }
+      if (!readConnection.getAutoCommit()) {
+        readConnection.setAutoCommit(true);
+      }
+    }
+    return readConnection;
+  }
+
+  @Override
+  public void commit() throws SQLException {
+    super.commit();
+    sticky = false;
+  }
+
+  @Override
+  public void rollback() throws SQLException {
+    super.rollback();
+    sticky = false;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    try {
+      if (readConnection != null) {
+        if (log.isDebugEnabled()) {
+          log.debug("Closing JDBC read Connection [" + readConnection + "]");
+        }
+        readConnection.close();
+      }
+    } finally {
+      readConnection = null;
+      super.close();
+    }
+  }
+
+}
@@ -0,0 +1,53 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.transaction.routing;
+
+import java.sql.Connection;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.routing.RoutingDataSource;
+import org.apache.ibatis.session.TransactionIsolationLevel;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+
+/**
+ * Creates {@link RoutingTransaction} instances for a {@link RoutingDataSource}
+ * and plain {@link JdbcTransaction} instances for any other DataSource or a given connection.
+ *
+ * @see RoutingTransaction
+ */
+public class RoutingTransactionFactory implements TransactionFactory {
+
+  @Override
+  public void setProperties(Properties props) {
+  }
+
+  @Override
+  public Transaction newTransaction(Connection conn) {
+    return new JdbcTransaction(conn);
+  }
+
+  @Override
+  public Transaction newTransaction(DataSource ds, TransactionIsolationLevel level, boolean autoCommit) {
+    if (ds instanceof RoutingDataSource) {
+      return new RoutingTransaction((RoutingDataSource) ds, level, autoCommit);
+    }
+    return new JdbcTransaction(ds, level, autoCommit);
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import java.util.Arrays;
+
+/**
+ * Elements bound as a single SQL ARRAY parameter, created with
+ * {@link java.sql.Connection#createArrayOf(String, Object[])} by the {@link ArrayParameterTypeHandler}.
+ */
+public class ArrayParameter {
+
+  private final String typeName;
+  private final Object[] elements;
+
+  /**
+   * @param typeName the SQL name of the type of the elements, as understood by the driver (e.g. integer, varchar)
+   */
+  public ArrayParameter(String typeName, Object[] elements) {
+    this.typeName = typeName;
+    this.elements = elements;
+  }
+
+  public String getTypeName() {
+    return typeName;
+  }
+
+  public Object[] getElements() {
+    return elements;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ArrayParameter)) {
+      return false;
+    }
+    final ArrayParameter other = (ArrayParameter) o;
+    return typeName.equals(other.typeName) && Arrays.equals(elements, other.elements);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * typeName.hashCode() + Arrays.hashCode(elements);
+  }
+
+  @Override
+  public String toString() {
+    return typeName + Arrays.toString(elements);
+  }
+
+}
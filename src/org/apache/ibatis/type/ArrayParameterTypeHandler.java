@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Binds an {@link ArrayParameter} as a SQL ARRAY created by the connection of the statement.
+ */
+public class ArrayParameterTypeHandler extends BaseTypeHandler<ArrayParameter> {
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, ArrayParameter parameter, JdbcType jdbcType) throws SQLException {
+    final Array array = ps.getConnection().createArrayOf(parameter.getTypeName(), parameter.getElements());
+    ps.setArray(i, array);
+  }
+
+  @Override
+  public ArrayParameter getNullableResult(ResultSet rs, String columnName) throws SQLException {
+    return toParameter(rs.getArray(columnName));
+  }
+
+  @Override
+  public ArrayParameter getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return toParameter(rs.getArray(columnIndex));
+  }
+
+  @Override
+  public ArrayParameter getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+    return toParameter(cs.getArray(columnIndex));
+  }
+
+  private ArrayParameter toParameter(Array array) throws SQLException {
+    return array == null ? null : new ArrayParameter(array.getBaseTypeName(), (Object[]) array.getArray());
+  }
+
+}
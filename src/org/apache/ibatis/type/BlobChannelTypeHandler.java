@@ -0,0 +1,61 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The {@link TypeHandler} for {@link java.sql.Blob}/{@link ReadableByteChannel}. Parameters are streamed from the
+ * channel and results are channels over the binary stream of the blob, see {@link LobScope} for how long they stay
+ * valid when read through a cursor.
+ */
+public class BlobChannelTypeHandler extends BaseTypeHandler<ReadableByteChannel> {
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, ReadableByteChannel parameter, JdbcType jdbcType)
+      throws SQLException {
+    ps.setBinaryStream(i, Channels.newInputStream(parameter));
+  }
+
+  @Override
+  public ReadableByteChannel getNullableResult(ResultSet rs, String columnName)
+      throws SQLException {
+    return toChannel(LobScope.getBinaryStream(rs.getBlob(columnName)));
+  }
+
+  @Override
+  public ReadableByteChannel getNullableResult(ResultSet rs, int columnIndex)
+      throws SQLException {
+    return toChannel(LobScope.getBinaryStream(rs.getBlob(columnIndex)));
+  }
+
+  @Override
+  public ReadableByteChannel getNullableResult(CallableStatement cs, int columnIndex)
+      throws SQLException {
+    return toChannel(LobScope.getBinaryStream(cs.getBlob(columnIndex)));
+  }
+
+  private ReadableByteChannel toChannel(InputStream stream) {
+    return stream == null ? null : Channels.newChannel(stream);
+  }
+
+}
@@ -0,0 +1,98 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The {@link TypeHandler} for {@link Blob} parameters given as a {@link File}, streamed from the file, which is closed
+ * once the driver has read it. It is not registered by default: set it as the type handler of the parameter.
+ * <p>
+ * Reading a blob into a file is not supported, there is no point at which a temporary file could be deleted: read
+ * the column as an {@link InputStream} within a cursor and copy it where it belongs.
+ */
+public class BlobFileTypeHandler extends BaseTypeHandler<File> {
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, File parameter, JdbcType jdbcType)
+      throws SQLException {
+    final InputStream stream;
+    try {
+      stream = new ClosingAtEndInputStream(new FileInputStream(parameter));
+    } catch (FileNotFoundException e) {
+      throw new TypeException("Error opening file " + parameter + " for parameter #" + i + ".  Cause: " + e, e);
+    }
+    ps.setBinaryStream(i, stream, parameter.length());
+  }
+
+  @Override
+  public File getNullableResult(ResultSet rs, String columnName)
+      throws SQLException {
+    throw unsupportedResult();
+  }
+
+  @Override
+  public File getNullableResult(ResultSet rs, int columnIndex)
+      throws SQLException {
+    throw unsupportedResult();
+  }
+
+  @Override
+  public File getNullableResult(CallableStatement cs, int columnIndex)
+      throws SQLException {
+    throw unsupportedResult();
+  }
+
+  private TypeException unsupportedResult() {
+    return new TypeException("BlobFileTypeHandler only maps parameters, read the blob as an InputStream or a byte[] instead.");
+  }
+
+  private static class ClosingAtEndInputStream extends FilterInputStream {
+
+    ClosingAtEndInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int read = super.read();
+      if (read == -1) {
+        close();
+      }
+      return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      final int read = super.read(b, off, len);
+      if (read == -1) {
+        close();
+      }
+      return read;
+    }
+  }
+
+}
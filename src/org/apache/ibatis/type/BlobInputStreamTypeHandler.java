@@ -20,6 +20,7 @@ import java.sql.*;
 
 /**
  * The {@link TypeHandler} for {@link Blob}/{@link InputStream} using method supported at JDBC 4.0.
+ * Streams read through a cursor are only valid until it moves to the next row, see {@link LobScope}.
  * @since 3.4.0
  * @author Kazuki Shimizu
  */
@@ -66,11 +67,7 @@ public class BlobInputStreamTypeHandler extends BaseTypeHandler<InputStream> {
   }
 
   private InputStream toInputStream(Blob blob) throws SQLException {
-    if (blob == null) {
-      return null;
-    } else {
-      return blob.getBinaryStream();
-    }
+    return LobScope.getBinaryStream(blob);
   }
 
 }
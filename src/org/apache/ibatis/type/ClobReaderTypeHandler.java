@@ -20,6 +20,7 @@ import java.sql.*;
 
 /**
  * The {@link TypeHandler} for {@link Clob}/{@link Reader} using method supported at JDBC 4.0.
+ * Streams read through a cursor are only valid until it moves to the next row, see {@link LobScope}.
  * @since 3.4.0
  * @author Kazuki Shimizu
  */
@@ -66,11 +67,7 @@ public class ClobReaderTypeHandler extends BaseTypeHandler<Reader> {
   }
 
   private Reader toReader(Clob clob) throws SQLException {
-    if (clob == null) {
-      return null;
-    } else {
-      return clob.getCharacterStream();
-    }
+    return LobScope.getCharacterStream(clob);
   }
 
 }
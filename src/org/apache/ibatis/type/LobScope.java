@@ -0,0 +1,152 @@
+/**
+ *    Copyright 2009-2016 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.type;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The large objects read for a row of a {@link org.apache.ibatis.cursor.Cursor}. While a scope is entered on a thread,
+ * the streaming LOB type handlers ({@link BlobInputStreamTypeHandler}, {@link ClobReaderTypeHandler} and
+ * {@link BlobChannelTypeHandler}) register the streams they return to it. Releasing the scope closes the streams and
+ * frees their LOBs, so the streams stay valid until the cursor moves to the next row or closes, and the LOBs of
+ * the rows already read do not pile up in the driver.
+ * <p>
+ * Streams read outside of a scope are left to the caller, as before. A prefetching cursor reads rows ahead of its
+ * consumer and would release the streams of a row before they are read, so result maps with streamed LOBs are not
+ * prefetched (see {@link #isStreamed(TypeHandler)}).
+ */
+public final class LobScope {
+
+  private static final ThreadLocal<LobScope> CURRENT = new ThreadLocal<LobScope>();
+
+  private final List<Closeable> resources = new ArrayList<Closeable>();
+
+  /**
+   * Makes this scope the one the streams read by the current thread are registered to.
+   *
+   * @return the scope entered before, to be passed to {@link #exit(LobScope)}
+   */
+  public LobScope enter() {
+    final LobScope previous = CURRENT.get();
+    CURRENT.set(this);
+    return previous;
+  }
+
+  public void exit(LobScope previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+
+  public boolean isEmpty() {
+    return resources.isEmpty();
+  }
+
+  /**
+   * Closes the registered streams and frees their LOBs, errors are ignored.
+   */
+  public void release() {
+    for (Closeable resource : resources) {
+      try {
+        resource.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+    resources.clear();
+  }
+
+  /**
+   * @return whether the type handler registers the streams it returns to the current scope
+   */
+  public static boolean isStreamed(TypeHandler<?> typeHandler) {
+    return typeHandler instanceof BlobInputStreamTypeHandler || typeHandler instanceof ClobReaderTypeHandler
+        || typeHandler instanceof BlobChannelTypeHandler;
+  }
+
+  static InputStream getBinaryStream(final Blob blob) throws SQLException {
+    if (blob == null) {
+      return null;
+    }
+    final LobScope scope = CURRENT.get();
+    if (scope == null) {
+      return blob.getBinaryStream();
+    }
+    final InputStream stream = new FilterInputStream(blob.getBinaryStream()) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          free(blob);
+        }
+      }
+    };
+    scope.resources.add(stream);
+    return stream;
+  }
+
+  static Reader getCharacterStream(final Clob clob) throws SQLException {
+    if (clob == null) {
+      return null;
+    }
+    final LobScope scope = CURRENT.get();
+    if (scope == null) {
+      return clob.getCharacterStream();
+    }
+    final Reader reader = new FilterReader(clob.getCharacterStream()) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          free(clob);
+        }
+      }
+    };
+    scope.resources.add(reader);
+    return reader;
+  }
+
+  private static void free(Blob blob) throws IOException {
+    try {
+      blob.free();
+    } catch (SQLException e) {
+      throw new IOException("Error freeing blob.  Cause: " + e, e);
+    }
+  }
+
+  private static void free(Clob clob) throws IOException {
+    try {
+      clob.free();
+    } catch (SQLException e) {
+      throw new IOException("Error freeing clob.  Cause: " + e, e);
+    }
+  }
+
+}
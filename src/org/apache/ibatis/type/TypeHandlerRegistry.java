@@ -22,6 +22,7 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -42,6 +43,12 @@ public final class TypeHandlerRegistry {
   private final Map<Type, Map<JdbcType, TypeHandler<?>>> TYPE_HANDLER_MAP = new HashMap<Type, Map<JdbcType, TypeHandler<?>>>();// 记录了java类型向 指定JdbcType转换时,需要使用的TypeHandler对象.如:java类型中的string可能转换成数据库中的char,varchar等多种类型.所以存在一对多关系
   private final TypeHandler<Object> UNKNOWN_TYPE_HANDLER = new UnknownTypeHandler(this); 
   private final Map<Class<?>, TypeHandler<?>> ALL_TYPE_HANDLERS_MAP = new HashMap<Class<?>, TypeHandler<?>>();// 记录了全部TypeHandler的类型以及该类型相应的TypeHandler对象
+  // results of getTypeHandler(Type, JdbcType) indexed by JdbcType ordinal (null last), negative ones included;
+  // the map is replaced on every change so that reads need no lock
+  private volatile Map<Type, Object[]> resolvedHandlers = Collections.emptyMap();
+  private volatile int resolutionGeneration;
+  private static final Object NO_HANDLER = new Object();
+  private static final int NULL_JDBC_TYPE_SLOT = JdbcType.values().length;
   /**调用register()为很多基础类型注册对象的TypeHandler对象*/
   public TypeHandlerRegistry() {
     register(Boolean.class, new BooleanTypeHandler());
@@ -91,6 +98,7 @@ public final class TypeHandlerRegistry {
 
     register(Object.class, JdbcType.ARRAY, new ArrayTypeHandler());
     register(JdbcType.ARRAY, new ArrayTypeHandler());
+    register(ArrayParameter.class, new ArrayParameterTypeHandler());
 
     register(BigInteger.class, new BigIntegerTypeHandler());
     register(JdbcType.BIGINT, new LongTypeHandler());
@@ -101,6 +109,7 @@ public final class TypeHandlerRegistry {
     register(JdbcType.NUMERIC, new BigDecimalTypeHandler());
 
     register(InputStream.class, new BlobInputStreamTypeHandler());
+    register(ReadableByteChannel.class, new BlobChannelTypeHandler());
     register(Byte[].class, new ByteObjectArrayTypeHandler());
     register(Byte[].class, JdbcType.BLOB, new BlobByteObjectArrayTypeHandler());
     register(Byte[].class, JdbcType.LONGVARBINARY, new BlobByteObjectArrayTypeHandler());
@@ -190,6 +199,48 @@ public final class TypeHandlerRegistry {
 
   @SuppressWarnings("unchecked")
   private <T> TypeHandler<T> getTypeHandler(Type type, JdbcType jdbcType) {
+    final int slot = jdbcType == null ? NULL_JDBC_TYPE_SLOT : jdbcType.ordinal();
+    final Object[] resolved = resolvedHandlers.get(type);
+    Object handler = resolved == null ? null : resolved[slot];
+    if (handler == null) {
+      final int generation = getResolutionGeneration();
+      handler = resolveTypeHandler(type, jdbcType);
+      if (handler == null) {
+        handler = NO_HANDLER;
+      }
+      memoize(type, slot, handler, generation);
+    }
+    return handler == NO_HANDLER ? null : (TypeHandler<T>) handler;
+  }
+
+  /**
+   * Changes whenever a type handler is registered, so that type handlers resolved and kept elsewhere (e.g. by a
+   * {@link org.apache.ibatis.executor.resultset.ResultSetShape}) can be recognized as stale.
+   */
+  public int getResolutionGeneration() {
+    return resolutionGeneration;
+  }
+
+  private synchronized void memoize(Type type, int slot, Object handler, int generation) {
+    if (generation != resolutionGeneration) {
+      // a handler was registered while resolving
+      return;
+    }
+    final Map<Type, Object[]> snapshot = new HashMap<Type, Object[]>(resolvedHandlers);
+    final Object[] previous = snapshot.get(type);
+    final Object[] resolved = previous == null ? new Object[NULL_JDBC_TYPE_SLOT + 1] : previous.clone();
+    resolved[slot] = handler;
+    snapshot.put(type, resolved);
+    resolvedHandlers = snapshot;
+  }
+
+  private synchronized void clearResolvedHandlers() {
+    resolutionGeneration++;
+    resolvedHandlers = Collections.emptyMap();
+  }
+
+  @SuppressWarnings("unchecked")
+  private TypeHandler<?> resolveTypeHandler(Type type, JdbcType jdbcType) {
     Map<JdbcType, TypeHandler<?>> jdbcHandlerMap = TYPE_HANDLER_MAP.get(type);
     TypeHandler<?> handler = null;
     if (jdbcHandlerMap != null) {
@@ -205,8 +256,7 @@ public final class TypeHandlerRegistry {
     if (handler == null && type != null && type instanceof Class && Enum.class.isAssignableFrom((Class<?>) type)) {
       handler = new EnumTypeHandler((Class<?>) type);
     }
-    // type drives generics here
-    return (TypeHandler<T>) handler;
+    return handler;
   }
 
   private TypeHandler<?> pickSoleHandler(Map<JdbcType, TypeHandler<?>> jdbcHandlerMap) {
@@ -301,6 +351,7 @@ public final class TypeHandlerRegistry {
       map.put(jdbcType, handler);// 将TypeHandler对象注册到TYPE_HANDLER_MAP中
     }
     ALL_TYPE_HANDLERS_MAP.put(handler.getClass(), handler);// 向ALL_TYPE_HANDLERS_MAP中注册TypeHandler类型 和对应的TypeHandler对象
+    clearResolvedHandlers();
   }
 
   //
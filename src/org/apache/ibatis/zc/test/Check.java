@@ -0,0 +1,32 @@
+package org.apache.ibatis.zc.test;
+
+/**
+ * 行为检查的断言工具, 检查失败时抛出AssertionError
+ */
+public class Check
+{
+    private Check()
+    {
+    }
+
+    public static void equal(Object expected, Object actual, String message)
+    {
+        if (expected == null ? actual != null : !expected.equals(actual))
+        {
+            throw new AssertionError(message + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    public static void isTrue(boolean condition, String message)
+    {
+        if (!condition)
+        {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void fail(String message)
+    {
+        throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,148 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderGroup;
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * 同一结果集中N个父对象的延迟加载属性, 由ResultLoaderGroup用一次批量查询加载
+ */
+public class T06ResultLoaderGroup
+{
+    public static void main(String[] args) throws Exception
+    {
+        check(true);
+        check(false);
+        System.out.println("T06ResultLoaderGroup ok");
+    }
+
+    private static void check(boolean aggressiveLazyLoading) throws Exception
+    {
+        final int parentCount = 20;
+        Configuration configuration = new Configuration();
+        configuration.setAggressiveLazyLoading(aggressiveLazyLoading);
+        configuration.setLazyLoadBatchSize(parentCount);
+        AtomicInteger queries = new AtomicInteger();
+        Executor executor = executor(queries, parentCount);
+        MappedStatement children = new MappedStatement.Builder(configuration, "selectChildren",
+                new StaticSqlSource(configuration, "select * from child"), SqlCommandType.SELECT)
+                .resultMaps(Collections.singletonList(new ResultMap.Builder(configuration, "child", Child.class,
+                        new ArrayList<ResultMapping>()).build()))
+                .build();
+        ResultLoaderGroup group = new ResultLoaderGroup(configuration, executor, children, "parentId");
+
+        List<Parent> parents = new ArrayList<Parent>();
+        for (int i = 0; i < parentCount; i++)
+        {
+            Parent target = new Parent();
+            target.setId(i);
+            ResultLoaderMap lazyLoader = new ResultLoaderMap();
+            Parent parent = (Parent) configuration.getProxyFactory().createProxy(target, lazyLoader, configuration,
+                    configuration.getObjectFactory(), new ArrayList<Class<?>>(), new ArrayList<Object>());
+            ResultLoader resultLoader = new ResultLoader(configuration, executor, children, i, List.class, null, null);
+            lazyLoader.addLoader("children", configuration.newMetaObject(parent), resultLoader, group);
+            parents.add(parent);
+        }
+
+        Check.equal(1, parents.get(0).getChildren().size(), "children of the trigger");
+        Check.equal(1, queries.get(), "queries after the trigger");
+        for (int i = 0; i < parentCount; i++)
+        {
+            List<Child> loaded = parents.get(i).getChildren();
+            Check.equal(1, loaded.size(), "children of parent " + i);
+            Check.equal(i, loaded.get(0).getParentId(), "parent id of the child of parent " + i);
+        }
+        Check.equal(1, queries.get(), "queries after reading every parent");
+    }
+
+    // 每次查询返回每个父对象的一个子对象
+    private static Executor executor(final AtomicInteger queries, final int parentCount)
+    {
+        return (Executor) Proxy.newProxyInstance(Executor.class.getClassLoader(), new Class<?>[] { Executor.class },
+                new InvocationHandler()
+                {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                    {
+                        if ("createCacheKey".equals(method.getName()))
+                        {
+                            return new CacheKey();
+                        }
+                        if ("isClosed".equals(method.getName()))
+                        {
+                            return false;
+                        }
+                        if ("query".equals(method.getName()))
+                        {
+                            queries.incrementAndGet();
+                            List<Object> rows = new ArrayList<Object>();
+                            for (int i = 0; i < parentCount; i++)
+                            {
+                                Child child = new Child();
+                                child.setParentId(i);
+                                rows.add(child);
+                            }
+                            return rows;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    public static class Parent
+    {
+        private int id;
+        private List<Child> children;
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public void setId(int id)
+        {
+            this.id = id;
+        }
+
+        public List<Child> getChildren()
+        {
+            return children;
+        }
+
+        public void setChildren(List<Child> children)
+        {
+            this.children = children;
+        }
+    }
+
+    public static class Child
+    {
+        private int parentId;
+
+        public int getParentId()
+        {
+            return parentId;
+        }
+
+        public void setParentId(int parentId)
+        {
+            this.parentId = parentId;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.apache.ibatis.zc.test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.QueryCoalescer;
+
+/**
+ * 同一CacheKey的并发查询只执行一次, 每个会话拿到自己的结果副本
+ */
+public class T07QueryCoalescer
+{
+    private static final int SESSIONS = 8;
+
+    public static void main(String[] args) throws Exception
+    {
+        sharesOneExecution();
+        failedExecutionIsRunByWaiters();
+        System.out.println("T07QueryCoalescer ok");
+    }
+
+    private static void sharesOneExecution() throws Exception
+    {
+        final QueryCoalescer coalescer = new QueryCoalescer();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<List<StringBuilder>> results = run(coalescer, new QueryCoalescer.Query<StringBuilder>()
+        {
+            @Override
+            public List<StringBuilder> execute() throws SQLException
+            {
+                executions.incrementAndGet();
+                await(release);
+                List<StringBuilder> list = new ArrayList<StringBuilder>();
+                list.add(new StringBuilder("row"));
+                return list;
+            }
+        }, release);
+
+        Check.equal(1, executions.get(), "executions");
+        results.get(0).get(0).append(" changed");
+        for (int i = 1; i < SESSIONS; i++)
+        {
+            Check.equal("row", results.get(i).get(0).toString(), "copy of session " + i);
+        }
+    }
+
+    private static void failedExecutionIsRunByWaiters() throws Exception
+    {
+        final QueryCoalescer coalescer = new QueryCoalescer();
+        final AtomicInteger executions = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<List<StringBuilder>> results = run(coalescer, new QueryCoalescer.Query<StringBuilder>()
+        {
+            @Override
+            public List<StringBuilder> execute() throws SQLException
+            {
+                if (executions.incrementAndGet() == 1)
+                {
+                    await(release);
+                    throw new SQLException("first execution fails");
+                }
+                return new ArrayList<StringBuilder>();
+            }
+        }, release);
+
+        Check.equal(SESSIONS, executions.get(), "executions");
+        Check.equal(SESSIONS - 1, results.size(), "sessions with a result");
+    }
+
+    // 第一个会话执行查询, 其它会话加入后放行
+    private static List<List<StringBuilder>> run(final QueryCoalescer coalescer,
+            final QueryCoalescer.Query<StringBuilder> query, CountDownLatch release) throws Exception
+    {
+        final CacheKey key = new CacheKey(new Object[] { "select", 1 });
+        final List<List<StringBuilder>> results = new ArrayList<List<StringBuilder>>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < SESSIONS; i++)
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        List<StringBuilder> list = coalescer.query(key, query);
+                        synchronized (results)
+                        {
+                            results.add(list);
+                        }
+                    }
+                    catch (SQLException e)
+                    {
+                        // 第一个会话的失败
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+            if (i == 0)
+            {
+                Thread.sleep(100);
+            }
+        }
+        Thread.sleep(300);
+        release.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
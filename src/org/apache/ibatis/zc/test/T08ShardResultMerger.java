@@ -0,0 +1,124 @@
+package org.apache.ibatis.zc.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.sharding.ShardResultMerger;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 各分片已排序的结果按ORDER BY归并, 并应用RowBounds
+ */
+public class T08ShardResultMerger
+{
+    private static final String SQL = "select id, shard from item order by id desc";
+
+    public static void main(String[] args)
+    {
+        Configuration configuration = new Configuration();
+        ShardResultMerger merger = new ShardResultMerger(configuration);
+        MappedStatement maps = statement(configuration, "selectMaps", HashMap.class);
+        MappedStatement ids = statement(configuration, "selectIds", Integer.class);
+
+        List<List<Map<String, Object>>> shards = new ArrayList<List<Map<String, Object>>>();
+        shards.add(rows(0, 9, 5, 5, 1));
+        shards.add(rows(1, 8, 5, 2));
+        shards.add(rows(2));
+        shards.add(rows(3, 7, 6));
+
+        List<Map<String, Object>> merged = merger.merge(maps, SQL, shards, RowBounds.DEFAULT);
+        Check.equal(Arrays.asList(9, 8, 7, 6, 5, 5, 5, 2, 1), values(merged, "id"), "merged ids");
+        Check.equal(Arrays.asList(0, 0, 1), values(merged, "shard").subList(4, 7), "ties keep shard order");
+
+        List<Map<String, Object>> page = merger.merge(maps, SQL, shards, new RowBounds(2, 4));
+        Check.equal(Arrays.asList(7, 6, 5, 5), values(page, "id"), "page ids");
+        Check.equal(0, merger.merge(maps, SQL, shards, new RowBounds(20, 5)).size(), "page after the last row");
+        Check.equal(new RowBounds(0, 6).getLimit(), merger.shardRowBounds(new RowBounds(2, 4)).getLimit(), "shard limit");
+
+        // 同一SQL的单列结果语句有自己的比较器, 直接比较行本身
+        List<List<Integer>> plain = new ArrayList<List<Integer>>();
+        plain.add(Arrays.asList(3, 1));
+        plain.add(Arrays.asList(2));
+        Check.equal(Arrays.asList(3, 2, 1), merger.merge(ids, SQL, plain, RowBounds.DEFAULT), "merged single column rows");
+
+        MappedStatement unordered = statement(configuration, "selectUnordered", HashMap.class);
+        List<Map<String, Object>> concatenated = merger.merge(unordered, "select id, shard from item", shards, new RowBounds(1, 3));
+        Check.equal(Arrays.asList(5, 5, 1), values(concatenated, "id"), "concatenated ids");
+        concatenated = merger.merge(unordered, "select * from (select id, shard from item order by id) s", shards, new RowBounds(1, 3));
+        Check.equal(Arrays.asList(5, 5, 1), values(concatenated, "id"), "ORDER BY of a sub query");
+
+        // 无法归并的ORDER BY报错, 不退回拼接
+        MappedStatement items = statement(configuration, "selectItems", Item.class);
+        for (String sql : Arrays.asList("select id from item order by lower(name)", "select id from item order by id + 1",
+            "select id from item order by 1", "select id as code from item order by code", "select id from item order by id nulls first"))
+        {
+            try
+            {
+                merger.merge(items, sql, new ArrayList<List<Object>>(), RowBounds.DEFAULT);
+                Check.fail("unsortable " + sql);
+            }
+            catch (ExecutorException e)
+            {
+                Check.isTrue(e.getMessage().startsWith("Cannot merge the results of 'selectItems'"), "message: " + e.getMessage());
+            }
+        }
+        Check.equal(0, merger.merge(items, "select id from item order by item.id desc", new ArrayList<List<Object>>(), RowBounds.DEFAULT).size(),
+            "qualified column");
+        System.out.println("T08ShardResultMerger ok");
+    }
+
+    private static MappedStatement statement(Configuration configuration, String id, Class<?> type)
+    {
+        ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", type, new ArrayList<ResultMapping>()).build();
+        return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, SQL), SqlCommandType.SELECT)
+                .resultMaps(Arrays.asList(resultMap)).build();
+    }
+
+    private static List<Map<String, Object>> rows(int shard, int... ids)
+    {
+        List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+        for (int id : ids)
+        {
+            Map<String, Object> row = new HashMap<String, Object>();
+            row.put("id", id);
+            row.put("shard", shard);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<Object> values(List<Map<String, Object>> rows, String column)
+    {
+        List<Object> values = new ArrayList<Object>();
+        for (Map<String, Object> row : rows)
+        {
+            values.add(row.get(column));
+        }
+        return values;
+    }
+
+    public static class Item
+    {
+        private int id;
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public void setId(int id)
+        {
+            this.id = id;
+        }
+    }
+}
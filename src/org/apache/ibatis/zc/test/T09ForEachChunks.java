@@ -0,0 +1,81 @@
+package org.apache.ibatis.zc.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.dialect.CountSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.ForEachMode;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * foreach补齐到2的幂, 按chunkSize拆分, 计数语句对每块计数
+ */
+public class T09ForEachChunks
+{
+    private static final String SELECT = "select * from t where id in";
+
+    public static void main(String[] args)
+    {
+        Configuration configuration = new Configuration();
+        Map<String, Object> parameter = new HashMap<String, Object>();
+        parameter.put("ids", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+
+        // 10个元素补齐到16个占位符, 重复最后一个元素
+        BoundSql padded = source(configuration, ForEachMode.PADDED, 0).getBoundSql(parameter);
+        Check.isTrue(!padded.isChunked(), "padded without chunkSize is not split");
+        Check.equal(16, padded.getParameterMappings().size(), "padded placeholders");
+        Check.equal(Arrays.<Object> asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 10, 10, 10, 10, 10, 10), values(padded), "padded values");
+
+        List<BoundSql> chunks = source(configuration, ForEachMode.EACH, 4).getBoundSql(parameter).getChunks();
+        Check.equal(3, chunks.size(), "chunks");
+        Check.equal(Arrays.<Object> asList(1, 2, 3, 4), values(chunks.get(0)), "first chunk");
+        Check.equal(Arrays.<Object> asList(5, 6, 7, 8), values(chunks.get(1)), "second chunk");
+        Check.equal(Arrays.<Object> asList(9, 10), values(chunks.get(2)), "last chunk");
+        Check.equal(SELECT + " (  ? , ? )", chunks.get(2).getSql(), "last chunk sql");
+
+        // 补齐不超过chunkSize, 最后一块补齐到2
+        List<BoundSql> paddedChunks = source(configuration, ForEachMode.PADDED, 4).getBoundSql(parameter).getChunks();
+        Check.equal(3, paddedChunks.size(), "padded chunks");
+        Check.equal(4, paddedChunks.get(1).getParameterMappings().size(), "padded chunk placeholders");
+        Check.equal(Arrays.<Object> asList(9, 10), values(paddedChunks.get(2)), "padded last chunk");
+
+        // 计数语句保留所有块, 每块一条COUNT
+        BoundSql count = new CountSqlSource(source(configuration, ForEachMode.EACH, 4)).getBoundSql(parameter);
+        Check.equal(3, count.getChunks().size(), "count chunks");
+        Check.equal("SELECT COUNT(*) FROM (" + SELECT + " (  ? , ? )) count_source", count.getChunks().get(2).getSql(), "last count chunk sql");
+        Check.equal(Arrays.<Object> asList(9, 10), values(count.getChunks().get(2)), "last count chunk values");
+
+        MappedStatement ms = new MappedStatement.Builder(configuration, "selectChunks", source(configuration, ForEachMode.EACH, 4), SqlCommandType.SELECT).build();
+        Check.equal(3, ms.getBoundSql(parameter).getChunks().size(), "mapped statement chunks");
+        System.out.println("T09ForEachChunks ok");
+    }
+
+    private static SqlSource source(Configuration configuration, ForEachMode mode, int chunkSize)
+    {
+        SqlNode forEach = new ForEachSqlNode(configuration, new StaticTextSqlNode("#{id}"), "ids", null, "id", "(", ")", ",", mode, null, chunkSize);
+        return new DynamicSqlSource(configuration, new MixedSqlNode(Arrays.<SqlNode> asList(new StaticTextSqlNode(SELECT), forEach)));
+    }
+
+    private static List<Object> values(BoundSql boundSql)
+    {
+        List<Object> values = new ArrayList<Object>();
+        for (ParameterMapping parameterMapping : boundSql.getParameterMappings())
+        {
+            values.add(boundSql.getAdditionalParameter(parameterMapping.getProperty()));
+        }
+        return values;
+    }
+}
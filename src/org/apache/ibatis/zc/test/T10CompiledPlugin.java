@@ -0,0 +1,242 @@
+package org.apache.ibatis.zc.test;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.plugin.GeneratedPlugin;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.InterceptorChain;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+
+/**
+ * 编译后的拦截器链与嵌套Plugin代理的调用顺序和异常包装一致
+ */
+public class T10CompiledPlugin
+{
+    private static final List<String> calls = new ArrayList<String>();
+
+    public static void main(String[] args) throws Exception
+    {
+        Service nested = (Service) chain(false).pluginAll(new Target());
+        Service compiled = (Service) chain(true).pluginAll(new Target());
+        Check.isTrue(compiled instanceof GeneratedPlugin, "public interfaces get a generated class");
+        Check.isTrue(!Proxy.isProxyClass(compiled.getClass()), "no dynamic proxy");
+
+        for (Service service : Arrays.asList(nested, compiled))
+        {
+            String kind = service == nested ? "nested" : "compiled";
+            calls.clear();
+            Check.equal("x!", service.call("x"), kind + " result");
+            Check.equal(Arrays.asList("third", "second", "first", "target"), calls, kind + " chain order");
+
+            calls.clear();
+            Check.equal(3, service.plain(2), kind + " plain result");
+            Check.equal(Arrays.asList("target"), calls, kind + " plain is not intercepted");
+
+            try
+            {
+                service.fail("sql");
+                Check.fail(kind + " declared exception");
+            }
+            catch (SQLException e)
+            {
+                Check.equal("sql", e.getMessage(), kind + " declared exception message");
+            }
+            try
+            {
+                service.fail("runtime");
+                Check.fail(kind + " runtime exception");
+            }
+            catch (IllegalStateException e)
+            {
+                Check.equal("runtime", e.getMessage(), kind + " runtime exception message");
+            }
+            try
+            {
+                service.fail("undeclared");
+                Check.fail(kind + " undeclared exception");
+            }
+            catch (UndeclaredThrowableException e)
+            {
+                Check.isTrue(e.getCause() instanceof IOException, kind + " undeclared exception cause");
+            }
+        }
+        Check.equal(new Target().toString(), compiled.toString(), "toString of the target");
+
+        // 非public接口退回动态代理
+        InterceptorChain hiddenChain = new InterceptorChain();
+        hiddenChain.setCompiled(true);
+        hiddenChain.addInterceptor(new HiddenInterceptor());
+        Hidden hidden = (Hidden) hiddenChain.pluginAll(new HiddenTarget());
+        Check.isTrue(Proxy.isProxyClass(hidden.getClass()), "non public interface gets a dynamic proxy");
+        Check.equal("hidden!", hidden.name(), "intercepted result");
+        System.out.println("T10CompiledPlugin ok");
+    }
+
+    private static InterceptorChain chain(boolean compiled)
+    {
+        InterceptorChain chain = new InterceptorChain();
+        chain.setCompiled(compiled);
+        chain.addInterceptor(new First());
+        chain.addInterceptor(new Second());
+        chain.addInterceptor(new Third());
+        return chain;
+    }
+
+    public interface Service
+    {
+        String call(String s) throws IOException;
+
+        int plain(int x);
+
+        void fail(String kind) throws SQLException;
+    }
+
+    public static class Target implements Service
+    {
+        @Override
+        public String call(String s)
+        {
+            calls.add("target");
+            return s;
+        }
+
+        @Override
+        public int plain(int x)
+        {
+            calls.add("target");
+            return x + 1;
+        }
+
+        @Override
+        public void fail(String kind) throws SQLException
+        {
+            if ("sql".equals(kind))
+            {
+                throw new SQLException(kind);
+            }
+            if ("runtime".equals(kind))
+            {
+                throw new IllegalStateException(kind);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return "target";
+        }
+    }
+
+    private abstract static class Recording implements Interceptor
+    {
+        private final String name;
+
+        Recording(String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable
+        {
+            calls.add(name);
+            return invocation.proceed();
+        }
+
+        @Override
+        public Object plugin(Object target)
+        {
+            return Plugin.wrap(target, this);
+        }
+
+        @Override
+        public void setProperties(Properties properties)
+        {
+        }
+    }
+
+    @Intercepts({ @Signature(type = Service.class, method = "call", args = { String.class }) })
+    public static class First extends Recording
+    {
+        First()
+        {
+            super("first");
+        }
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable
+        {
+            return super.intercept(invocation) + "!";
+        }
+    }
+
+    @Intercepts({ @Signature(type = Service.class, method = "call", args = { String.class }),
+        @Signature(type = Service.class, method = "fail", args = { String.class }) })
+    public static class Second extends Recording
+    {
+        Second()
+        {
+            super("second");
+        }
+    }
+
+    @Intercepts({ @Signature(type = Service.class, method = "call", args = { String.class }),
+        @Signature(type = Service.class, method = "fail", args = { String.class }) })
+    public static class Third extends Recording
+    {
+        Third()
+        {
+            super("third");
+        }
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable
+        {
+            if ("undeclared".equals(invocation.getArgs()[0]))
+            {
+                throw new IOException("undeclared");
+            }
+            return super.intercept(invocation);
+        }
+    }
+
+    interface Hidden
+    {
+        String name();
+    }
+
+    static class HiddenTarget implements Hidden
+    {
+        @Override
+        public String name()
+        {
+            return "hidden";
+        }
+    }
+
+    @Intercepts({ @Signature(type = Hidden.class, method = "name", args = {}) })
+    public static class HiddenInterceptor extends Recording
+    {
+        HiddenInterceptor()
+        {
+            super("hidden");
+        }
+
+        // 与Plugin一样, Invocation无法反射调用非public接口的方法
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable
+        {
+            return "hidden!";
+        }
+    }
+}
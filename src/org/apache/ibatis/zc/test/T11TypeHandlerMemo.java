@@ -0,0 +1,92 @@
+package org.apache.ibatis.zc.test;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.EnumTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * 已解析的TypeHandler(包括未找到的结果)在注册新的TypeHandler后失效
+ */
+public class T11TypeHandlerMemo
+{
+    public static void main(String[] args)
+    {
+        TypeHandlerRegistry registry = new TypeHandlerRegistry();
+
+        // 未找到的结果也被记住, 注册后失效
+        Check.isTrue(registry.getTypeHandler(Money.class) == null, "unknown type");
+        Check.isTrue(registry.getTypeHandler(Money.class) == null, "unknown type again");
+        int generation = registry.getResolutionGeneration();
+        MoneyTypeHandler moneyHandler = new MoneyTypeHandler();
+        registry.register(Money.class, moneyHandler);
+        Check.isTrue(registry.getResolutionGeneration() != generation, "generation changes on registration");
+        Check.isTrue(registry.getTypeHandler(Money.class) == moneyHandler, "registered handler replaces the negative result");
+        Check.isTrue(registry.getTypeHandler(Money.class, JdbcType.DECIMAL) == moneyHandler, "sole handler for any jdbc type");
+
+        // 已解析的处理器在按JdbcType注册后被替换
+        TypeHandler<String> varchar = registry.getTypeHandler(String.class, JdbcType.VARCHAR);
+        Check.isTrue(varchar instanceof StringTypeHandler, "built-in string handler");
+        Check.isTrue(registry.getTypeHandler(String.class, JdbcType.VARCHAR) == varchar, "memoized handler");
+        TrimmingTypeHandler trimming = new TrimmingTypeHandler();
+        registry.register(String.class, JdbcType.VARCHAR, trimming);
+        Check.isTrue(registry.getTypeHandler(String.class, JdbcType.VARCHAR) == trimming, "handler registered for the jdbc type");
+        Check.isTrue(registry.getTypeHandler(String.class, JdbcType.CHAR) != trimming, "other jdbc types keep their handler");
+
+        // 枚举的默认处理器只创建一次
+        TypeHandler<Color> color = registry.getTypeHandler(Color.class);
+        Check.isTrue(color instanceof EnumTypeHandler, "enum handler");
+        Check.isTrue(registry.getTypeHandler(Color.class) == color, "memoized enum handler");
+        System.out.println("T11TypeHandlerMemo ok");
+    }
+
+    public enum Color
+    {
+        RED, GREEN
+    }
+
+    public static class Money
+    {
+    }
+
+    public static class MoneyTypeHandler extends NoOpTypeHandler<Money>
+    {
+    }
+
+    public static class TrimmingTypeHandler extends NoOpTypeHandler<String>
+    {
+    }
+
+    public abstract static class NoOpTypeHandler<T> extends BaseTypeHandler<T>
+    {
+        @Override
+        public void setNonNullParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException
+        {
+        }
+
+        @Override
+        public T getNullableResult(ResultSet rs, String columnName) throws SQLException
+        {
+            return null;
+        }
+
+        @Override
+        public T getNullableResult(ResultSet rs, int columnIndex) throws SQLException
+        {
+            return null;
+        }
+
+        @Override
+        public T getNullableResult(CallableStatement cs, int columnIndex) throws SQLException
+        {
+            return null;
+        }
+    }
+}
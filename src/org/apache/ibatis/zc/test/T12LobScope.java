@@ -0,0 +1,146 @@
+package org.apache.ibatis.zc.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.channels.ReadableByteChannel;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.type.BlobInputStreamTypeHandler;
+import org.apache.ibatis.type.ClobReaderTypeHandler;
+import org.apache.ibatis.type.LobScope;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * LobScope在release时关闭登记的流并释放LOB, 作用域之外读取的流交给调用者
+ */
+public class T12LobScope
+{
+    private static final List<String> events = new ArrayList<String>();
+
+    public static void main(String[] args) throws Exception
+    {
+        BlobInputStreamTypeHandler blobHandler = new BlobInputStreamTypeHandler();
+        ClobReaderTypeHandler clobHandler = new ClobReaderTypeHandler();
+
+        // 作用域之外: 不登记, 不释放
+        InputStream outside = blobHandler.getResult(resultSet(), "data");
+        Check.equal((int) 'a', outside.read(), "stream read outside of a scope");
+        outside.close();
+        Check.equal(Arrays.asList("close data"), events, "outside of a scope the blob is not freed");
+        events.clear();
+
+        LobScope row = new LobScope();
+        LobScope previous = row.enter();
+        InputStream data;
+        Reader text;
+        try
+        {
+            data = blobHandler.getResult(resultSet(), "data");
+            text = clobHandler.getResult(resultSet(), 2);
+        }
+        finally
+        {
+            row.exit(previous);
+        }
+        Check.isTrue(!row.isEmpty(), "streams registered to the scope");
+        Check.equal((int) 'a', data.read(), "stream readable until released");
+        Check.equal((int) 'x', text.read(), "reader readable until released");
+        Check.isTrue(events.isEmpty(), "nothing released yet");
+
+        // 嵌套作用域退出后恢复外层作用域
+        LobScope inner = new LobScope();
+        LobScope outer = row.enter();
+        LobScope restored = inner.enter();
+        blobHandler.getResult(resultSet(), "inner");
+        inner.exit(restored);
+        blobHandler.getResult(resultSet(), "outer");
+        row.exit(outer);
+        inner.release();
+        Check.equal(Arrays.asList("close inner", "free inner"), events, "inner scope releases its own stream");
+        events.clear();
+
+        row.release();
+        Check.isTrue(row.isEmpty(), "released scope is empty");
+        Check.equal(Arrays.asList("close data", "free data", "close 2", "free 2", "close outer", "free outer"), events,
+            "release closes the streams and frees their LOBs");
+
+        TypeHandlerRegistry registry = new TypeHandlerRegistry();
+        Check.isTrue(LobScope.isStreamed(registry.getTypeHandler(InputStream.class)), "input streams are streamed");
+        Check.isTrue(LobScope.isStreamed(registry.getTypeHandler(Reader.class)), "readers are streamed");
+        Check.isTrue(LobScope.isStreamed(registry.getTypeHandler(ReadableByteChannel.class)), "channels are streamed");
+        Check.isTrue(!LobScope.isStreamed(registry.getTypeHandler(byte[].class)), "byte arrays are read at once");
+        Check.isTrue(!registry.hasTypeHandler(File.class), "files are not mapped by default");
+        System.out.println("T12LobScope ok");
+    }
+
+    private static ResultSet resultSet()
+    {
+        return proxy(ResultSet.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("getBlob".equals(method.getName()))
+                {
+                    return lob(Blob.class, String.valueOf(args[0]));
+                }
+                if ("getClob".equals(method.getName()))
+                {
+                    return lob(Clob.class, String.valueOf(args[0]));
+                }
+                return "wasNull".equals(method.getName()) ? Boolean.FALSE : null;
+            }
+        });
+    }
+
+    private static <T> T lob(final Class<T> type, final String name)
+    {
+        return proxy(type, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("free".equals(method.getName()))
+                {
+                    events.add("free " + name);
+                    return null;
+                }
+                if (type == Blob.class)
+                {
+                    return new ByteArrayInputStream("abc".getBytes())
+                    {
+                        @Override
+                        public void close()
+                        {
+                            events.add("close " + name);
+                        }
+                    };
+                }
+                return new StringReader("xyz")
+                {
+                    @Override
+                    public void close()
+                    {
+                        events.add("close " + name);
+                    }
+                };
+            }
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(T12LobScope.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}
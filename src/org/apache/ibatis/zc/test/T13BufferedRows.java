@@ -0,0 +1,231 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 并行映射时, 缓冲的行按类型处理器请求的类型转换列值, 并保持行的顺序
+ */
+public class T13BufferedRows
+{
+    private static final String[] COLUMNS = { "ID", "COUNT", "TOTAL", "ACTIVE", "FLAG", "BIT", "CREATED", "DAY", "TEXT", "MISSING" };
+
+    private static final int[] TYPES = { Types.INTEGER, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.BIT,
+        Types.TIMESTAMP, Types.TIMESTAMP, Types.INTEGER, Types.INTEGER };
+
+    private static final long TIME = 1500000000000L;
+
+    public static void main(String[] args) throws Exception
+    {
+        // 300行: 一批在线程池中映射, 剩余的在当前线程映射
+        List<Object[]> rows = new ArrayList<Object[]>();
+        for (int i = 0; i < 300; i++)
+        {
+            rows.add(new Object[] { i, new BigDecimal(i * 2), " " + i + " ", i % 2 == 0 ? "true" : "0", i % 3,
+                i % 2 == 1, new Timestamp(TIME + i), new Timestamp(TIME + i), i, null });
+        }
+        List<Object> results = select(rows);
+        Check.equal(300, results.size(), "rows");
+        for (int i = 0; i < results.size(); i++)
+        {
+            Row row = (Row) results.get(i);
+            Check.equal(i, row.id, "row order");
+            Check.equal(i * 2, row.count, "decimal to int");
+            Check.equal((long) i, row.total, "text to long");
+            Check.equal(i % 2 == 0, row.active, "text to boolean");
+            Check.equal(i % 3 != 0, row.flag, "number to Boolean");
+            Check.equal(i % 2, row.bit, "boolean to Integer");
+            Check.equal(new Date(TIME + i), row.created, "timestamp to date");
+            Check.equal(new java.sql.Date(TIME + i), row.day, "timestamp to sql date");
+            Check.equal(String.valueOf(i), row.text, "number to String");
+            Check.equal(null, row.missing, "null stays null");
+        }
+
+        // 无法转换的值报错
+        Object[] invalid = rows.get(0).clone();
+        invalid[1] = UUID.randomUUID();
+        try
+        {
+            select(Arrays.<Object[]> asList(invalid));
+            Check.fail("unconvertible value");
+        }
+        catch (RuntimeException e)
+        {
+            Throwable cause = e;
+            while (cause.getCause() != null && !(cause instanceof SQLException))
+            {
+                cause = cause.getCause();
+            }
+            Check.equal("Cannot convert a buffered java.util.UUID to int", cause.getMessage(), "conversion error");
+        }
+        System.out.println("T13BufferedRows ok");
+    }
+
+    private static List<Object> select(final List<Object[]> rows) throws SQLException
+    {
+        Configuration configuration = new Configuration();
+        configuration.setParallelRowMapping(true);
+        ResultMap resultMap = new ResultMap.Builder(configuration, "row", Row.class, new ArrayList<ResultMapping>(), true).build();
+        configuration.addResultMap(resultMap);
+        MappedStatement ms = new MappedStatement.Builder(configuration, "selectRows", new StaticSqlSource(configuration, "select * from t"),
+            SqlCommandType.SELECT).resultMaps(Arrays.asList(resultMap)).build();
+
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("getColumnCount".equals(name))
+                {
+                    return COLUMNS.length;
+                }
+                int column = (Integer) args[0] - 1;
+                if ("getColumnType".equals(name))
+                {
+                    return TYPES[column];
+                }
+                if ("getColumnClassName".equals(name))
+                {
+                    return Object.class.getName();
+                }
+                return COLUMNS[column];
+            }
+        });
+        final int[] current = { -1 };
+        final ResultSet resultSet = proxy(ResultSet.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("next".equals(name))
+                {
+                    return ++current[0] < rows.size();
+                }
+                if ("getMetaData".equals(name))
+                {
+                    return metaData;
+                }
+                if ("getType".equals(name))
+                {
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                }
+                // 只按下标复制原始值
+                if (name.startsWith("get") && args != null && args[0] instanceof Integer)
+                {
+                    return rows.get(current[0])[(Integer) args[0] - 1];
+                }
+                return null;
+            }
+        });
+        Statement statement = proxy(Statement.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws SQLException
+            {
+                if ("getResultSet".equals(method.getName()))
+                {
+                    return resultSet;
+                }
+                if ("getConnection".equals(method.getName()))
+                {
+                    throw new SQLException("no connection");
+                }
+                return null;
+            }
+        });
+        return new DefaultResultSetHandler(null, ms, null, null, ms.getBoundSql(null), RowBounds.DEFAULT).handleResultSets(statement);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(T13BufferedRows.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    public static class Row
+    {
+        int id;
+        int count;
+        long total;
+        boolean active;
+        Boolean flag;
+        Integer bit;
+        Date created;
+        java.sql.Date day;
+        String text;
+        Integer missing;
+
+        public void setId(int id)
+        {
+            this.id = id;
+        }
+
+        public void setCount(int count)
+        {
+            this.count = count;
+        }
+
+        public void setTotal(long total)
+        {
+            this.total = total;
+        }
+
+        public void setActive(boolean active)
+        {
+            this.active = active;
+        }
+
+        public void setFlag(Boolean flag)
+        {
+            this.flag = flag;
+        }
+
+        public void setBit(Integer bit)
+        {
+            this.bit = bit;
+        }
+
+        public void setCreated(Date created)
+        {
+            this.created = created;
+        }
+
+        public void setDay(java.sql.Date day)
+        {
+            this.day = day;
+        }
+
+        public void setText(String text)
+        {
+            this.text = text;
+        }
+
+        public void setMissing(Integer missing)
+        {
+            this.missing = missing;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 嵌套结果映射按RowKey合并连接的行: 复合id按值比较, 子对象的键包含父对象的键, id全为null时不创建对象
+ */
+public class T14RowKey
+{
+    private static final String[] COLUMNS = { "P_ID", "NAME", "C_ID", "C_CODE" };
+
+    public static void main(String[] args) throws Exception
+    {
+        List<Object[]> rows = new ArrayList<Object[]>();
+        rows.add(new Object[] { 1L, "a", 10, new byte[] { 1 } });
+        // 重复的行, 数组内容相同但不是同一个实例
+        rows.add(new Object[] { 1L, "a", 10, new byte[] { 1 } });
+        rows.add(new Object[] { 1L, "a", 10, new byte[] { 2 } });
+        // 另一个父对象下相同的子id
+        rows.add(new Object[] { 2L, "b", 10, new byte[] { 1 } });
+        rows.add(new Object[] { 2L, "b", null, null });
+        rows.add(new Object[] { 1L, "a", 11, new byte[] { 1 } });
+        rows.add(new Object[] { 3L, "c", null, null });
+        List<Object> parents = select(rows);
+        Check.equal(3, parents.size(), "parents");
+        Parent first = (Parent) parents.get(0);
+        Parent second = (Parent) parents.get(1);
+        Check.equal("1a[10/1, 10/2, 11/1]", first.toString(), "children merged by composite id");
+        Check.equal("2b[10/1]", second.toString(), "null ids create no child");
+        Check.isTrue(first.kids.get(0) != second.kids.get(0), "child keys include the parent key");
+        Check.equal("3c[]", parents.get(2).toString(), "parent without children");
+
+        // 交错的大量行
+        rows.clear();
+        for (int round = 0; round < 3; round++)
+        {
+            for (long parent = 0; parent < 500; parent++)
+            {
+                rows.add(new Object[] { parent, "p", (int) parent % 7, new byte[] { (byte) round } });
+                rows.add(new Object[] { parent, "p", (int) parent % 7, new byte[] { (byte) round } });
+            }
+        }
+        parents = select(rows);
+        Check.equal(500, parents.size(), "interleaved parents");
+        for (int i = 0; i < parents.size(); i++)
+        {
+            Parent parent = (Parent) parents.get(i);
+            Check.equal((long) i, parent.id, "parent order");
+            Check.equal(3, parent.kids.size(), "children of parent " + i);
+        }
+        System.out.println("T14RowKey ok");
+    }
+
+    private static List<Object> select(final List<Object[]> rows) throws SQLException
+    {
+        Configuration configuration = new Configuration();
+        List<ResultMapping> childMappings = new ArrayList<ResultMapping>();
+        childMappings.add(new ResultMapping.Builder(configuration, "id", "C_ID", Integer.class).flags(Arrays.asList(ResultFlag.ID)).build());
+        childMappings.add(new ResultMapping.Builder(configuration, "code", "C_CODE", byte[].class).flags(Arrays.asList(ResultFlag.ID)).build());
+        configuration.addResultMap(new ResultMap.Builder(configuration, "child", Child.class, childMappings, false).build());
+        List<ResultMapping> parentMappings = new ArrayList<ResultMapping>();
+        parentMappings.add(new ResultMapping.Builder(configuration, "id", "P_ID", Long.class).flags(Arrays.asList(ResultFlag.ID)).build());
+        parentMappings.add(new ResultMapping.Builder(configuration, "name", "NAME", String.class).build());
+        parentMappings.add(new ResultMapping.Builder(configuration, "kids").nestedResultMapId("child").javaType(List.class).build());
+        ResultMap resultMap = new ResultMap.Builder(configuration, "parent", Parent.class, parentMappings, false).build();
+        configuration.addResultMap(resultMap);
+        MappedStatement ms = new MappedStatement.Builder(configuration, "selectParents", new StaticSqlSource(configuration, "select * from t"),
+            SqlCommandType.SELECT).resultMaps(Arrays.asList(resultMap)).build();
+
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("getColumnCount".equals(name))
+                {
+                    return COLUMNS.length;
+                }
+                int column = (Integer) args[0];
+                if ("getColumnType".equals(name))
+                {
+                    return column == 1 ? Types.BIGINT : column == 3 ? Types.INTEGER : column == 4 ? Types.BINARY : Types.VARCHAR;
+                }
+                if ("getColumnClassName".equals(name))
+                {
+                    return Object.class.getName();
+                }
+                return COLUMNS[column - 1];
+            }
+        });
+        final int[] current = { -1 };
+        final boolean[] wasNull = { false };
+        final ResultSet resultSet = proxy(ResultSet.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("next".equals(name))
+                {
+                    return ++current[0] < rows.size();
+                }
+                if ("getMetaData".equals(name))
+                {
+                    return metaData;
+                }
+                if ("getType".equals(name))
+                {
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                }
+                if ("wasNull".equals(name))
+                {
+                    return wasNull[0];
+                }
+                if (name.startsWith("get") && args != null && args.length == 1)
+                {
+                    int column = args[0] instanceof Integer ? (Integer) args[0] - 1 : Arrays.asList(COLUMNS).indexOf(args[0]);
+                    Object value = rows.get(current[0])[column];
+                    wasNull[0] = value == null;
+                    if (value == null)
+                    {
+                        return "getInt".equals(name) ? (Object) 0 : "getLong".equals(name) ? (Object) 0L : null;
+                    }
+                    return value;
+                }
+                return null;
+            }
+        });
+        Statement statement = proxy(Statement.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws SQLException
+            {
+                if ("getResultSet".equals(method.getName()))
+                {
+                    return resultSet;
+                }
+                if ("getConnection".equals(method.getName()))
+                {
+                    throw new SQLException("no connection");
+                }
+                return null;
+            }
+        });
+        return new DefaultResultSetHandler(null, ms, null, null, ms.getBoundSql(null), RowBounds.DEFAULT).handleResultSets(statement);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(T14RowKey.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    public static class Parent
+    {
+        Long id;
+        String name;
+        List<Child> kids;
+
+        public void setId(Long id)
+        {
+            this.id = id;
+        }
+
+        public void setName(String name)
+        {
+            this.name = name;
+        }
+
+        public List<Child> getKids()
+        {
+            return kids;
+        }
+
+        public void setKids(List<Child> kids)
+        {
+            this.kids = kids;
+        }
+
+        @Override
+        public String toString()
+        {
+            return id + name + (kids == null ? "[]" : kids.toString());
+        }
+    }
+
+    public static class Child
+    {
+        Integer id;
+        byte[] code;
+
+        public void setId(Integer id)
+        {
+            this.id = id;
+        }
+
+        public void setCode(byte[] code)
+        {
+            this.code = code;
+        }
+
+        @Override
+        public String toString()
+        {
+            return id + "/" + code[0];
+        }
+    }
+}
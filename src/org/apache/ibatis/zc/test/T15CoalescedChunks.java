@@ -0,0 +1,171 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
+import org.apache.ibatis.scripting.xmltags.ForEachMode;
+import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
+import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+
+/**
+ * 合并执行的查询中foreach拆分成块时, 每块都执行, 结果不丢失
+ */
+public class T15CoalescedChunks
+{
+    private static int statements;
+
+    public static void main(String[] args) throws Exception
+    {
+        Configuration configuration = new Configuration();
+        SqlNode forEach = new ForEachSqlNode(configuration, new StaticTextSqlNode("#{id}"), "ids", null, "id", "(", ")", ",",
+            ForEachMode.EACH, null, 4);
+        ResultMap resultMap = new ResultMap.Builder(configuration, "selectIds-Inline", Integer.class, new ArrayList<ResultMapping>()).build();
+        MappedStatement ms = new MappedStatement.Builder(configuration, "selectIds",
+            new DynamicSqlSource(configuration, new MixedSqlNode(Arrays.<SqlNode> asList(new StaticTextSqlNode("select id from t where id in"), forEach))),
+            SqlCommandType.SELECT).resultMaps(Arrays.asList(resultMap)).coalesce(true).build();
+        Map<String, Object> parameter = new HashMap<String, Object>();
+        parameter.put("ids", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+
+        Executor executor = configuration.newExecutor(new JdbcTransaction(connection()), ExecutorType.SIMPLE);
+        List<Object> ids = executor.query(ms, parameter, RowBounds.DEFAULT, null);
+        Check.equal(Arrays.<Object> asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), ids, "rows of every chunk");
+        Check.equal(3, statements, "one statement per chunk");
+        executor.close(false);
+        System.out.println("T15CoalescedChunks ok");
+    }
+
+    // 每条语句返回它绑定的参数
+    private static Connection connection()
+    {
+        return proxy(Connection.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("prepareStatement".equals(method.getName()))
+                {
+                    statements++;
+                    return statement();
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static PreparedStatement statement()
+    {
+        final List<Object> values = new ArrayList<Object>();
+        return proxy(PreparedStatement.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws SQLException
+            {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length == 2 && args[0] instanceof Integer)
+                {
+                    values.add(args[1]);
+                    return null;
+                }
+                if ("execute".equals(name))
+                {
+                    return true;
+                }
+                if ("getResultSet".equals(name))
+                {
+                    return resultSet(values);
+                }
+                if ("getConnection".equals(name))
+                {
+                    throw new SQLException("no connection");
+                }
+                if ("getUpdateCount".equals(name))
+                {
+                    return -1;
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static ResultSet resultSet(final List<Object> values)
+    {
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("getColumnCount".equals(name))
+                {
+                    return 1;
+                }
+                if ("getColumnType".equals(name))
+                {
+                    return Types.INTEGER;
+                }
+                return "getColumnClassName".equals(name) ? Integer.class.getName() : "ID";
+            }
+        });
+        final int[] current = { -1 };
+        return proxy(ResultSet.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("next".equals(name))
+                {
+                    return ++current[0] < values.size();
+                }
+                if ("getMetaData".equals(name))
+                {
+                    return metaData;
+                }
+                if ("getType".equals(name))
+                {
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                }
+                if (name.startsWith("get") && args != null && args.length == 1)
+                {
+                    return values.get(current[0]);
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static Object defaultValue(Method method)
+    {
+        Class<?> type = method.getReturnType();
+        return type == boolean.class ? Boolean.FALSE : type == int.class ? (Object) 0 : null;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(T15CoalescedChunks.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}
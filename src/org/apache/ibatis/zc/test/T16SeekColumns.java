@@ -0,0 +1,78 @@
+package org.apache.ibatis.zc.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.dialect.KeysetPagination;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Seek;
+
+/**
+ * 键集分页的排序列写入SQL前, 必须是结果映射中的普通列名
+ */
+public class T16SeekColumns
+{
+    public static void main(String[] args)
+    {
+        Configuration configuration = new Configuration();
+        ResultMap resultMap = new ResultMap.Builder(configuration, "selectItems-Inline", Item.class, new ArrayList<ResultMapping>()).build();
+        MappedStatement ms = new MappedStatement.Builder(configuration, "selectItems", new StaticSqlSource(configuration, "select * from item"),
+            SqlCommandType.SELECT).resultMaps(Arrays.asList(resultMap)).build();
+
+        BoundSql page = rewrite(ms, Seek.first(10, "ID", "name").after(5, "e"));
+        Check.equal("SELECT * FROM (select * from item) seek_page WHERE (ID > ?) OR (ID = ? AND name > ?) ORDER BY ID, name",
+            page.getSql(), "page sql");
+
+        for (String column : Arrays.asList("id) seek_page; drop table item --", "id desc", "lower(name)", "missing"))
+        {
+            try
+            {
+                rewrite(ms, Seek.first(10, column).after(1));
+                Check.fail("column " + column);
+            }
+            catch (ExecutorException e)
+            {
+                Check.isTrue(e.getMessage().contains("cannot sort on '" + column + "'"), "rejected " + column);
+            }
+        }
+        System.out.println("T16SeekColumns ok");
+    }
+
+    private static BoundSql rewrite(MappedStatement ms, Seek seek)
+    {
+        return KeysetPagination.rewrite(ms, ms.getBoundSql(null), seek);
+    }
+
+    public static class Item
+    {
+        private int id;
+        private String name;
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public void setId(int id)
+        {
+            this.id = id;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName(String name)
+        {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.sharding.PropertyShardStrategy;
+import org.apache.ibatis.executor.sharding.ShardResultMerger;
+import org.apache.ibatis.executor.sharding.ShardingExecutor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+
+/**
+ * 没有分片键的插入被拒绝, 多个分片上的更新需要显式开启
+ */
+public class T17ShardedUpdates
+{
+    private static final int[] executions = new int[2];
+
+    public static void main(String[] args) throws Exception
+    {
+        Configuration configuration = new Configuration();
+        MappedStatement insert = statement(configuration, "insertItem", SqlCommandType.INSERT);
+        MappedStatement delete = statement(configuration, "deleteItems", SqlCommandType.DELETE);
+
+        ShardingExecutor executor = executor(configuration, false);
+        Check.equal(1, executor.update(insert, key(3)), "insert with a shard key");
+        Check.equal("[0, 1]", Arrays.toString(executions), "insert runs on the shard of its key");
+        rejected(executor, insert, key(null), "An insert must target a single shard");
+        rejected(executor, delete, key(null), "Updates must target a single shard");
+        Check.equal(1, executor.update(delete, key(4)), "delete with a shard key");
+        Check.equal("[1, 1]", Arrays.toString(executions), "delete runs on the shard of its key");
+
+        executor = executor(configuration, true);
+        Check.equal(2, executor.update(delete, key(null)), "delete on every shard");
+        Check.equal("[2, 2]", Arrays.toString(executions), "delete runs on each shard");
+        rejected(executor, insert, key(null), "An insert must target a single shard");
+        Check.equal("[2, 2]", Arrays.toString(executions), "rejected statements do not run");
+        System.out.println("T17ShardedUpdates ok");
+    }
+
+    private static void rejected(Executor executor, MappedStatement ms, Object parameter, String message) throws Exception
+    {
+        try
+        {
+            executor.update(ms, parameter);
+            Check.fail(ms.getId() + " without shard key");
+        }
+        catch (ExecutorException e)
+        {
+            Check.isTrue(e.getMessage().startsWith(message), "message: " + e.getMessage());
+        }
+    }
+
+    private static ShardingExecutor executor(Configuration configuration, boolean multiShardUpdates)
+    {
+        List<Executor> shards = new ArrayList<Executor>();
+        for (int i = 0; i < executions.length; i++)
+        {
+            shards.add(configuration.newExecutor(new JdbcTransaction(connection(i)), ExecutorType.SIMPLE));
+        }
+        return new ShardingExecutor(configuration, shards, new PropertyShardStrategy("id"), null, new ShardResultMerger(configuration),
+            multiShardUpdates);
+    }
+
+    private static MappedStatement statement(Configuration configuration, String id, SqlCommandType sqlCommandType)
+    {
+        return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "update item"), sqlCommandType).build();
+    }
+
+    private static Map<String, Object> key(Integer id)
+    {
+        Map<String, Object> parameter = new HashMap<String, Object>();
+        parameter.put("id", id);
+        return parameter;
+    }
+
+    private static Connection connection(final int shard)
+    {
+        return proxy(Connection.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("prepareStatement".equals(method.getName()))
+                {
+                    return statement(shard);
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static PreparedStatement statement(final int shard)
+    {
+        return proxy(PreparedStatement.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("execute".equals(method.getName()))
+                {
+                    executions[shard]++;
+                    return false;
+                }
+                if ("getUpdateCount".equals(method.getName()))
+                {
+                    return 1;
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static Object defaultValue(Method method)
+    {
+        Class<?> type = method.getReturnType();
+        return type == boolean.class ? Boolean.FALSE : type == int.class ? (Object) 0 : null;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(T17ShardedUpdates.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}
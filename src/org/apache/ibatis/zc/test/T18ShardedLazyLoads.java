@@ -0,0 +1,88 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.sharding.PropertyShardStrategy;
+import org.apache.ibatis.executor.sharding.ShardResultMerger;
+import org.apache.ibatis.executor.sharding.ShardingExecutor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+
+/**
+ * 多个分片的查询不能有延迟加载的嵌套查询, 它们只能从默认环境加载
+ */
+public class T18ShardedLazyLoads
+{
+    private static int connectionCalls;
+
+    public static void main(String[] args) throws Exception
+    {
+        Configuration configuration = new Configuration();
+        configuration.addResultMap(new ResultMap.Builder(configuration, "child", HashMap.class, Arrays.asList(
+            new ResultMapping.Builder(configuration, "parent").column("PARENT_ID").nestedQueryId("selectParent").lazy(true).build())).build());
+        MappedStatement direct = statement(configuration, "selectLazy",
+            new ResultMapping.Builder(configuration, "children").column("ID").nestedQueryId("selectChildren").lazy(true).build());
+        MappedStatement nested = statement(configuration, "selectNestedLazy",
+            new ResultMapping.Builder(configuration, "child").nestedResultMapId("child").build());
+
+        List<Executor> shards = new ArrayList<Executor>();
+        for (int i = 0; i < 2; i++)
+        {
+            shards.add(configuration.newExecutor(new JdbcTransaction(connection()), ExecutorType.SIMPLE));
+        }
+        ShardingExecutor executor = new ShardingExecutor(configuration, shards, new PropertyShardStrategy("id"), null,
+            new ShardResultMerger(configuration));
+        for (MappedStatement ms : Arrays.asList(direct, nested))
+        {
+            try
+            {
+                executor.query(ms, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+                Check.fail(ms.getId() + " on every shard");
+            }
+            catch (ExecutorException e)
+            {
+                Check.isTrue(e.getMessage().startsWith("Selects with lazy nested selects must target a single shard, but '" + ms.getId() + "'"),
+                    "message: " + e.getMessage());
+            }
+        }
+        Check.equal(0, connectionCalls, "rejected before querying the shards");
+        System.out.println("T18ShardedLazyLoads ok");
+    }
+
+    private static MappedStatement statement(Configuration configuration, String id, ResultMapping resultMapping)
+    {
+        ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", HashMap.class, Arrays.asList(resultMapping)).build();
+        return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "select * from item"), SqlCommandType.SELECT)
+            .resultMaps(Arrays.asList(resultMap)).build();
+    }
+
+    private static Connection connection()
+    {
+        return (Connection) Proxy.newProxyInstance(T18ShardedLazyLoads.class.getClassLoader(), new Class<?>[] { Connection.class },
+            new InvocationHandler()
+            {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args)
+                {
+                    connectionCalls++;
+                    return null;
+                }
+            });
+    }
+}
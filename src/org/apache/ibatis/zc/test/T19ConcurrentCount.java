@@ -0,0 +1,201 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.datasource.routing.RoutingDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.apache.ibatis.transaction.TransactionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.apache.ibatis.transaction.routing.RoutingTransactionFactory;
+
+/**
+ * 并发计数只在环境数据源打开的会话中进行, 且在命名的计数线程上; 其它会话在会话内计数
+ */
+public class T19ConcurrentCount
+{
+    // 执行COUNT语句的连接和线程
+    private static final List<String> counts = new ArrayList<String>();
+
+    public static void main(String[] args) throws Exception
+    {
+        DefaultSqlSessionFactory factory = new DefaultSqlSessionFactory(configuration(new JdbcTransactionFactory(), dataSource("pool")));
+        Check.equal(2, page(factory.openSession()).getItems().size(), "page rows");
+        Check.isTrue(counts.get(0).startsWith("pool mybatis-count-query-"), "count on its own connection: " + counts);
+
+        counts.clear();
+        page(factory.openSession(connection("given")));
+        Check.equal(Arrays.asList("given main"), counts, "count of a session on a given connection");
+
+        counts.clear();
+        RoutingDataSource routing = new RoutingDataSource(dataSource("primary"), Arrays.asList(dataSource("replica")));
+        page(new DefaultSqlSessionFactory(configuration(new RoutingTransactionFactory(), routing)).openSession());
+        Check.equal(Arrays.asList("replica main"), counts, "count of a session on a routing data source");
+        System.out.println("T19ConcurrentCount ok");
+    }
+
+    private static Page<Object> page(SqlSession session)
+    {
+        try
+        {
+            Page<Object> page = session.selectPageWithTotal("selectItems", null, new RowBounds(0, 2));
+            Check.equal(5L, page.getTotal(), "total");
+            return page;
+        }
+        finally
+        {
+            session.close();
+        }
+    }
+
+    private static Configuration configuration(TransactionFactory transactionFactory, DataSource dataSource)
+    {
+        Configuration configuration = new Configuration(new Environment("test", transactionFactory, dataSource));
+        configuration.setConcurrentCountQuery(true);
+        ResultMap resultMap = new ResultMap.Builder(configuration, "selectItems-Inline", Integer.class, new ArrayList<ResultMapping>()).build();
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "selectItems", new StaticSqlSource(configuration, "select id from item"),
+            SqlCommandType.SELECT).resultMaps(Arrays.asList(resultMap)).build());
+        return configuration;
+    }
+
+    private static DataSource dataSource(final String name)
+    {
+        return proxy(DataSource.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                return "getConnection".equals(method.getName()) ? connection(name) : defaultValue(method);
+            }
+        });
+    }
+
+    private static Connection connection(final String name)
+    {
+        return proxy(Connection.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                if ("prepareStatement".equals(method.getName()))
+                {
+                    boolean count = ((String) args[0]).contains("COUNT");
+                    if (count)
+                    {
+                        synchronized (counts)
+                        {
+                            counts.add(name + " " + Thread.currentThread().getName());
+                        }
+                    }
+                    return statement(count ? Arrays.<Object> asList(5L) : Arrays.<Object> asList(1, 2, 3, 4, 5));
+                }
+                return "getAutoCommit".equals(method.getName()) ? Boolean.TRUE : defaultValue(method);
+            }
+        });
+    }
+
+    private static PreparedStatement statement(final List<Object> values)
+    {
+        return proxy(PreparedStatement.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws SQLException
+            {
+                String name = method.getName();
+                if ("execute".equals(name))
+                {
+                    return true;
+                }
+                if ("getResultSet".equals(name))
+                {
+                    return resultSet(values);
+                }
+                if ("getConnection".equals(name))
+                {
+                    throw new SQLException("no connection");
+                }
+                return "getUpdateCount".equals(name) ? (Object) (-1) : defaultValue(method);
+            }
+        });
+    }
+
+    private static ResultSet resultSet(final List<Object> values)
+    {
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("getColumnCount".equals(name))
+                {
+                    return 1;
+                }
+                if ("getColumnType".equals(name))
+                {
+                    return Types.BIGINT;
+                }
+                return "getColumnClassName".equals(name) ? Long.class.getName() : "C";
+            }
+        });
+        final int[] current = { -1 };
+        return proxy(ResultSet.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("next".equals(name))
+                {
+                    return ++current[0] < values.size();
+                }
+                if ("getMetaData".equals(name))
+                {
+                    return metaData;
+                }
+                if ("getType".equals(name))
+                {
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                }
+                if (name.startsWith("get") && args != null && args.length == 1)
+                {
+                    return values.get(current[0]);
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static Object defaultValue(Method method)
+    {
+        Class<?> type = method.getReturnType();
+        return type == boolean.class ? Boolean.FALSE : type == int.class ? (Object) 0 : null;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(T19ConcurrentCount.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+}
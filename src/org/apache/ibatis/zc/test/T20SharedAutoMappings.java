@@ -0,0 +1,260 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.wrapper.BeanWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapper;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * 不缓存结果集元数据时, 相同列的自动映射计划在多次执行间共享; 注册类型处理器后重新生成
+ */
+public class T20SharedAutoMappings
+{
+    // 生成自动映射计划时查找属性的次数
+    private static int findProperty;
+
+    public static void main(String[] args) throws Exception
+    {
+        Configuration configuration = new Configuration();
+        Check.isTrue(!configuration.isCacheResultSetMetadata(), "metadata caching is off by default");
+        configuration.setObjectWrapperFactory(new CountingWrapperFactory());
+        ResultMap resultMap = new ResultMap.Builder(configuration, "selectItems-Inline", Item.class, new ArrayList<ResultMapping>()).build();
+        MappedStatement ms = new MappedStatement.Builder(configuration, "selectItems", new StaticSqlSource(configuration, "select id, name from item"),
+            SqlCommandType.SELECT).resultMaps(Arrays.asList(resultMap)).build();
+
+        Check.equal("1 a, 2 b", query(configuration, ms), "first execution");
+        Check.equal(2, findProperty, "one lookup per column");
+        Check.equal("1 a, 2 b", query(configuration, ms), "second execution");
+        Check.equal(2, findProperty, "the plan is shared by the second execution");
+
+        configuration.getTypeHandlerRegistry().register(String.class, JdbcType.VARCHAR, new UpperCaseTypeHandler());
+        Check.equal("1 A, 2 B", query(configuration, ms), "execution after a type handler is registered");
+        Check.equal(4, findProperty, "the plan is resolved again");
+        System.out.println("T20SharedAutoMappings ok");
+    }
+
+    private static String query(Configuration configuration, MappedStatement ms) throws SQLException
+    {
+        Executor executor = configuration.newExecutor(new JdbcTransaction(connection()), ExecutorType.SIMPLE);
+        try
+        {
+            StringBuilder items = new StringBuilder();
+            for (Object object : executor.query(ms, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER))
+            {
+                Item item = (Item) object;
+                items.append(items.length() == 0 ? "" : ", ").append(item.getId()).append(' ').append(item.getName());
+            }
+            return items.toString();
+        }
+        finally
+        {
+            executor.close(false);
+        }
+    }
+
+    private static Connection connection()
+    {
+        return proxy(Connection.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                return "prepareStatement".equals(method.getName()) ? statement() : defaultValue(method);
+            }
+        });
+    }
+
+    private static PreparedStatement statement()
+    {
+        return proxy(PreparedStatement.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws SQLException
+            {
+                String name = method.getName();
+                if ("execute".equals(name))
+                {
+                    return true;
+                }
+                if ("getResultSet".equals(name))
+                {
+                    return resultSet();
+                }
+                if ("getConnection".equals(name))
+                {
+                    throw new SQLException("no connection");
+                }
+                return "getUpdateCount".equals(name) ? (Object) (-1) : defaultValue(method);
+            }
+        });
+    }
+
+    // 每次执行都返回新的元数据, 两行: (1, a), (2, b)
+    private static ResultSet resultSet()
+    {
+        final List<String> columns = Arrays.asList("ID", "NAME");
+        final List<List<Object>> rows = Arrays.asList(Arrays.<Object> asList(1, "a"), Arrays.<Object> asList(2, "b"));
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("getColumnCount".equals(name))
+                {
+                    return columns.size();
+                }
+                boolean id = args != null && Integer.valueOf(1).equals(args[0]);
+                if ("getColumnType".equals(name))
+                {
+                    return id ? Types.INTEGER : Types.VARCHAR;
+                }
+                if ("getColumnClassName".equals(name))
+                {
+                    return id ? Integer.class.getName() : String.class.getName();
+                }
+                return columns.get((Integer) args[0] - 1);
+            }
+        });
+        final int[] current = { -1 };
+        return proxy(ResultSet.class, new InvocationHandler()
+        {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+                if ("next".equals(name))
+                {
+                    return ++current[0] < rows.size();
+                }
+                if ("getMetaData".equals(name))
+                {
+                    return metaData;
+                }
+                if ("getType".equals(name))
+                {
+                    return ResultSet.TYPE_FORWARD_ONLY;
+                }
+                if (name.startsWith("get") && args != null && args.length == 1)
+                {
+                    int column = args[0] instanceof Integer ? (Integer) args[0] - 1 : columns.indexOf(args[0]);
+                    return rows.get(current[0]).get(column);
+                }
+                return defaultValue(method);
+            }
+        });
+    }
+
+    private static Object defaultValue(Method method)
+    {
+        Class<?> type = method.getReturnType();
+        return type == boolean.class ? Boolean.FALSE : type == int.class ? (Object) 0 : null;
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        return type.cast(Proxy.newProxyInstance(T20SharedAutoMappings.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static class CountingWrapperFactory implements ObjectWrapperFactory
+    {
+        @Override
+        public boolean hasWrapperFor(Object object)
+        {
+            return object instanceof Item;
+        }
+
+        @Override
+        public ObjectWrapper getWrapperFor(MetaObject metaObject, Object object)
+        {
+            return new BeanWrapper(metaObject, object)
+            {
+                @Override
+                public String findProperty(String name, boolean useCamelCaseMapping)
+                {
+                    findProperty++;
+                    return super.findProperty(name, useCamelCaseMapping);
+                }
+            };
+        }
+    }
+
+    private static class UpperCaseTypeHandler implements TypeHandler<String>
+    {
+        @Override
+        public void setParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException
+        {
+            ps.setString(i, parameter);
+        }
+
+        @Override
+        public String getResult(ResultSet rs, String columnName) throws SQLException
+        {
+            return rs.getString(columnName).toUpperCase();
+        }
+
+        @Override
+        public String getResult(ResultSet rs, int columnIndex) throws SQLException
+        {
+            return rs.getString(columnIndex).toUpperCase();
+        }
+
+        @Override
+        public String getResult(CallableStatement cs, int columnIndex) throws SQLException
+        {
+            return cs.getString(columnIndex).toUpperCase();
+        }
+    }
+
+    public static class Item
+    {
+        private int id;
+        private String name;
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public void setId(int id)
+        {
+            this.id = id;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public void setName(String name)
+        {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.apache.ibatis.zc.test;
+
+import org.apache.ibatis.dialect.Dialect;
+import org.apache.ibatis.dialect.DialectRegistry;
+import org.apache.ibatis.dialect.LimitOffsetDialect;
+import org.apache.ibatis.dialect.OffsetFetchDialect;
+
+/**
+ * 方言只在能生成有效SQL时加限制, 否则返回null由读取结果时跳过行
+ */
+public class T21DialectLimits
+{
+    public static void main(String[] args)
+    {
+        Dialect offsetFetch = new OffsetFetchDialect();
+        Check.equal("select * from item order by id OFFSET 10 ROWS FETCH NEXT 5 ROWS ONLY",
+            offsetFetch.getLimitSql("select * from item order by id;", 10, 5), "ordered select");
+        Check.equal(null, offsetFetch.getLimitSql("select * from item", 10, 5), "SQL Server needs an ORDER BY");
+        Check.equal(null, offsetFetch.getLimitSql("select * from (select * from item order by id) t", 10, 5), "ORDER BY of a sub query");
+        Check.equal(null, offsetFetch.getLimitSql("select * from item order by id fetch first 3 rows only", 10, 5), "already limited");
+
+        Dialect limitOffset = new LimitOffsetDialect();
+        Check.equal("select * from item LIMIT 5 OFFSET 10 for update", limitOffset.getLimitSql("select * from item for update", 10, 5),
+            "limit before the locking clause");
+        Check.equal("select * from item where name = 'limit 1' LIMIT 5", limitOffset.getLimitSql("select * from item where name = 'limit 1'", 0, 5),
+            "limit in a literal");
+        Check.equal(null, limitOffset.getLimitSql("select * from item limit 3", 10, 5), "already limited");
+        Check.equal(null, limitOffset.getLimitSql("select * from item order by id LIMIT ? OFFSET ? for update", 10, 5),
+            "already limited before the locking clause");
+
+        DialectRegistry registry = new DialectRegistry();
+        Check.equal(null, registry.getDialect("Oracle"), "Oracle before 12c has no OFFSET FETCH");
+        Check.isTrue(registry.getDialect("Microsoft SQL Server") instanceof OffsetFetchDialect, "SQL Server");
+        System.out.println("T21DialectLimits ok");
+    }
+}
@@ -0,0 +1,142 @@
+package org.apache.ibatis.zc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.loader.ResultLoader;
+import org.apache.ibatis.executor.loader.ResultLoaderGroup;
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.zc.test.T06ResultLoaderGroup.Child;
+import org.apache.ibatis.zc.test.T06ResultLoaderGroup.Parent;
+
+/**
+ * 批量加载进行中时, 其它线程读取兄弟对象的属性会等待批量查询的结果, 而不是读到null
+ */
+public class T22GroupedLoadReaders
+{
+    private static final int PARENT_COUNT = 3;
+
+    private static final CountDownLatch querying = new CountDownLatch(1);
+    private static final CountDownLatch release = new CountDownLatch(1);
+    private static final AtomicInteger queries = new AtomicInteger();
+    private static final List<Parent> parents = Collections.synchronizedList(new ArrayList<Parent>());
+
+    public static void main(String[] args) throws Exception
+    {
+        final Configuration configuration = new Configuration();
+        configuration.setLazyLoadBatchSize(PARENT_COUNT);
+        // 组在加载线程中创建, 批量查询使用它的执行器
+        Thread loader = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                load(configuration);
+            }
+        });
+        loader.start();
+        Check.isTrue(querying.await(5, TimeUnit.SECONDS), "batch query started");
+
+        final List<Object> read = Collections.synchronizedList(new ArrayList<Object>());
+        Thread reader = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                read.add(parents.get(1).getChildren());
+            }
+        });
+        reader.start();
+        // 等读取线程阻塞在批量查询上, 或者(修复前)已经读到结果
+        long deadline = System.currentTimeMillis() + 5000;
+        while (reader.getState() != Thread.State.WAITING && reader.getState() != Thread.State.TERMINATED
+            && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        reader.join(5000);
+        loader.join(5000);
+
+        Check.equal(1, read.size(), "reader finished");
+        Check.isTrue(read.get(0) != null, "the sibling is read after the batch assigned it");
+        Check.equal(1, ((List<?>) read.get(0)).size(), "children of the sibling");
+        Check.equal(1, parents.get(2).getChildren().size(), "children of the last sibling");
+        Check.equal(1, queries.get(), "one batch query");
+        System.out.println("T22GroupedLoadReaders ok");
+    }
+
+    private static void load(Configuration configuration)
+    {
+        Executor executor = executor();
+        MappedStatement children = new MappedStatement.Builder(configuration, "selectChildren",
+            new StaticSqlSource(configuration, "select * from child"), SqlCommandType.SELECT)
+            .resultMaps(Collections.singletonList(new ResultMap.Builder(configuration, "child", Child.class,
+                new ArrayList<ResultMapping>()).build()))
+            .build();
+        ResultLoaderGroup group = new ResultLoaderGroup(configuration, executor, children, "parentId");
+        for (int i = 0; i < PARENT_COUNT; i++)
+        {
+            Parent target = new Parent();
+            target.setId(i);
+            ResultLoaderMap lazyLoader = new ResultLoaderMap();
+            Parent parent = (Parent) configuration.getProxyFactory().createProxy(target, lazyLoader, configuration,
+                configuration.getObjectFactory(), new ArrayList<Class<?>>(), new ArrayList<Object>());
+            lazyLoader.addLoader("children", configuration.newMetaObject(parent),
+                new ResultLoader(configuration, executor, children, i, List.class, null, null), group);
+            parents.add(parent);
+        }
+        parents.get(0).getChildren();
+    }
+
+    // 批量查询在主线程放行前阻塞, 返回每个父对象的一个子对象
+    private static Executor executor()
+    {
+        return (Executor) Proxy.newProxyInstance(Executor.class.getClassLoader(), new Class<?>[] { Executor.class },
+            new InvocationHandler()
+            {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws InterruptedException
+                {
+                    if ("createCacheKey".equals(method.getName()))
+                    {
+                        return new CacheKey();
+                    }
+                    if ("isClosed".equals(method.getName()))
+                    {
+                        return false;
+                    }
+                    if ("query".equals(method.getName()))
+                    {
+                        queries.incrementAndGet();
+                        querying.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                        List<Object> rows = new ArrayList<Object>();
+                        for (int i = 0; i < PARENT_COUNT; i++)
+                        {
+                            Child child = new Child();
+                            child.setParentId(i);
+                            rows.add(child);
+                        }
+                        return rows;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}